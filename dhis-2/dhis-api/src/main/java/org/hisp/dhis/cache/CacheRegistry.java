@@ -0,0 +1,110 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of all instrumented caches of this node, including those created
+ * outside of the application context through {@link SimpleCacheBuilder}.
+ * Caches are referenced weakly and dropped once garbage collected.
+ */
+public final class CacheRegistry
+{
+    private static final List<WeakReference<InstrumentedCache<?>>> CACHES = new CopyOnWriteArrayList<>();
+
+    private static final List<Consumer<InstrumentedCache<?>>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private CacheRegistry()
+    {
+        throw new IllegalStateException( "Utility class" );
+    }
+
+    /**
+     * Registers a cache and notifies the registered listeners.
+     *
+     * @param cache the cache.
+     */
+    public static synchronized void register( InstrumentedCache<?> cache )
+    {
+        CACHES.removeIf( ref -> ref.get() == null );
+        CACHES.add( new WeakReference<>( cache ) );
+        LISTENERS.forEach( listener -> listener.accept( cache ) );
+    }
+
+    /**
+     * Adds a listener which is invoked for every currently registered cache
+     * and for every cache registered later.
+     *
+     * @param listener the listener.
+     */
+    public static synchronized void addListener( Consumer<InstrumentedCache<?>> listener )
+    {
+        LISTENERS.add( listener );
+        getCaches().forEach( listener );
+    }
+
+    /**
+     * Returns all live registered caches.
+     */
+    public static List<InstrumentedCache<?>> getCaches()
+    {
+        List<InstrumentedCache<?>> caches = new ArrayList<>();
+
+        for ( WeakReference<InstrumentedCache<?>> ref : CACHES )
+        {
+            InstrumentedCache<?> cache = ref.get();
+
+            if ( cache != null )
+            {
+                caches.add( cache );
+            }
+        }
+
+        return caches;
+    }
+
+    /**
+     * Returns the statistics of all live registered caches ordered by region.
+     */
+    public static List<CacheStatistics> getStatistics()
+    {
+        return getCaches().stream()
+            .map( InstrumentedCache::getStatistics )
+            .sorted( Comparator.comparing( CacheStatistics::getRegion ) )
+            .collect( Collectors.toList() );
+    }
+}
@@ -0,0 +1,142 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Snapshot of the statistics of a cache region, see {@link InstrumentedCache}.
+ */
+public class CacheStatistics
+{
+    private final String region;
+
+    private final CacheType cacheType;
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long putCount;
+
+    private final long loadCount;
+
+    private final long totalLoadTimeMillis;
+
+    private final Long evictionCount;
+
+    private final Long size;
+
+    public CacheStatistics( String region, CacheType cacheType, long hitCount, long missCount, long putCount,
+        long loadCount, long totalLoadTimeMillis, Long evictionCount, Long size )
+    {
+        this.region = region;
+        this.cacheType = cacheType;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.loadCount = loadCount;
+        this.totalLoadTimeMillis = totalLoadTimeMillis;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    @JsonProperty
+    public String getRegion()
+    {
+        return region;
+    }
+
+    @JsonProperty
+    public CacheType getCacheType()
+    {
+        return cacheType;
+    }
+
+    @JsonProperty
+    public long getHitCount()
+    {
+        return hitCount;
+    }
+
+    @JsonProperty
+    public long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 0 if there were no lookups.
+     */
+    @JsonProperty
+    public double getHitRatio()
+    {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0d : (double) hitCount / lookups;
+    }
+
+    @JsonProperty
+    public long getPutCount()
+    {
+        return putCount;
+    }
+
+    @JsonProperty
+    public long getLoadCount()
+    {
+        return loadCount;
+    }
+
+    @JsonProperty
+    public long getTotalLoadTimeMillis()
+    {
+        return totalLoadTimeMillis;
+    }
+
+    /**
+     * Returns the number of entries evicted due to size or expiry, or null if
+     * not known for the cache type.
+     */
+    @JsonProperty
+    public Long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of entries held by this node, or null if not known
+     * for the cache type.
+     */
+    @JsonProperty
+    public Long getSize()
+    {
+        return size;
+    }
+}
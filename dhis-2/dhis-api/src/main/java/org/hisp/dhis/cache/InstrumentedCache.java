@@ -0,0 +1,222 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Decorator of {@link Cache} which records hit, miss, put and load
+ * statistics. Instances register themselves in the {@link CacheRegistry}.
+ */
+public class InstrumentedCache<V> implements Cache<V>
+{
+    private final String region;
+
+    private final Cache<V> delegate;
+
+    private final V defaultValue;
+
+    private final LongSupplier sizeSupplier;
+
+    private final LongSupplier evictionCountSupplier;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder putCount = new LongAdder();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+
+    /**
+     * Constructor for instantiating InstrumentedCache.
+     *
+     * @param cacheBuilder the cache builder instance.
+     * @param delegate the cache to decorate.
+     * @param sizeSupplier supplier of the number of entries held by this node,
+     *        or null if not known.
+     * @param evictionCountSupplier supplier of the number of entries evicted
+     *        by this node, or null if not known.
+     */
+    public InstrumentedCache( CacheBuilder<V> cacheBuilder, Cache<V> delegate, LongSupplier sizeSupplier,
+        LongSupplier evictionCountSupplier )
+    {
+        this.region = cacheBuilder.getRegion();
+        this.delegate = delegate;
+        this.defaultValue = cacheBuilder.getDefaultValue();
+        this.sizeSupplier = sizeSupplier;
+        this.evictionCountSupplier = evictionCountSupplier;
+
+        CacheRegistry.register( this );
+    }
+
+    @Override
+    public Optional<V> getIfPresent( String key )
+    {
+        Optional<V> value = delegate.getIfPresent( key );
+        ( value.isPresent() ? hitCount : missCount ).increment();
+        return value;
+    }
+
+    @Override
+    public Optional<V> get( String key )
+    {
+        return Optional.ofNullable( getIfPresent( key ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction )
+    {
+        if ( null == mappingFunction )
+        {
+            throw new IllegalArgumentException( "MappingFunction cannot be null" );
+        }
+
+        boolean[] loaded = { false };
+
+        Optional<V> value = delegate.get( key, k -> {
+            long start = System.nanoTime();
+            loaded[0] = true;
+
+            try
+            {
+                return mappingFunction.apply( k );
+            }
+            finally
+            {
+                loadCount.increment();
+                totalLoadTimeNanos.add( System.nanoTime() - start );
+            }
+        } );
+
+        ( loaded[0] ? missCount : hitCount ).increment();
+        return value;
+    }
+
+    @Override
+    public Collection<V> getAll()
+    {
+        return delegate.getAll();
+    }
+
+    @Override
+    public void put( String key, V value )
+    {
+        delegate.put( key, value );
+        putCount.increment();
+    }
+
+    @Override
+    public void put( String key, V value, long ttlInSeconds )
+    {
+        delegate.put( key, value, ttlInSeconds );
+        putCount.increment();
+    }
+
+    @Override
+    public void invalidate( String key )
+    {
+        delegate.invalidate( key );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        delegate.invalidateAll();
+    }
+
+    @Override
+    public CacheType getCacheType()
+    {
+        return delegate.getCacheType();
+    }
+
+    public String getRegion()
+    {
+        return region;
+    }
+
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    }
+
+    public long getMissCount()
+    {
+        return missCount.sum();
+    }
+
+    public long getPutCount()
+    {
+        return putCount.sum();
+    }
+
+    public long getLoadCount()
+    {
+        return loadCount.sum();
+    }
+
+    public long getTotalLoadTimeNanos()
+    {
+        return totalLoadTimeNanos.sum();
+    }
+
+    /**
+     * Returns the number of evicted entries, or null if not known.
+     */
+    public Long getEvictionCount()
+    {
+        return evictionCountSupplier != null ? evictionCountSupplier.getAsLong() : null;
+    }
+
+    /**
+     * Returns the number of entries held by this node, or null if not known.
+     */
+    public Long getSize()
+    {
+        return sizeSupplier != null ? sizeSupplier.getAsLong() : null;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache.
+     */
+    public CacheStatistics getStatistics()
+    {
+        return new CacheStatistics( region, getCacheType(), getHitCount(), getMissCount(), getPutCount(),
+            getLoadCount(), TimeUnit.NANOSECONDS.toMillis( getTotalLoadTimeNanos() ), getEvictionCount(), getSize() );
+    }
+}
@@ -35,9 +35,11 @@ import static org.springframework.util.Assert.hasText;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import org.cache2k.Cache2kBuilder;
+import org.cache2k.event.CacheEntryEvictedListener;
 
 /**
  * Local cache implementation of {@link Cache}. This implementation is backed by
@@ -51,6 +53,8 @@ public class LocalCache<V> implements Cache<V>
 
     private V defaultValue;
 
+    private final LongAdder evictionCount = new LongAdder();
+
     /**
      * Constructor to instantiate LocalCache object.
      *
@@ -59,7 +63,7 @@ public class LocalCache<V> implements Cache<V>
     @SuppressWarnings("unchecked")
     public LocalCache( final CacheBuilder<V> cacheBuilder )
     {
-        Cache2kBuilder<?, ?> builder = Cache2kBuilder.forUnknownTypes();
+        Cache2kBuilder<Object, Object> builder = Cache2kBuilder.forUnknownTypes();
 
         if ( cacheBuilder.isExpiryEnabled() )
         {
@@ -84,6 +88,8 @@ public class LocalCache<V> implements Cache<V>
             builder.entryCapacity( cacheBuilder.getMaximumSize() );
         }
 
+        builder.addListener( (CacheEntryEvictedListener<Object, Object>) ( cache, entry ) -> evictionCount.increment() );
+
         // Using unknown typed key for builder and casting it
         this.cache2kInstance = (org.cache2k.Cache<String, V>) builder.build();
         this.defaultValue = cacheBuilder.getDefaultValue();
@@ -165,4 +171,20 @@ public class LocalCache<V> implements Cache<V>
     {
         return CacheType.IN_MEMORY;
     }
+
+    /**
+     * Returns the number of entries in this cache.
+     */
+    public long size()
+    {
+        return cache2kInstance.asMap().size();
+    }
+
+    /**
+     * Returns the number of entries evicted due to the capacity limit.
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount.sum();
+    }
 }
@@ -140,11 +140,12 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
 
     /**
      * Creates and returns a {@link LocalCache}. If {@code maximumSize} is 0 or {@code disabled} is true then a
-     * NoOpCache instance will be returned which does not cache anything.
+     * NoOpCache instance will be returned which does not cache anything. Local
+     * caches are decorated with {@link InstrumentedCache} to record statistics.
      * 
      * @return A cache instance based on the input
-     *         parameters. Returns one of {@link LocalCache}
-     *         or {@link NoOpCache}
+     *         parameters. Returns one of {@link InstrumentedCache} over
+     *         {@link LocalCache}, or {@link NoOpCache}
      */
     public Cache<V> build()
     {
@@ -156,10 +157,21 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
         else
         {
             log.info( String.format( "Simple Local Cache instance created for region:'%s'", region ) );
-            return new LocalCache<V>( this );
+            return instrument( new LocalCache<V>( this ) );
         }
     }
 
+    /**
+     * Decorates the given local cache with statistics recording.
+     *
+     * @param cache the local cache.
+     * @return the instrumented cache.
+     */
+    protected Cache<V> instrument( LocalCache<V> cache )
+    {
+        return new InstrumentedCache<>( this, cache, cache::size, cache::getEvictionCount );
+    }
+
     public long getMaximumSize()
     {
         return maximumSize;
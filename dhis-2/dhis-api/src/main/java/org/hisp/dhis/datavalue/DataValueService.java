@@ -191,6 +191,17 @@ public interface DataValueService
      */
     List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params );
 
+    /**
+     * Returns deflated data values, including soft deleted ones, which match
+     * the data element, period, organisation unit, category option combo and
+     * attribute option combo of any of the given data values. Intended for
+     * resolving existence of a batch of data values in a single query.
+     *
+     * @param dataValues the data values to look up.
+     * @return a list of deflated data values.
+     */
+    List<DeflatedDataValue> getExistingDataValues( Collection<DataValue> dataValues );
+
     /**
      * Gets the number of DataValues persisted since the given number of days.
      *
@@ -211,6 +211,8 @@ public enum ErrorCode
     E7131( "Query failed, likely because the query timed out" ),
     E7132( "Query failed. An Indicator expression is resulting in invalid operation: division by zero" ),
     E7133( "This query cannot be executed, possibly because of invalid types or invalid operation" ),
+    E7134( "Query is estimated to scan too many rows: `{0}`, max: `{1}`" ),
+    E7135( "Query was not admitted as too many expensive queries are running, try again later" ),
 
     /* Event analytics */
     E7200( "At least one organisation unit must be specified" ),
@@ -32,6 +32,7 @@ import org.hisp.dhis.common.CodeGenerator;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * @author Lars Helge Overland
@@ -94,6 +95,19 @@ public abstract class ResourceTable<T>
         return "alter table " + getTempTableName() + " rename to " + getTableName() + ";";
     }
 
+    /**
+     * Provides content for the temporary resource table as a stream of object
+     * arrays. Tables with large content override this method to produce the
+     * rows lazily while they are written to the database. Defaults to the
+     * content provided by {@link #getPopulateTempTableContent()}.
+     *
+     * @return content for the temporary resource table.
+     */
+    public Optional<Stream<Object[]>> getPopulateTempTableRows()
+    {
+        return getPopulateTempTableContent().map( List::stream );
+    }
+
     // -------------------------------------------------------------------------
     // Protected methods
     // -------------------------------------------------------------------------
@@ -28,6 +28,8 @@ package org.hisp.dhis.resourcetable;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Date;
+
 /**
  * @author Lars Helge Overland
  */
@@ -106,6 +108,18 @@ public interface ResourceTableService
      */
     void generateDataApprovalMinLevelTable();
 
+    /**
+     * Indicates whether the given resource table may be out of date, i.e.
+     * whether the table does not exist, or whether any of the metadata objects
+     * the table is derived from were updated or deleted after the given date.
+     * Returns true for tables for which the source metadata is not known.
+     *
+     * @param tableType the resource table type.
+     * @param since the date of the last generation of the table.
+     * @return true if the table should be regenerated.
+     */
+    boolean isResourceTableChanged( ResourceTableType tableType, Date since );
+
     /**
      * Create all SQL views.
      */
@@ -60,6 +60,8 @@ public class PredictorJobParameters
 
     private List<String> predictorGroups = new ArrayList<>();
 
+    private boolean incremental;
+
     public PredictorJobParameters()
     {
     }
@@ -122,6 +124,22 @@ public class PredictorJobParameters
         this.predictorGroups = predictorGroups;
     }
 
+    /**
+     * If true, only predictions with input data changed since the last
+     * successful run of the job are recomputed.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public void setIncremental( boolean incremental )
+    {
+        this.incremental = incremental;
+    }
+
     @Override
     public Optional<ErrorReport> validate()
     {
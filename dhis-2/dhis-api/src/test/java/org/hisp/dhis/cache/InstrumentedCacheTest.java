@@ -0,0 +1,97 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InstrumentedCacheTest
+{
+    @Test
+    public void testStatistics()
+    {
+        Cache<String> cache = new SimpleCacheBuilder<String>()
+            .forRegion( "instrumentedCacheTest" )
+            .withDefaultValue( "default" )
+            .withMaximumSize( 10 )
+            .build();
+
+        assertTrue( cache instanceof InstrumentedCache );
+
+        assertEquals( "default", cache.get( "a" ).get() );
+        cache.put( "a", "value" );
+        assertEquals( "value", cache.get( "a" ).get() );
+        assertEquals( "value", cache.getIfPresent( "a" ).get() );
+        assertEquals( "loaded", cache.get( "b", k -> "loaded" ).get() );
+        assertEquals( "loaded", cache.get( "b", k -> "other" ).get() );
+
+        CacheStatistics statistics = ( (InstrumentedCache<String>) cache ).getStatistics();
+
+        assertEquals( "instrumentedCacheTest", statistics.getRegion() );
+        assertEquals( CacheType.IN_MEMORY, statistics.getCacheType() );
+        assertEquals( 3, statistics.getHitCount() );
+        assertEquals( 2, statistics.getMissCount() );
+        assertEquals( 0.6, statistics.getHitRatio(), 0.0001 );
+        assertEquals( 1, statistics.getPutCount() );
+        assertEquals( 1, statistics.getLoadCount() );
+        assertEquals( Long.valueOf( 2 ), statistics.getSize() );
+    }
+
+    @Test
+    public void testEvictionCount()
+    {
+        InstrumentedCache<String> cache = (InstrumentedCache<String>) new SimpleCacheBuilder<String>()
+            .forRegion( "instrumentedCacheEvictionTest" )
+            .withMaximumSize( 2 )
+            .build();
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            cache.put( String.valueOf( i ), "value" );
+        }
+
+        assertTrue( cache.getSize() <= 2 );
+        assertTrue( cache.getEvictionCount() > 0 );
+    }
+
+    @Test
+    public void testRegistry()
+    {
+        Cache<String> cache = new SimpleCacheBuilder<String>()
+            .forRegion( "instrumentedCacheRegistryTest" )
+            .build();
+
+        assertTrue( CacheRegistry.getCaches().contains( cache ) );
+        assertTrue( CacheRegistry.getStatistics().stream()
+            .anyMatch( s -> s.getRegion().equals( "instrumentedCacheRegistryTest" ) ) );
+    }
+}
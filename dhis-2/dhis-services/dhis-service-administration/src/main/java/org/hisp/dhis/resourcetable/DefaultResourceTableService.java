@@ -32,20 +32,35 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryOptionGroup;
 import org.hisp.dhis.category.CategoryOptionGroupSet;
 import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.dataapproval.DataApprovalLevelService;
+import org.hisp.dhis.dataapproval.DataApprovalWorkflow;
 import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.dataelement.DataElementGroupSet;
 import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.deletedobject.DeletedObjectQuery;
+import org.hisp.dhis.deletedobject.DeletedObjectService;
+import org.hisp.dhis.indicator.Indicator;
+import org.hisp.dhis.indicator.IndicatorGroup;
 import org.hisp.dhis.indicator.IndicatorGroupSet;
 import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupSet;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -55,7 +70,10 @@ import org.hisp.dhis.sqlview.SqlView;
 import org.hisp.dhis.sqlview.SqlViewService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ClassUtils;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 import lombok.extern.slf4j.Slf4j;
@@ -68,6 +86,29 @@ import lombok.extern.slf4j.Slf4j;
 public class DefaultResourceTableService
     implements ResourceTableService
 {
+    /**
+     * Metadata types from which each resource table is derived. Tables not
+     * present here are considered changed on every generation.
+     */
+    private static final ImmutableMap<ResourceTableType, Set<Class<? extends IdentifiableObject>>> TABLE_SOURCES =
+        ImmutableMap.<ResourceTableType, Set<Class<? extends IdentifiableObject>>> builder()
+            .put( ResourceTableType.ORG_UNIT_STRUCTURE, ImmutableSet.of( OrganisationUnit.class ) )
+            .put( ResourceTableType.DATA_SET_ORG_UNIT_CATEGORY, ImmutableSet.of( DataSet.class,
+                OrganisationUnit.class, CategoryCombo.class, CategoryOptionCombo.class, CategoryOption.class ) )
+            .put( ResourceTableType.CATEGORY_OPTION_COMBO_NAME, ImmutableSet.of( CategoryCombo.class,
+                Category.class, CategoryOption.class, CategoryOptionCombo.class ) )
+            .put( ResourceTableType.DATA_ELEMENT_GROUP_SET_STRUCTURE, ImmutableSet.of( DataElementGroupSet.class,
+                DataElementGroup.class, DataElement.class ) )
+            .put( ResourceTableType.INDICATOR_GROUP_SET_STRUCTURE, ImmutableSet.of( IndicatorGroupSet.class,
+                IndicatorGroup.class, Indicator.class ) )
+            .put( ResourceTableType.ORG_UNIT_GROUP_SET_STRUCTURE, ImmutableSet.of( OrganisationUnitGroupSet.class,
+                OrganisationUnitGroup.class, OrganisationUnit.class ) )
+            .put( ResourceTableType.CATEGORY_STRUCTURE, ImmutableSet.of( Category.class, CategoryOption.class,
+                CategoryOptionGroupSet.class, CategoryOptionGroup.class, CategoryOptionCombo.class ) )
+            .put( ResourceTableType.DATA_ELEMENT_STRUCTURE, ImmutableSet.of( DataElement.class, DataSet.class,
+                DataApprovalWorkflow.class ) )
+            .build();
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -88,11 +129,16 @@ public class DefaultResourceTableService
     private CategoryService categoryService;
     
     private StatementBuilder statementBuilder;
+
+    private DeletedObjectService deletedObjectService;
+
+    private DbmsManager dbmsManager;
     
     public DefaultResourceTableService( ResourceTableStore resourceTableStore,
         IdentifiableObjectManager idObjectManager, OrganisationUnitService organisationUnitService,
         PeriodService periodService, SqlViewService sqlViewService, DataApprovalLevelService dataApprovalLevelService,
-        CategoryService categoryService, StatementBuilder statementBuilder )
+        CategoryService categoryService, StatementBuilder statementBuilder, DeletedObjectService deletedObjectService,
+        DbmsManager dbmsManager )
     {
         checkNotNull( resourceTableStore );
         checkNotNull( idObjectManager );
@@ -102,6 +148,8 @@ public class DefaultResourceTableService
         checkNotNull( dataApprovalLevelService );
         checkNotNull( categoryService );
         checkNotNull( statementBuilder );
+        checkNotNull( deletedObjectService );
+        checkNotNull( dbmsManager );
 
         this.resourceTableStore = resourceTableStore;
         this.idObjectManager = idObjectManager;
@@ -111,6 +159,8 @@ public class DefaultResourceTableService
         this.dataApprovalLevelService = dataApprovalLevelService;
         this.categoryService = categoryService;
         this.statementBuilder = statementBuilder;
+        this.deletedObjectService = deletedObjectService;
+        this.dbmsManager = dbmsManager;
     }
 
     // -------------------------------------------------------------------------
@@ -221,6 +271,40 @@ public class DefaultResourceTableService
         }
     }
 
+    @Override
+    @Transactional( readOnly = true )
+    public boolean isResourceTableChanged( ResourceTableType tableType, Date since )
+    {
+        Set<Class<? extends IdentifiableObject>> sources = TABLE_SOURCES.get( tableType );
+
+        if ( since == null || sources == null || !dbmsManager.tableExists( tableType.getTableName() ) )
+        {
+            return true;
+        }
+
+        List<String> klasses = new ArrayList<>();
+
+        for ( Class<? extends IdentifiableObject> source : sources )
+        {
+            Date lastUpdated = idObjectManager.getLastUpdated( source );
+
+            if ( lastUpdated != null && !lastUpdated.before( since ) )
+            {
+                log.debug( String.format( "Resource table %s changed, %s updated at %s",
+                    tableType.getTableName(), source.getSimpleName(), lastUpdated ) );
+                return true;
+            }
+
+            klasses.add( ClassUtils.getShortName( source ) );
+        }
+
+        DeletedObjectQuery query = new DeletedObjectQuery();
+        query.setKlass( klasses );
+        query.setDeletedAt( since );
+
+        return deletedObjectService.countDeletedObjects( query ) > 0;
+    }
+
     // -------------------------------------------------------------------------
     // SQL Views. Each view is created/dropped in separate transactions so that
     // process continues even if individual operations fail.
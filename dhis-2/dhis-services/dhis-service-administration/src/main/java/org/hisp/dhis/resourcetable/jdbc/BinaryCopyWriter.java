@@ -0,0 +1,206 @@
+package org.hisp.dhis.resourcetable.jdbc;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Writes rows in the PostgreSQL binary COPY format. Supports the column types
+ * used by resource tables.
+ */
+public class BinaryCopyWriter
+{
+    private static final byte[] SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+
+    private static final LocalDate POSTGRES_EPOCH = LocalDate.of( 2000, 1, 1 );
+
+    private final DataOutputStream out;
+
+    private final int[] columnTypes;
+
+    /**
+     * Creates a writer and writes the file header.
+     *
+     * @param out the stream to write to.
+     * @param columnTypes the {@link Types} of the table columns.
+     * @throws IOException if writing fails.
+     */
+    public BinaryCopyWriter( OutputStream out, int[] columnTypes )
+        throws IOException
+    {
+        this.out = new DataOutputStream( out );
+        this.columnTypes = columnTypes;
+
+        this.out.write( SIGNATURE );
+        this.out.writeInt( 0 ); // Flags
+        this.out.writeInt( 0 ); // Header extension length
+    }
+
+    /**
+     * Indicates whether values of the given column type can be written.
+     *
+     * @param columnType the {@link Types} of the column.
+     * @return true if the column type is supported.
+     */
+    public static boolean isSupported( int columnType )
+    {
+        switch ( columnType )
+        {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.DATE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param row the column values of the row.
+     * @throws IOException if writing fails.
+     */
+    public void writeRow( Object[] row )
+        throws IOException
+    {
+        if ( row.length != columnTypes.length )
+        {
+            throw new IllegalArgumentException( String.format(
+                "Row has %d values, table has %d columns", row.length, columnTypes.length ) );
+        }
+
+        out.writeShort( row.length );
+
+        for ( int i = 0; i < row.length; i++ )
+        {
+            writeValue( columnTypes[i], row[i] );
+        }
+    }
+
+    /**
+     * Writes the file trailer and flushes the stream.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void finish()
+        throws IOException
+    {
+        out.writeShort( -1 );
+        out.flush();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void writeValue( int columnType, Object value )
+        throws IOException
+    {
+        if ( value == null )
+        {
+            out.writeInt( -1 );
+            return;
+        }
+
+        switch ( columnType )
+        {
+            case Types.BIGINT:
+                out.writeInt( 8 );
+                out.writeLong( ( (Number) value ).longValue() );
+                break;
+            case Types.INTEGER:
+                out.writeInt( 4 );
+                out.writeInt( ( (Number) value ).intValue() );
+                break;
+            case Types.SMALLINT:
+                out.writeInt( 2 );
+                out.writeShort( ( (Number) value ).shortValue() );
+                break;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                out.writeInt( 1 );
+                out.writeByte( (Boolean) value ? 1 : 0 );
+                break;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+                out.writeInt( 8 );
+                out.writeDouble( ( (Number) value ).doubleValue() );
+                break;
+            case Types.REAL:
+                out.writeInt( 4 );
+                out.writeFloat( ( (Number) value ).floatValue() );
+                break;
+            case Types.DATE:
+                out.writeInt( 4 );
+                out.writeInt( (int) ChronoUnit.DAYS.between( POSTGRES_EPOCH, toLocalDate( value ) ) );
+                break;
+            default:
+                byte[] bytes = String.valueOf( value ).getBytes( StandardCharsets.UTF_8 );
+                out.writeInt( bytes.length );
+                out.write( bytes );
+        }
+    }
+
+    private LocalDate toLocalDate( Object value )
+    {
+        if ( value instanceof LocalDate )
+        {
+            return (LocalDate) value;
+        }
+        else if ( value instanceof java.sql.Date )
+        {
+            return ( (java.sql.Date) value ).toLocalDate();
+        }
+        else if ( value instanceof Date )
+        {
+            return Instant.ofEpochMilli( ( (Date) value ).getTime() ).atZone( ZoneId.systemDefault() ).toLocalDate();
+        }
+
+        throw new IllegalArgumentException( "Not a date value: " + value );
+    }
+}
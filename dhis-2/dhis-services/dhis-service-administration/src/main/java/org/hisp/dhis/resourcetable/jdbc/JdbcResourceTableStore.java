@@ -30,8 +30,17 @@ package org.hisp.dhis.resourcetable.jdbc;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.hisp.dhis.analytics.AnalyticsTableHook;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
@@ -41,6 +50,9 @@ import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.resourcetable.ResourceTable;
 import org.hisp.dhis.resourcetable.ResourceTableStore;
 import org.hisp.dhis.system.util.Clock;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
@@ -54,6 +66,16 @@ import lombok.extern.slf4j.Slf4j;
 public class JdbcResourceTableStore
     implements ResourceTableStore
 {
+    private static final int BATCH_SIZE = 10000;
+
+    /**
+     * Number of rows collected before each copy. Rows are produced while no
+     * copy is in progress, as producing them may use the same connection.
+     */
+    static final int COPY_CHUNK_SIZE = 50000;
+
+    private static final int COPY_BUFFER_SIZE = 65536;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -92,7 +114,7 @@ public class JdbcResourceTableStore
         final Clock clock = new Clock().startClock();
         final String createTableSql = resourceTable.getCreateTempTableStatement();
         final Optional<String> populateTableSql = resourceTable.getPopulateTempTableStatement();
-        final Optional<List<Object[]>> populateTableContent = resourceTable.getPopulateTempTableContent();
+        final Optional<Stream<Object[]>> populateTableRows = resourceTable.getPopulateTempTableRows();
         final List<String> createIndexSql = resourceTable.getCreateIndexStatements();
         final String analyzeTableSql = statementBuilder.getAnalyze( resourceTable.getTableName() );
 
@@ -114,7 +136,7 @@ public class JdbcResourceTableStore
         jdbcTemplate.execute( createTableSql );
 
         // ---------------------------------------------------------------------
-        // Populate temporary table through SQL or object batch update
+        // Populate temporary table through SQL, binary copy or batch update
         // ---------------------------------------------------------------------
 
         if ( populateTableSql.isPresent() )
@@ -123,17 +145,13 @@ public class JdbcResourceTableStore
 
             jdbcTemplate.execute( populateTableSql.get() );
         }
-        else if ( populateTableContent.isPresent() )
+        else if ( populateTableRows.isPresent() )
         {
-            List<Object[]> content = populateTableContent.get();
-
-            log.debug( String.format( "Populate table content rows: '%d'", content.size() ) );
-
-            if ( content.size() > 0 )
+            try ( Stream<Object[]> rows = populateTableRows.get() )
             {
-                int columns = content.get( 0 ).length;
+                long count = populateTable( resourceTable.getTempTableName(), rows );
 
-                batchUpdate( columns, resourceTable.getTempTableName(), content );
+                log.debug( String.format( "Populate table content rows: '%d'", count ) );
             }
         }
 
@@ -210,4 +228,139 @@ public class JdbcResourceTableStore
 
         jdbcTemplate.batchUpdate( builder.toString(), batchArgs );
     }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes the rows to the given table in chunks. Uses binary copy if the
+     * database is PostgreSQL and supports all column types, and otherwise
+     * batch updates.
+     * <p>
+     * Each chunk is collected from the stream before it is written. Producing
+     * rows may load entities through the connection of the current
+     * transaction, which is the same connection the copy runs on and which
+     * cannot be used for anything else while a copy is in progress.
+     *
+     * @param tableName the name of the table.
+     * @param rows the rows to write.
+     * @return the number of rows written.
+     */
+    private long populateTable( String tableName, Stream<Object[]> rows )
+    {
+        int[] columnTypes = jdbcTemplate.execute(
+            (ConnectionCallback<int[]>) connection -> getCopyColumnTypes( connection, tableName ) );
+
+        int chunkSize = columnTypes != null ? COPY_CHUNK_SIZE : BATCH_SIZE;
+        Iterator<Object[]> iterator = rows.iterator();
+        List<Object[]> chunk = new ArrayList<>();
+        long count = 0;
+
+        while ( iterator.hasNext() )
+        {
+            chunk.add( iterator.next() );
+
+            if ( chunk.size() >= chunkSize || !iterator.hasNext() )
+            {
+                if ( columnTypes != null )
+                {
+                    copyRows( tableName, columnTypes, chunk );
+                }
+                else
+                {
+                    batchUpdate( chunk.get( 0 ).length, tableName, chunk );
+                }
+
+                count += chunk.size();
+                chunk.clear();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the column types of the given table, or null if the table cannot
+     * be written with binary copy.
+     */
+    private int[] getCopyColumnTypes( Connection connection, String tableName )
+        throws SQLException
+    {
+        if ( !connection.isWrapperFor( PGConnection.class ) )
+        {
+            return null;
+        }
+
+        try ( Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery( "select * from " + tableName + " limit 0" ) )
+        {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+
+            int[] columnTypes = new int[metaData.getColumnCount()];
+
+            for ( int i = 0; i < columnTypes.length; i++ )
+            {
+                columnTypes[i] = metaData.getColumnType( i + 1 );
+
+                if ( !BinaryCopyWriter.isSupported( columnTypes[i] ) )
+                {
+                    log.debug( String.format( "Column type '%s' of table '%s' not supported by binary copy",
+                        metaData.getColumnTypeName( i + 1 ), tableName ) );
+
+                    return null;
+                }
+            }
+
+            return columnTypes;
+        }
+    }
+
+    private void copyRows( String tableName, int[] columnTypes, List<Object[]> rows )
+    {
+        jdbcTemplate.execute( (ConnectionCallback<Long>) connection -> copyRows( connection, tableName, columnTypes, rows ) );
+    }
+
+    private long copyRows( Connection connection, String tableName, int[] columnTypes, List<Object[]> rows )
+        throws SQLException
+    {
+        String sql = "copy " + tableName + " from stdin (format binary)";
+
+        PGCopyOutputStream out = new PGCopyOutputStream( connection.unwrap( PGConnection.class ), sql, COPY_BUFFER_SIZE );
+
+        try
+        {
+            BinaryCopyWriter writer = new BinaryCopyWriter( out, columnTypes );
+
+            for ( Object[] row : rows )
+            {
+                writer.writeRow( row );
+            }
+
+            writer.finish();
+
+            return out.endCopy();
+        }
+        catch ( IOException ex )
+        {
+            cancelCopy( out );
+
+            throw new SQLException( "Binary copy into table failed: " + tableName, ex );
+        }
+        catch ( RuntimeException ex )
+        {
+            cancelCopy( out );
+
+            throw ex;
+        }
+    }
+
+    private void cancelCopy( PGCopyOutputStream out )
+        throws SQLException
+    {
+        if ( out.isActive() )
+        {
+            out.cancelCopy();
+        }
+    }
 }
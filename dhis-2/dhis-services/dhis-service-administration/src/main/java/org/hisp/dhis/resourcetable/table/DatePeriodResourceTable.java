@@ -33,6 +33,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.commons.collection.UniqueArrayList;
@@ -86,9 +87,13 @@ public class DatePeriodResourceTable
     @Override
     public Optional<List<Object[]>> getPopulateTempTableContent()
     {
-        List<PeriodType> periodTypes = PeriodType.getAvailablePeriodTypes();
+        return getPopulateTempTableRows().map( rows -> rows.collect( Collectors.toList() ) );
+    }
 
-        List<Object[]> batchArgs = new ArrayList<>();
+    @Override
+    public Optional<Stream<Object[]>> getPopulateTempTableRows()
+    {
+        List<PeriodType> periodTypes = PeriodType.getAvailablePeriodTypes();
 
         Date startDate = new Cal( 1975, 1, 1, true ).time(); //TODO Create a dynamic solution instead of fixing the date
         Date endDate = new Cal( 2025, 1, 1, true ).time();
@@ -99,11 +104,10 @@ public class DatePeriodResourceTable
 
         Calendar calendar = PeriodType.getCalendar();
 
-        for ( Date day : days )
-        {
+        return Optional.of( days.stream().map( day -> {
             List<Object> values = new ArrayList<>();
 
-            final int year = PeriodType.getCalendar().fromIso( day ).getYear();
+            final int year = calendar.fromIso( day ).getYear();
 
             values.add( day );
             values.add( year );
@@ -113,10 +117,8 @@ public class DatePeriodResourceTable
                 values.add( periodType.createPeriod( day, calendar ).getIsoDate() );
             }
 
-            batchArgs.add( values.toArray() );
-        }
-
-        return Optional.of( batchArgs );
+            return values.toArray();
+        } ) );
     }
 
     @Override
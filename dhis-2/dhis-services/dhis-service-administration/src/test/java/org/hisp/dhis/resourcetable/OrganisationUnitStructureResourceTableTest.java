@@ -0,0 +1,100 @@
+package org.hisp.dhis.resourcetable;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Generates the organisation unit structure table on PostgreSQL, where the
+ * rows are written with binary copy while the organisation units and their
+ * parents are loaded lazily through the connection of the same transaction.
+ */
+public class OrganisationUnitStructureResourceTableTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private IdentifiableObjectManager idObjectManager;
+
+    @Autowired
+    private ResourceTableService resourceTableService;
+
+    @Test
+    public void testGenerateOrganisationUnitStructures()
+    {
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+        OrganisationUnit ouB = createOrganisationUnit( 'B', ouA );
+        OrganisationUnit ouC = createOrganisationUnit( 'C', ouA );
+        OrganisationUnit ouD = createOrganisationUnit( 'D', ouB );
+        OrganisationUnit ouE = createOrganisationUnit( 'E', ouC );
+
+        transactionTemplate.execute( status -> {
+            idObjectManager.save( ouA );
+            idObjectManager.save( ouB );
+            idObjectManager.save( ouC );
+            idObjectManager.save( ouD );
+            idObjectManager.save( ouE );
+            return null;
+        } );
+
+        transactionTemplate.execute( status -> {
+            dbmsManager.clearSession();
+            resourceTableService.generateOrganisationUnitStructures();
+            return null;
+        } );
+
+        assertEquals( Integer.valueOf( 5 ), jdbcTemplate.queryForObject(
+            "select count(*) from _orgunitstructure", Integer.class ) );
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+            "select level, uidlevel1, uidlevel2, uidlevel3, namelevel3 from _orgunitstructure where organisationunituid = ?",
+            ouD.getUid() );
+
+        assertEquals( 3, ( (Number) row.get( "level" ) ).intValue() );
+        assertEquals( ouA.getUid(), row.get( "uidlevel1" ) );
+        assertEquals( ouB.getUid(), row.get( "uidlevel2" ) );
+        assertEquals( ouD.getUid(), row.get( "uidlevel3" ) );
+        assertEquals( ouD.getName(), row.get( "namelevel3" ) );
+
+        row = jdbcTemplate.queryForMap(
+            "select level, idlevel1, uidlevel2 from _orgunitstructure where organisationunituid = ?", ouA.getUid() );
+
+        assertEquals( 1, ( (Number) row.get( "level" ) ).intValue() );
+        assertEquals( ouA.getId(), ( (Number) row.get( "idlevel1" ) ).longValue() );
+        assertEquals( null, row.get( "uidlevel2" ) );
+    }
+}
@@ -0,0 +1,111 @@
+package org.hisp.dhis.resourcetable.jdbc;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class BinaryCopyWriterTest
+{
+    @Test
+    public void testWriteRows()
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        BinaryCopyWriter writer = new BinaryCopyWriter( out,
+            new int[] { Types.BIGINT, Types.INTEGER, Types.CHAR, Types.DATE } );
+
+        writer.writeRow( new Object[] { 42L, 3, "abc", LocalDate.of( 2000, 1, 3 ) } );
+        writer.writeRow( new Object[] { 7L, null, null, null } );
+        writer.finish();
+
+        ByteBuffer buffer = ByteBuffer.wrap( out.toByteArray() );
+
+        byte[] signature = new byte[11];
+        buffer.get( signature );
+
+        assertArrayEquals( new byte[] { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 }, signature );
+        assertEquals( 0, buffer.getInt() );
+        assertEquals( 0, buffer.getInt() );
+
+        assertEquals( 4, buffer.getShort() );
+        assertEquals( 8, buffer.getInt() );
+        assertEquals( 42L, buffer.getLong() );
+        assertEquals( 4, buffer.getInt() );
+        assertEquals( 3, buffer.getInt() );
+        assertEquals( 3, buffer.getInt() );
+
+        byte[] text = new byte[3];
+        buffer.get( text );
+
+        assertEquals( "abc", new String( text, StandardCharsets.UTF_8 ) );
+        assertEquals( 4, buffer.getInt() );
+        assertEquals( 2, buffer.getInt() );
+
+        assertEquals( 4, buffer.getShort() );
+        assertEquals( 8, buffer.getInt() );
+        assertEquals( 7L, buffer.getLong() );
+        assertEquals( -1, buffer.getInt() );
+        assertEquals( -1, buffer.getInt() );
+        assertEquals( -1, buffer.getInt() );
+
+        assertEquals( -1, buffer.getShort() );
+        assertFalse( buffer.hasRemaining() );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testWriteRowWithWrongColumnCount()
+        throws IOException
+    {
+        BinaryCopyWriter writer = new BinaryCopyWriter( new ByteArrayOutputStream(), new int[] { Types.BIGINT } );
+
+        writer.writeRow( new Object[] { 1L, 2L } );
+    }
+
+    @Test
+    public void testIsSupported()
+    {
+        assertTrue( BinaryCopyWriter.isSupported( Types.VARCHAR ) );
+        assertTrue( BinaryCopyWriter.isSupported( Types.DATE ) );
+        assertFalse( BinaryCopyWriter.isSupported( Types.NUMERIC ) );
+        assertFalse( BinaryCopyWriter.isSupported( Types.TIMESTAMP ) );
+    }
+}
@@ -30,9 +30,11 @@ package org.hisp.dhis.analytics;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manager for the analytics database tables.
@@ -95,13 +97,18 @@ public interface AnalyticsTableManager
     void createTable( AnalyticsTable table );
 
     /**
-     * Creates single indexes on the given columns of the analytics table with
-     * the given name.
+     * Creates single indexes on the given columns of the analytics tables, and
+     * analyzes each table as soon as the last of its indexes has been created.
+     * This lets tables which are fully indexed be analyzed while indexes are
+     * still being created for other tables.
      *
      * @param indexes the analytics indexes.
+     * @param pendingIndexes mapping of table name and number of indexes not yet
+     *        created for the table, shared between the asynchronous tasks.
      * @return a future representing the asynchronous task.
      */
-    Future<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes );
+    Future<?> createIndexesAndAnalyzeAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes,
+        Map<String, AtomicInteger> pendingIndexes );
 
     /**
      * Attempts to drop the analytics table with partitions and rename the temporary
@@ -183,6 +190,16 @@ public interface AnalyticsTableManager
      */
     Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions );
 
+    /**
+     * Creates rollup tables with values pre-aggregated to coarser periods and
+     * organisation unit levels for the given analytics table partitions. Does
+     * nothing for table types which do not support rollup tables.
+     *
+     * @param partitions the analytics table partitions.
+     * @return a future representing the asynchronous task.
+     */
+    Future<?> createRollupTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions );
+
     /**
      * Returns a list of non-dynamic {@link AnalyticsTableColumn}.
      *
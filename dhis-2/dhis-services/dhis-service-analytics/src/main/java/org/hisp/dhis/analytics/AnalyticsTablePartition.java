@@ -68,6 +68,13 @@ public class AnalyticsTablePartition
      */
     private boolean dataApproval;
 
+    /**
+     * The end date of the previous population of the "latest" partition. When
+     * set, rows of the existing partition which were not updated since this
+     * time are carried over, and only data updated since this time is read.
+     */
+    private Date watermark;
+
     public AnalyticsTablePartition( AnalyticsTable masterTable, Integer year, Date startDate, Date endDate, boolean dataApproval )
     {
         this.masterTable = masterTable;
@@ -120,6 +127,20 @@ public class AnalyticsTablePartition
         return Objects.equals( year, LATEST_PARTITION );
     }
 
+    public boolean hasWatermark()
+    {
+        return watermark != null;
+    }
+
+    /**
+     * Returns the date from which updated data must be read to populate this
+     * partition, which is the watermark if set, otherwise the start date.
+     */
+    public Date getUpdatedSinceDate()
+    {
+        return hasWatermark() ? watermark : startDate;
+    }
+
     public AnalyticsTable getMasterTable()
     {
         return masterTable;
@@ -145,6 +166,16 @@ public class AnalyticsTablePartition
         return dataApproval;
     }
 
+    public Date getWatermark()
+    {
+        return watermark;
+    }
+
+    public void setWatermark( Date watermark )
+    {
+        this.watermark = watermark;
+    }
+
     @Override
     public String toString()
     {
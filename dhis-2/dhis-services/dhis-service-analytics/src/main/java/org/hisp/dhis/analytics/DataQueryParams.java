@@ -435,6 +435,13 @@ public class DataQueryParams
      */
     protected transient boolean skipDataDimensionValidation = false;
 
+    /**
+     * Mapping of aggregation types to the data items they apply to. Set when
+     * queries which differ only by aggregation type are merged into a single
+     * query, in which case the aggregation type is applied per data item.
+     */
+    protected transient ListMap<AnalyticsAggregationType, DimensionalItemObject> aggregationTypeDataItems = new ListMap<>();
+
     // Constructors
     // -------------------------------------------------------------------------
 
@@ -523,6 +530,7 @@ public class DataQueryParams
         params.endDateRestriction = this.endDateRestriction;
         params.dataApprovalLevels = new HashMap<>( this.dataApprovalLevels );
         params.skipDataDimensionValidation = this.skipDataDimensionValidation;
+        params.aggregationTypeDataItems = new ListMap<>( this.aggregationTypeDataItems );
         params.userOrgUnitType = this.userOrgUnitType;
         return params;
     }
@@ -1361,6 +1369,15 @@ public class DataQueryParams
         return preAggregateMeasureCriteria != null && !preAggregateMeasureCriteria.isEmpty();
     }
 
+    /**
+     * Indicates whether this query is merged from queries with different
+     * aggregation types, where the aggregation type is applied per data item.
+     */
+    public boolean hasAggregationTypeDataItems()
+    {
+        return aggregationTypeDataItems != null && !aggregationTypeDataItems.isEmpty();
+    }
+
     /**
      * Indicates whether the given processing hint exists.
      */
@@ -1739,26 +1756,11 @@ public class DataQueryParams
 
         for ( String key : aggregatedDataMap.keySet() )
         {
-            // Remove DimensionalItemObject uid from key
-            List<String> keys = Lists.newArrayList( key.split( DIMENSION_SEP ) );
-            keys.remove( DX_INDEX );
-
-            final Collection<DimensionItemObjectValue> dimensionItemObjectValues = aggregatedDataMap.get( key );
+            // Remove DimensionalItemObject uid from key to generate final permutation key
 
-            // Generate final permutation key
-            final String permKey = StringUtils.join( keys, DIMENSION_SEP );
+            final String permKey = AnalyticsUtils.removeKeyComponent( key, DX_INDEX );
 
-            for ( DimensionItemObjectValue dimWithValue : dimensionItemObjectValues )
-            {
-                if ( !permutationMap.containsKey( permKey ) )
-                {
-                    permutationMap.put( permKey, Lists.newArrayList( dimWithValue ) );
-                }
-                else
-                {
-                    permutationMap.get( permKey ).add( dimWithValue );
-                }
-            }
+            permutationMap.computeIfAbsent( permKey, k -> new ArrayList<>() ).addAll( aggregatedDataMap.get( key ) );
         }
 
         return permutationMap;
@@ -1775,17 +1777,13 @@ public class DataQueryParams
 
         for ( String key : orgUnitCountMap.keySet() )
         {
-            List<String> keys = Lists.newArrayList( key.split( DIMENSION_SEP ) );
-
             // Org unit group always at last index, org unit potentially at first
 
-            int ougInx = keys.size() - 1;
-
-            String oug = keys.get( ougInx );
+            int ougInx = key.lastIndexOf( DIMENSION_SEP );
 
-            ListUtils.removeAll( keys, ougInx );
+            String oug = key.substring( ougInx + DIMENSION_SEP.length() );
 
-            String permKey = StringUtils.trimToNull( StringUtils.join( keys, DIMENSION_SEP ) );
+            String permKey = ougInx == -1 ? null : StringUtils.trimToNull( key.substring( 0, ougInx ) );
 
             Integer count = orgUnitCountMap.get( key ).intValue();
 
@@ -2119,6 +2117,11 @@ public class DataQueryParams
         return skipDataDimensionValidation;
     }
 
+    public ListMap<AnalyticsAggregationType, DimensionalItemObject> getAggregationTypeDataItems()
+    {
+        return aggregationTypeDataItems;
+    }
+
     public List<OrganisationUnitLevel> getOrgUnitLevels()
     {
         return orgUnitLevels;
@@ -2881,6 +2884,12 @@ public class DataQueryParams
             return this;
         }
 
+        public Builder withAggregationTypeDataItems( ListMap<AnalyticsAggregationType, DimensionalItemObject> aggregationTypeDataItems )
+        {
+            this.params.aggregationTypeDataItems = aggregationTypeDataItems;
+            return this;
+        }
+
         public Builder withOrgUnitLevels( List<OrganisationUnitLevel> orgUnitLevels )
         {
             this.params.orgUnitLevels = orgUnitLevels;
@@ -0,0 +1,66 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.common.QueryRuntimeException;
+
+/**
+ * Admission control for analytics queries. Queries which are estimated to scan
+ * a number of rows above a configurable threshold are considered expensive, and
+ * the number of expensive queries executing concurrently is limited. Expensive
+ * queries which cannot be admitted right away are deferred until capacity is
+ * available or a configurable wait time has passed, after which they are
+ * rejected.
+ */
+public interface QueryAdmissionController
+{
+    /**
+     * Admits a query with the given estimated number of rows scanned. Blocks
+     * until the query can be admitted. The returned permit must be closed
+     * when the query has completed.
+     *
+     * @param estimatedRowCount the estimated number of rows scanned.
+     * @return a {@link Permit}.
+     * @throws QueryRuntimeException if the query could not be admitted
+     *         within the max wait time.
+     */
+    Permit admit( long estimatedRowCount )
+        throws QueryRuntimeException;
+
+    /**
+     * Permit for an admitted query. Closing the permit releases the capacity
+     * held by the query.
+     */
+    interface Permit
+        extends AutoCloseable
+    {
+        @Override
+        void close();
+    }
+}
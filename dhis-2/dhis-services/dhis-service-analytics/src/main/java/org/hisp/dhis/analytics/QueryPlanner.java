@@ -64,6 +64,17 @@ public interface QueryPlanner
     DataQueryGroups planQuery( DataQueryParams params, QueryPlannerParams plannerParams  )
         throws IllegalQueryException;
 
+    /**
+     * Estimates the number of rows the given planned queries will scan, based
+     * on the database statistics of the table partitions referenced by each
+     * query and the number of data items relative to the number of distinct
+     * data items in each partition.
+     *
+     * @param queryGroups the {@link DataQueryGroups}.
+     * @return the estimated number of rows scanned.
+     */
+    long getEstimatedRowCount( DataQueryGroups queryGroups );
+
     /**
      * Sets the table name and partitions on the given query.
      *
@@ -82,4 +82,15 @@ public interface QueryValidator
      */
     void validateMaintenanceMode()
         throws MaintenanceModeException;
+
+    /**
+     * Validates that the estimated number of rows scanned by a query does not
+     * exceed the configured maximum.
+     *
+     * @param estimatedRowCount the estimated number of rows scanned.
+     * @throws IllegalQueryException if the estimated number of rows exceeds
+     *         the maximum.
+     */
+    void validateEstimatedRowCount( long estimatedRowCount )
+        throws IllegalQueryException;
 }
@@ -35,6 +35,10 @@ import static org.apache.commons.logging.LogFactory.getLog;
 import static org.hisp.dhis.commons.util.SystemUtils.isTestRun;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 import javax.annotation.PostConstruct;
@@ -65,6 +69,8 @@ public class AnalyticsCache
 
     private final AnalyticsCacheSettings analyticsCacheSettings;
 
+    private final ConcurrentMap<String, CompletableFuture<Grid>> inFlightFetches = new ConcurrentHashMap<>();
+
     private static final int MAX_CACHE_ENTRIES = 20000;
 
     private static final String CACHE_REGION = "analyticsResponse";
@@ -91,6 +97,10 @@ public class AnalyticsCache
      * fetched by the function provided. In this case, the fetched Grid will be
      * cached, so the next consumers can hit the cache only.
      * 
+     * Concurrent calls for the same key which miss the cache do not fetch the
+     * Grid themselves, but wait for the fetch already in progress and return
+     * its result, so that only one of them hits the database.
+     * 
      * The TTL of the cached object will be set accordingly to the cache settings
      * available at {@link org.hisp.dhis.analytics.cache.AnalyticsCacheSettings}.
      * 
@@ -100,20 +110,52 @@ public class AnalyticsCache
      */
     public Grid getOrFetch( final DataQueryParams params, final Function<DataQueryParams, Grid> function )
     {
-        final Optional<Grid> cachedGrid = get( params.getKey() );
+        final String key = params.getKey();
+
+        final Optional<Grid> cachedGrid = get( key );
 
         if ( cachedGrid.isPresent() )
         {
             return cachedGrid.get();
         }
-        else
+
+        final CompletableFuture<Grid> fetch = new CompletableFuture<>();
+
+        final CompletableFuture<Grid> inFlightFetch = inFlightFetches.putIfAbsent( key, fetch );
+
+        if ( inFlightFetch != null )
+        {
+            return await( inFlightFetch );
+        }
+
+        try
         {
-            final Grid grid = function.apply( params );
+            // Re-check as the Grid may have been cached after the first lookup
+
+            final Grid grid = get( key ).orElseGet( () -> {
+                final Grid fetchedGrid = function.apply( params );
+
+                put( params, fetchedGrid );
 
-            put( params, grid );
+                return fetchedGrid;
+            } );
+
+            fetch.complete( grid );
 
             return grid;
         }
+        catch ( Throwable ex )
+        {
+            // Complete on any failure so that waiting callers never block
+
+            fetch.completeExceptionally( ex );
+
+            throw ex;
+        }
+        finally
+        {
+            inFlightFetches.remove( key, fetch );
+        }
     }
 
     /**
@@ -162,6 +204,35 @@ public class AnalyticsCache
         log.info( "Analytics cache cleared" );
     }
 
+    /**
+     * Waits for the given in-flight fetch to complete and returns its Grid.
+     * Exceptions thrown by the fetch are rethrown as is.
+     * 
+     * @param fetch the in-flight fetch.
+     * @return the fetched Grid.
+     */
+    private Grid await( final CompletableFuture<Grid> fetch )
+    {
+        try
+        {
+            return fetch.join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            if ( ex.getCause() instanceof Error )
+            {
+                throw (Error) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
     public boolean isEnabled()
     {
         return analyticsCacheSettings.isCachingEnabled();
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2004-2019, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hisp.dhis.commons.util.SystemUtils.isTestRun;
+import static org.hisp.dhis.setting.SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE;
+import static org.hisp.dhis.setting.SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.PostConstruct;
+
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.event.AnalyticsTablesUpdatedEvent;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache for the partial results of the sub-queries which an analytics request
+ * is planned into. Entries are keyed on the SQL statement of the sub-query, so
+ * that requests which share data elements, periods and organisation units reuse
+ * each other's results even if the full responses differ.
+ * 
+ * Keys include the time of the last successful analytics table and "latest"
+ * partition updates, so that entries are never served once analytics tables
+ * have been swapped, including in a clustered environment.
+ */
+@Slf4j
+@Component
+public class AnalyticsSubQueryCache
+{
+    private Cache<Map<String, Object>> subQueryCache;
+
+    private final CacheProvider cacheProvider;
+
+    private final Environment environment;
+
+    private final AnalyticsCacheSettings analyticsCacheSettings;
+
+    private final SystemSettingManager systemSettingManager;
+
+    private static final int MAX_CACHE_ENTRIES = 50000;
+
+    private static final String CACHE_REGION = "analyticsSubQuery";
+
+    public AnalyticsSubQueryCache( final CacheProvider cacheProvider, final Environment environment,
+        final AnalyticsCacheSettings analyticsCacheSettings, final SystemSettingManager systemSettingManager )
+    {
+        checkNotNull( cacheProvider );
+        checkNotNull( environment );
+        checkNotNull( analyticsCacheSettings );
+        checkNotNull( systemSettingManager );
+        this.cacheProvider = cacheProvider;
+        this.environment = environment;
+        this.analyticsCacheSettings = analyticsCacheSettings;
+        this.systemSettingManager = systemSettingManager;
+    }
+
+    /**
+     * Returns a key for the sub-query with the given SQL statement.
+     * 
+     * @param tableType the analytics table type queried.
+     * @param sql the SQL statement of the sub-query.
+     * @param maxLimit the max number of records to return.
+     * @return the cache key.
+     */
+    public String getKey( final AnalyticsTableType tableType, final String sql, final int maxLimit )
+    {
+        return new QueryKey()
+            .add( "tableType", tableType )
+            .add( "maxLimit", maxLimit )
+            .add( "tablesUpdated", systemSettingManager.getSystemSetting( LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .add( "latestUpdated", systemSettingManager.getSystemSetting( LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) )
+            .add( "sql", sql ).build();
+    }
+
+    /**
+     * Returns a copy of the cached partial result for the given key, which can
+     * be modified by the caller.
+     * 
+     * @param key the cache key.
+     * @return the partial result, or empty if not cached.
+     */
+    public Optional<Map<String, Object>> get( final String key )
+    {
+        return subQueryCache.get( key ).map( HashMap::new );
+    }
+
+    /**
+     * Caches a copy of the given partial result. The TTL of the cached object
+     * will be set accordingly to the cache settings available at
+     * {@link org.hisp.dhis.analytics.cache.AnalyticsCacheSettings}.
+     * 
+     * @param params the DataQueryParams of the sub-query.
+     * @param key the cache key.
+     * @param values the partial result.
+     */
+    public void put( final DataQueryParams params, final String key, final Map<String, Object> values )
+    {
+        final long ttlInSeconds = analyticsCacheSettings.isProgressiveCachingEnabled() ?
+            analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() ) :
+            analyticsCacheSettings.fixedExpirationTimeOrDefault();
+
+        subQueryCache.put( key, new HashMap<>( values ), ttlInSeconds );
+    }
+
+    /**
+     * Clean the current cache by removing all existing entries.
+     */
+    public void invalidateAll()
+    {
+        subQueryCache.invalidateAll();
+        log.info( "Analytics sub-query cache cleared" );
+    }
+
+    @EventListener
+    public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
+    {
+        invalidateAll();
+    }
+
+    /**
+     * Clears the cache once analytics tables have been swapped, as entries of
+     * the previous tables can no longer be served.
+     */
+    @EventListener
+    public void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event )
+    {
+        invalidateAll();
+    }
+
+    public boolean isEnabled()
+    {
+        return analyticsCacheSettings.isCachingEnabled();
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        final long initialExpirationTime = analyticsCacheSettings.fixedExpirationTimeOrDefault();
+
+        final boolean nonTestEnv = !isTestRun( this.environment.getActiveProfiles() );
+
+        subQueryCache = cacheProvider.newCacheBuilder( String.class, Object.class ).forRegion( CACHE_REGION )
+            .expireAfterWrite( initialExpirationTime, SECONDS ).withMaximumSize( nonTestEnv ? MAX_CACHE_ENTRIES : 0 )
+            .build();
+
+        log.info( format( "Analytics sub-query cache is enabled with expiration time (in seconds): %d",
+            initialExpirationTime ) );
+    }
+}
@@ -0,0 +1,259 @@
+package org.hisp.dhis.analytics.data;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_EXPENSIVE_QUERY_MAX_WAIT;
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD;
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_MAX_CONCURRENT_EXPENSIVE_QUERIES;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hisp.dhis.analytics.QueryAdmissionController;
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.monitoring.metrics.MonitoredMeterBinder;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission controller which limits the number of expensive analytics queries
+ * executing concurrently on this instance. The row threshold, the max number of
+ * concurrent expensive queries and the max wait time are read from system
+ * settings on every admission, so that changes take effect immediately.
+ */
+@Slf4j
+@Component( "org.hisp.dhis.analytics.QueryAdmissionController" )
+public class DefaultQueryAdmissionController
+    implements QueryAdmissionController, MonitoredMeterBinder
+{
+    private static final Permit NO_OP_PERMIT = () -> {};
+
+    private final SystemSettingManager systemSettingManager;
+
+    private final Object lock = new Object();
+
+    private int running = 0;
+
+    private int waiting = 0;
+
+    private final AtomicLong cheapCount = new AtomicLong();
+
+    private final AtomicLong admittedCount = new AtomicLong();
+
+    private final AtomicLong deferredCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public DefaultQueryAdmissionController( SystemSettingManager systemSettingManager )
+    {
+        checkNotNull( systemSettingManager );
+
+        this.systemSettingManager = systemSettingManager;
+    }
+
+    // -------------------------------------------------------------------------
+    // QueryAdmissionController implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Permit admit( long estimatedRowCount )
+        throws QueryRuntimeException
+    {
+        int threshold = getIntSetting( ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD );
+
+        if ( threshold <= 0 || estimatedRowCount < threshold )
+        {
+            cheapCount.incrementAndGet();
+
+            return NO_OP_PERMIT;
+        }
+
+        int maxConcurrent = Math.max( 1, getIntSetting( ANALYTICS_MAX_CONCURRENT_EXPENSIVE_QUERIES ) );
+        long maxWaitMillis = TimeUnit.SECONDS
+            .toMillis( Math.max( 0, getIntSetting( ANALYTICS_EXPENSIVE_QUERY_MAX_WAIT ) ) );
+
+        synchronized ( lock )
+        {
+            if ( running >= maxConcurrent )
+            {
+                deferredCount.incrementAndGet();
+
+                log.debug( String.format( "Deferring expensive analytics query, estimated rows: %d, running: %d",
+                    estimatedRowCount, running ) );
+
+                long deadline = System.currentTimeMillis() + maxWaitMillis;
+
+                waiting++;
+
+                try
+                {
+                    while ( running >= maxConcurrent )
+                    {
+                        long remaining = deadline - System.currentTimeMillis();
+
+                        if ( remaining <= 0 )
+                        {
+                            throw reject( estimatedRowCount );
+                        }
+
+                        lock.wait( remaining );
+                    }
+                }
+                catch ( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+
+                    throw reject( estimatedRowCount );
+                }
+                finally
+                {
+                    waiting--;
+                }
+            }
+
+            running++;
+            admittedCount.incrementAndGet();
+        }
+
+        return new ExpensiveQueryPermit();
+    }
+
+    // -------------------------------------------------------------------------
+    // MonitoredMeterBinder implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public ConfigurationKey getMonitoringKey()
+    {
+        return ConfigurationKey.MONITORING_ANALYTICS_ENABLED;
+    }
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        FunctionCounter.builder( "analytics.queries.cheap", cheapCount, AtomicLong::get )
+            .description( "Number of analytics queries below the expensive query row threshold" )
+            .register( registry );
+
+        FunctionCounter.builder( "analytics.queries.expensive.admitted", admittedCount, AtomicLong::get )
+            .description( "Number of expensive analytics queries admitted" )
+            .register( registry );
+
+        FunctionCounter.builder( "analytics.queries.expensive.deferred", deferredCount, AtomicLong::get )
+            .description( "Number of expensive analytics queries which had to wait for admission" )
+            .register( registry );
+
+        FunctionCounter.builder( "analytics.queries.expensive.rejected", rejectedCount, AtomicLong::get )
+            .description( "Number of expensive analytics queries rejected after waiting for admission" )
+            .register( registry );
+
+        Gauge.builder( "analytics.queries.expensive.running", this, DefaultQueryAdmissionController::getRunning )
+            .description( "Number of expensive analytics queries currently running" )
+            .register( registry );
+
+        Gauge.builder( "analytics.queries.expensive.waiting", this, DefaultQueryAdmissionController::getWaiting )
+            .description( "Number of expensive analytics queries currently waiting for admission" )
+            .register( registry );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    int getRunning()
+    {
+        synchronized ( lock )
+        {
+            return running;
+        }
+    }
+
+    int getWaiting()
+    {
+        synchronized ( lock )
+        {
+            return waiting;
+        }
+    }
+
+    long getRejectedCount()
+    {
+        return rejectedCount.get();
+    }
+
+    private QueryRuntimeException reject( long estimatedRowCount )
+    {
+        rejectedCount.incrementAndGet();
+
+        log.warn( String.format( "Rejected expensive analytics query, estimated rows: %d", estimatedRowCount ) );
+
+        return new QueryRuntimeException( ErrorCode.E7135, null );
+    }
+
+    private int getIntSetting( SettingKey key )
+    {
+        Integer value = (Integer) systemSettingManager.getSystemSetting( key );
+
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Permit for an expensive query. Releases the held capacity exactly once
+     * and wakes up any waiting queries.
+     */
+    private class ExpensiveQueryPermit
+        implements Permit
+    {
+        private final AtomicBoolean released = new AtomicBoolean( false );
+
+        @Override
+        public void close()
+        {
+            if ( released.compareAndSet( false, true ) )
+            {
+                synchronized ( lock )
+                {
+                    running--;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -36,22 +36,29 @@ import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 import static org.hisp.dhis.analytics.util.AnalyticsUtils.throwIllegalQueryEx;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryGroups;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.QueryKey;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.util.PeriodOffsetUtils;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.analytics.table.RollupTableUtils;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DataDimensionItemType;
 import org.hisp.dhis.common.DimensionType;
@@ -64,6 +71,8 @@ import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.stereotype.Component;
@@ -85,13 +94,18 @@ public class DefaultQueryPlanner
 
     private final PartitionManager partitionManager;
 
-    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager )
+    private final SystemSettingManager systemSettingManager;
+
+    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager,
+        SystemSettingManager systemSettingManager )
     {
         checkNotNull( queryValidator );
         checkNotNull( partitionManager );
+        checkNotNull( systemSettingManager );
 
         this.queryValidator = queryValidator;
         this.partitionManager = partitionManager;
+        this.systemSettingManager = systemSettingManager;
     }
 
     // -------------------------------------------------------------------------
@@ -132,11 +146,26 @@ public class DefaultQueryPlanner
             currentQueries.forEach( query -> queries.addAll( grouper.apply( query ) ) );
         }
 
+        // ---------------------------------------------------------------------
+        // Route queries to rollup tables where possible
+        // ---------------------------------------------------------------------
+
+        queries.replaceAll( query -> withRollupTable( query, plannerParams ) );
+
+        // ---------------------------------------------------------------------
+        // Merge queries which differ only by aggregation type
+        // ---------------------------------------------------------------------
+
+        boolean mergeQueries = Boolean.TRUE.equals(
+            systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MERGE_AGGREGATION_TYPE_QUERIES ) );
+
+        List<DataQueryParams> mergedQueries = mergeQueries ? mergeByAggregationType( queries ) : queries;
+
         // ---------------------------------------------------------------------
         // Split queries until optimal number
         // ---------------------------------------------------------------------
 
-        DataQueryGroups queryGroups = DataQueryGroups.newBuilder().withQueries( queries ).build();
+        DataQueryGroups queryGroups = DataQueryGroups.newBuilder().withQueries( mergedQueries ).build();
 
         if ( queryGroups.isOptimal( plannerParams.getOptimalQueries() ) )
         {
@@ -158,6 +187,21 @@ public class DefaultQueryPlanner
         return queryGroups;
     }
 
+    @Override
+    public long getEstimatedRowCount( DataQueryGroups queryGroups )
+    {
+        long rowCount = 0;
+
+        for ( DataQueryParams query : queryGroups.getAllQueries() )
+        {
+            rowCount += getEstimatedRowCount( query );
+        }
+
+        log.debug( String.format( "Estimated rows scanned for %d queries: %d", queryGroups.getAllQueries().size(), rowCount ) );
+
+        return rowCount;
+    }
+
     @Override
     public DataQueryParams withTableNameAndPartitions( DataQueryParams params, QueryPlannerParams plannerParams )
     {
@@ -671,10 +715,242 @@ public class DefaultQueryPlanner
         return queries;
     }
 
+    // -------------------------------------------------------------------------
+    // Supportive merge methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Merges queries which differ only by aggregation type and data elements
+     * into a single query. The merged query has the data elements of all
+     * merged queries as data dimension items, and a mapping of aggregation
+     * types to data elements which allows for applying the aggregation type
+     * per data element through conditional aggregation. This avoids scanning
+     * the same partitions once per aggregation type. Queries which cannot be
+     * merged are returned unchanged.
+     *
+     * @param queries the list of {@link DataQueryParams}.
+     * @return a list of {@link DataQueryParams}.
+     */
+    private List<DataQueryParams> mergeByAggregationType( List<DataQueryParams> queries )
+    {
+        Map<String, List<DataQueryParams>> mergeGroups = new LinkedHashMap<>();
+
+        for ( DataQueryParams query : queries )
+        {
+            String key = isMergeableByAggregationType( query ) ?
+                getAggregationTypeMergeKey( query ) : String.valueOf( mergeGroups.size() );
+
+            mergeGroups.computeIfAbsent( key, k -> new ArrayList<>() ).add( query );
+        }
+
+        List<DataQueryParams> mergedQueries = new ArrayList<>();
+
+        for ( List<DataQueryParams> group : mergeGroups.values() )
+        {
+            if ( group.size() == 1 )
+            {
+                mergedQueries.add( group.get( 0 ) );
+                continue;
+            }
+
+            List<DimensionalItemObject> dataElements = new ArrayList<>();
+            ListMap<AnalyticsAggregationType, DimensionalItemObject> aggregationTypeDataItems = new ListMap<>();
+
+            for ( DataQueryParams query : group )
+            {
+                List<DimensionalItemObject> items = query.getDimension( DATA_X_DIM_ID ).getItems();
+
+                dataElements.addAll( items );
+                aggregationTypeDataItems.putValues( query.getAggregationType(), items );
+            }
+
+            DataQueryParams mergedQuery = DataQueryParams.newBuilder( group.get( 0 ) )
+                .withDataElements( dataElements )
+                .withAggregationTypeDataItems( aggregationTypeDataItems ).build();
+
+            mergedQueries.add( mergedQuery );
+        }
+
+        if ( mergedQueries.size() < queries.size() )
+        {
+            log.debug( String.format( "Merged on 'aggregation type': %d into %d", queries.size(), mergedQueries.size() ) );
+        }
+
+        return mergedQueries;
+    }
+
+    /**
+     * Indicates whether the given query can be merged with other queries with
+     * a different aggregation type. This requires the data dimension to consist
+     * of data elements only, and the aggregation type to be a plain aggregate
+     * function over numeric values which does not require sub queries.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return true if the query can be merged.
+     */
+    private boolean isMergeableByAggregationType( DataQueryParams params )
+    {
+        AnalyticsAggregationType aggType = params.getAggregationType();
+
+        DimensionalObject dataDim = params.getDimension( DATA_X_DIM_ID );
+
+        if ( aggType == null || dataDim == null || dataDim.getItems().isEmpty() ||
+            params.getDataElements().size() != dataDim.getItems().size() )
+        {
+            return false;
+        }
+
+        return !params.isDataType( DataType.TEXT ) && !aggType.isDisaggregation() &&
+            !aggType.isFirstOrLastOrLastInPeriodAggregationType() && !aggType.isAggregationType( AggregationType.NONE ) &&
+            !params.hasMeasureCriteria() && !params.hasPreAggregateMeasureCriteria() && !params.isDataApproval();
+    }
+
+    /**
+     * Returns a key for the given query which is equal for queries which differ
+     * only by aggregation type and data dimension items.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return a merge key.
+     */
+    private String getAggregationTypeMergeKey( DataQueryParams params )
+    {
+        DataQueryParams keyParams = DataQueryParams.newBuilder( params )
+            .removeDimension( DATA_X_DIM_ID )
+            .withAggregationType( null ).build();
+
+        return new QueryKey()
+            .add( "query", keyParams.getKey() )
+            .add( "tableName", params.getTableName() )
+            .add( "partitions", params.hasPartitions() ? new TreeSet<>( params.getPartitions().getPartitions() ) : null )
+            .add( "dataType", params.getDataType() )
+            .add( "periodType", params.getPeriodType() )
+            .add( "dataPeriodType", params.getDataPeriodType() )
+            .add( "skipPartitioning", params.isSkipPartitioning() )
+            .add( "timely", params.isTimely() )
+            .add( "orgUnitLevels", params.getOrgUnitLevels() )
+            .add( "restrictByOrgUnitOpeningClosedDate", params.isRestrictByOrgUnitOpeningClosedDate() )
+            .add( "restrictByCategoryOptionStartEndDate", params.isRestrictByCategoryOptionStartEndDate() )
+            .add( "startDateRestriction", params.getStartDateRestriction() )
+            .add( "endDateRestriction", params.getEndDateRestriction() )
+            .asPlainKey();
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Estimates the number of rows scanned by the given query. The estimated
+     * row count of each table is reduced by the ratio of data items in the
+     * query to distinct data items in the table, as queries are filtered on
+     * the indexed data item column.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return the estimated number of rows scanned.
+     */
+    private long getEstimatedRowCount( DataQueryParams params )
+    {
+        if ( params.getTableName() == null )
+        {
+            return 0;
+        }
+
+        List<String> tables = !params.isSkipPartitioning() && params.hasPartitions() ?
+            params.getPartitions().getPartitions().stream()
+                .map( partition -> PartitionUtils.getPartitionName( params.getTableName(), partition ) )
+                .collect( Collectors.toList() ) :
+            Lists.newArrayList( params.getTableName() );
+
+        int dataItems = params.getDimensionOrFilterItems( DATA_X_DIM_ID ).size();
+
+        long rowCount = 0;
+
+        for ( String table : tables )
+        {
+            long tableRowCount = partitionManager.getEstimatedRowCount( table );
+            long distinctDataItems = partitionManager.getEstimatedDistinctCount( table, DATA_X_DIM_ID );
+
+            if ( dataItems > 0 && distinctDataItems > dataItems )
+            {
+                tableRowCount = tableRowCount * dataItems / distinctDataItems;
+            }
+
+            rowCount += tableRowCount;
+        }
+
+        return rowCount;
+    }
+
+    /**
+     * Returns a copy of the given query with the table name set to the rollup
+     * table name if the query can be answered from rollup tables, otherwise the
+     * query itself. A query can be answered from rollup tables if it is a plain
+     * numeric sum query, all dimensions and filters refer to columns which are
+     * retained in rollup tables, and a rollup table exists for each partition.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param plannerParams the {@link QueryPlannerParams}.
+     * @return a {@link DataQueryParams}.
+     */
+    private DataQueryParams withRollupTable( DataQueryParams params, QueryPlannerParams plannerParams )
+    {
+        Integer maxOrgUnitLevel = (Integer) systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_ROLLUP_MAX_ORG_UNIT_LEVEL );
+
+        if ( maxOrgUnitLevel == null || maxOrgUnitLevel <= 0 || !isRollupQuery( params, plannerParams, maxOrgUnitLevel ) )
+        {
+            return params;
+        }
+
+        String rollupTableName = RollupTableUtils.getRollupTableName( plannerParams.getTableName() );
+
+        boolean rollupTablesExist = params.getPartitions().getPartitions().stream()
+            .allMatch( partition -> partitionManager.analyticsTableExists( PartitionUtils.getPartitionName( rollupTableName, partition ) ) );
+
+        if ( !rollupTablesExist )
+        {
+            return params;
+        }
+
+        log.debug( String.format( "Routing query to rollup table: '%s'", rollupTableName ) );
+
+        return DataQueryParams.newBuilder( params )
+            .withTableName( rollupTableName )
+            .build();
+    }
+
+    /**
+     * Indicates whether the given query qualifies for being answered from
+     * rollup tables built for the given maximum organisation unit level.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param plannerParams the {@link QueryPlannerParams}.
+     * @param maxOrgUnitLevel the maximum organisation unit level.
+     * @return true if the query qualifies for rollup tables.
+     */
+    private boolean isRollupQuery( DataQueryParams params, QueryPlannerParams plannerParams, int maxOrgUnitLevel )
+    {
+        AnalyticsAggregationType aggType = params.getAggregationType();
+
+        boolean sumAggregation = aggType != null && aggType.isAggregationType( AggregationType.SUM ) &&
+            aggType.isPeriodAggregationType( AggregationType.SUM ) && aggType.isNumericDataType();
+
+        if ( AnalyticsTableType.DATA_VALUE != plannerParams.getTableType() || !sumAggregation ||
+            !params.isDataType( DataType.NUMERIC ) || params.isDisaggregation() ||
+            params.isSkipPartitioning() || !params.hasPartitions() ||
+            params.getPartitions().getPartitions().contains( AnalyticsTablePartition.LATEST_PARTITION ) ||
+            params.hasStartEndDate() || params.hasStartEndDateRestriction() || params.isDataApproval() ||
+            params.hasMeasureCriteria() || params.hasPreAggregateMeasureCriteria() || params.isTimely() )
+        {
+            return false;
+        }
+
+        return params.getDimensions().stream()
+            .filter( dim -> !dim.isFixed() )
+            .allMatch( dim -> RollupTableUtils.isRollupColumn( dim.getDimensionName(), maxOrgUnitLevel ) ) &&
+            params.getFilters().stream()
+            .allMatch( filter -> RollupTableUtils.isRollupColumn( filter.getDimensionName(), maxOrgUnitLevel ) );
+    }
+
     /**
      * Log query split operation.
      *
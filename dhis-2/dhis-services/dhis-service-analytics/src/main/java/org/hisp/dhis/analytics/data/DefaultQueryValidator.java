@@ -253,4 +253,22 @@ public class DefaultQueryValidator
         }
     }
 
+    @Override
+    public void validateEstimatedRowCount( long estimatedRowCount )
+        throws IllegalQueryException
+    {
+        Integer maxRowCount = (Integer) systemSettingManager
+            .getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_ROW_ESTIMATE );
+
+        if ( maxRowCount != null && maxRowCount > 0 && estimatedRowCount > maxRowCount )
+        {
+            ErrorMessage error = new ErrorMessage( ErrorCode.E7134, estimatedRowCount, maxRowCount );
+
+            log.warn( String.format( "Analytics validation failed, code: '%s', message: '%s'",
+                error.getErrorCode(), error.getMessage() ) );
+
+            throw new IllegalQueryException( error );
+        }
+    }
+
 }
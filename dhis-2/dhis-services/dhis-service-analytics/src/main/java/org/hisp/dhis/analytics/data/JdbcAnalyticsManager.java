@@ -45,6 +45,7 @@ import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.ANALYTICS_TBL_ALIAS
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quoteAlias;
 import static org.hisp.dhis.analytics.util.AnalyticsUtils.throwIllegalQueryEx;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
@@ -57,6 +58,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
@@ -69,7 +71,9 @@ import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.MeasureFilter;
 import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.cache.AnalyticsSubQueryCache;
 import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.analytics.table.RollupTableUtils;
 import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.common.DimensionType;
@@ -84,7 +88,6 @@ import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
-import org.hisp.dhis.period.PeriodType;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
@@ -127,13 +130,18 @@ public class JdbcAnalyticsManager
 
     private final JdbcTemplate jdbcTemplate;
 
-    public JdbcAnalyticsManager( QueryPlanner queryPlanner, @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
+    private final AnalyticsSubQueryCache subQueryCache;
+
+    public JdbcAnalyticsManager( QueryPlanner queryPlanner, @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate,
+        AnalyticsSubQueryCache subQueryCache )
     {
         checkNotNull( queryPlanner );
         checkNotNull( jdbcTemplate );
+        checkNotNull( subQueryCache );
 
         this.queryPlanner = queryPlanner;
         this.jdbcTemplate = jdbcTemplate;
+        this.subQueryCache = subQueryCache;
     }
 
     // -------------------------------------------------------------------------
@@ -179,10 +187,21 @@ public class JdbcAnalyticsManager
 
             try
             {
-                map = getKeyValueMap( params, sql, maxLimit );
+                map = getCachedKeyValueMap( params, tableType, sql, maxLimit );
             }
             catch ( BadSqlGrammarException ex )
             {
+                if ( RollupTableUtils.isRollupTableName( params.getTableName() ) )
+                {
+                    log.warn( String.format( "Rollup table not available, querying analytics table: '%s'", ex.getMessage() ) );
+
+                    DataQueryParams analyticsTableParams = DataQueryParams.newBuilder( params )
+                        .withTableName( RollupTableUtils.getBaseTableName( params.getTableName() ) )
+                        .build();
+
+                    return getAggregatedDataValues( analyticsTableParams, tableType, maxLimit );
+                }
+
                 log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
                 return new AsyncResult<>( Maps.newHashMap() );
             }
@@ -216,17 +235,20 @@ public class JdbcAnalyticsManager
                 return; // Period is filter, nothing to replace
             }
 
+            Map<String, List<DimensionalItemObject>> isoPeriodAggregationPeriodMap = new HashMap<>();
+
+            dataPeriodAggregationPeriodMap.forEach( ( dataPeriod, periods ) ->
+                isoPeriodAggregationPeriodMap.put( ((Period) dataPeriod).getIsoDate(), periods ) );
+
             Set<String> keys = new HashSet<>( dataValueMap.keySet() );
 
             for ( String key : keys )
             {
-                String[] keyArray = key.split( DIMENSION_SEP );
-
-                String periodKey = keyArray[periodIndex];
+                String periodKey = AnalyticsUtils.getKeyComponent( key, periodIndex );
 
                 Assert.notNull( periodKey, String.format( "Period key cannot be null, key: '%s'", key ) );
 
-                List<DimensionalItemObject> periods = dataPeriodAggregationPeriodMap.get( PeriodType.getPeriodFromIsoString( periodKey ) );
+                List<DimensionalItemObject> periods = isoPeriodAggregationPeriodMap.get( periodKey );
 
                 Assert.notNull( periods, String.format( "Period list cannot be null, key: '%s', map: '%s'", key, dataPeriodAggregationPeriodMap.toString() ) );
 
@@ -234,11 +256,7 @@ public class JdbcAnalyticsManager
 
                 for ( DimensionalItemObject period : periods )
                 {
-                    String[] keyCopy = keyArray.clone();
-
-                    keyCopy[periodIndex] = ((Period) period).getIsoDate();
-
-                    String replacementKey = TextUtils.toString( keyCopy, DIMENSION_SEP );
+                    String replacementKey = AnalyticsUtils.replaceKeyComponent( key, periodIndex, ((Period) period).getIsoDate() );
 
                     if ( dataValueMap.containsKey( replacementKey )
                         && ((Period) period).getPeriodType().spansMultipleCalendarYears() )
@@ -247,11 +265,11 @@ public class JdbcAnalyticsManager
                             (Double) dataValueMap.get( replacementKey ), (Double) value,
                                 AnalyticsUtils.getBaseMonth( ((Period) period).getPeriodType() ) );
 
-                        dataValueMap.put( TextUtils.toString( keyCopy, DIMENSION_SEP ), weightedAverage );
+                        dataValueMap.put( replacementKey, weightedAverage );
                     }
                     else
                     {
-                        dataValueMap.put( TextUtils.toString( keyCopy, DIMENSION_SEP ), value );
+                        dataValueMap.put( replacementKey, value );
                     }
                 }
 
@@ -286,13 +304,38 @@ public class JdbcAnalyticsManager
     }
 
     /**
-     * Returns a aggregate clause for the numeric value column.
+     * Returns a aggregate clause for the numeric value column. If the query
+     * is merged from queries with different aggregation types, returns a
+     * conditional aggregate clause which applies the aggregation type of each
+     * data item based on the data item column.
      */
     private String getNumericValueColumn( DataQueryParams params )
     {
-        String sql;
+        if ( !params.hasAggregationTypeDataItems() )
+        {
+            return getNumericValueColumn( params, params.getAggregationType() );
+        }
+
+        String sql = "case ";
+
+        for ( Map.Entry<AnalyticsAggregationType, List<DimensionalItemObject>> entry :
+            params.getAggregationTypeDataItems().entrySet() )
+        {
+            sql += "when " + quoteAlias( DATA_X_DIM_ID ) + " in (" +
+                getQuotedCommaDelimitedString( getUids( entry.getValue() ) ) + ") " +
+                "then " + getNumericValueColumn( params, entry.getKey() ) + " ";
+        }
 
-        AnalyticsAggregationType aggType = params.getAggregationType();
+        return sql + "end";
+    }
+
+    /**
+     * Returns a aggregate clause for the numeric value column for the given
+     * aggregation type.
+     */
+    private String getNumericValueColumn( DataQueryParams params, AnalyticsAggregationType aggType )
+    {
+        String sql;
 
         if ( aggType.isAggregationType( SUM ) && aggType.isPeriodAggregationType( AVERAGE ) && aggType.isNumericDataType() )
         {
@@ -704,6 +747,41 @@ public class JdbcAnalyticsManager
         return map;
     }
 
+    /**
+     * Retrieves data from the database based on the given SQL, or from the
+     * sub-query cache if enabled and a result for the SQL is cached.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param sql the SQL statement.
+     * @param maxLimit the max number of records to return.
+     * @return a map of dimension keys and values.
+     */
+    private Map<String, Object> getCachedKeyValueMap( DataQueryParams params, AnalyticsTableType tableType, String sql, int maxLimit )
+    {
+        if ( !subQueryCache.isEnabled() )
+        {
+            return getKeyValueMap( params, sql, maxLimit );
+        }
+
+        String key = subQueryCache.getKey( tableType, sql, maxLimit );
+
+        Optional<Map<String, Object>> cachedMap = subQueryCache.get( key );
+
+        if ( cachedMap.isPresent() )
+        {
+            log.debug( String.format( "Analytics sub-query cache hit for key: '%s'", key ) );
+
+            return cachedMap.get();
+        }
+
+        Map<String, Object> map = getKeyValueMap( params, sql, maxLimit );
+
+        subQueryCache.put( params, key, map );
+
+        return map;
+    }
+
     /**
      * Generates a comma-delimited string based on the dimension names of the
      * given dimensions where each dimension name is quoted.
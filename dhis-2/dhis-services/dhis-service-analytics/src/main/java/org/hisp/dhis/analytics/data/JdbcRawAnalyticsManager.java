@@ -35,6 +35,8 @@ import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -50,8 +52,9 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
@@ -70,6 +73,8 @@ public class JdbcRawAnalyticsManager
 {
     private static final String DIM_NAME_OU = "ou.path";
 
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
     private final JdbcTemplate jdbcTemplate;
 
     public JdbcRawAnalyticsManager( @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
@@ -101,19 +106,18 @@ public class JdbcRawAnalyticsManager
 
         log.debug( "Get raw data SQL: " + sql );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
-
-        while ( rowSet.next() )
-        {
+        RowCallbackHandler handler = rs -> {
             grid.addRow();
 
             for ( DimensionalObject dim : dimensions )
             {
-                grid.addValue( rowSet.getString( dim.getDimensionName() ) );
+                grid.addValue( rs.getString( dim.getDimensionName() ) );
             }
 
-            grid.addValue( rowSet.getDouble( "value" ) );
-        }
+            grid.addValue( rs.getDouble( "value" ) );
+        };
+
+        queryWithCursor( sql, handler );
 
         return grid;
     }
@@ -122,6 +126,52 @@ public class JdbcRawAnalyticsManager
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Runs the given query and hands each row to the given handler as it is
+     * fetched. The PostgreSQL driver only fetches rows in batches through a
+     * cursor when auto-commit is off and a fetch size is set, otherwise it
+     * reads the full result set into memory. Auto-commit is hence turned off
+     * for the query and restored afterwards.
+     *
+     * @param sql the SQL query.
+     * @param handler the row handler.
+     */
+    private void queryWithCursor( String sql, RowCallbackHandler handler )
+    {
+        final int fetchSize = jdbcTemplate.getFetchSize() > 0 ? jdbcTemplate.getFetchSize() : DEFAULT_FETCH_SIZE;
+
+        jdbcTemplate.execute( (ConnectionCallback<Void>) connection -> {
+            final boolean autoCommit = connection.getAutoCommit();
+
+            if ( autoCommit )
+            {
+                connection.setAutoCommit( false );
+            }
+
+            try ( Statement statement = connection.createStatement() )
+            {
+                statement.setFetchSize( fetchSize );
+
+                try ( ResultSet rs = statement.executeQuery( sql ) )
+                {
+                    while ( rs.next() )
+                    {
+                        handler.processRow( rs );
+                    }
+                }
+            }
+            finally
+            {
+                if ( autoCommit )
+                {
+                    connection.setAutoCommit( true );
+                }
+            }
+
+            return null;
+        } );
+    }
+
     /**
      * Returns a SQL select statement.
      *
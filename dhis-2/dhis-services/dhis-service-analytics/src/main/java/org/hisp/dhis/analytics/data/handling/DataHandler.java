@@ -98,7 +98,9 @@ import static org.hisp.dhis.commons.util.SystemUtils.getCpuCores;
 import static org.hisp.dhis.dataelement.DataElementOperand.TotalType.values;
 import static org.hisp.dhis.period.DailyPeriodType.NAME;
 import static org.hisp.dhis.period.PeriodType.getPeriodTypeFromIsoString;
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD;
 import static org.hisp.dhis.setting.SettingKey.ANALYTICS_MAX_LIMIT;
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_MAX_QUERY_ROW_ESTIMATE;
 import static org.hisp.dhis.setting.SettingKey.DATABASE_SERVER_CPUS;
 import static org.hisp.dhis.system.grid.GridUtils.getGridIndexByDimensionItem;
 import static org.hisp.dhis.system.util.MathUtils.getRounded;
@@ -124,6 +126,7 @@ import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryGroups;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DimensionItem;
+import org.hisp.dhis.analytics.QueryAdmissionController;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
@@ -188,12 +191,15 @@ public class DataHandler
 
     private final OrganisationUnitService organisationUnitService;
 
+    private final QueryAdmissionController queryAdmissionController;
+
     private DataAggregator dataAggregator;
 
     public DataHandler( EventAnalyticsService eventAnalyticsService, RawAnalyticsManager rawAnalyticsManager,
         ConstantService constantService, ExpressionResolver resolver, ExpressionService expressionService,
         QueryPlanner queryPlanner, QueryValidator queryValidator, SystemSettingManager systemSettingManager,
-        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService )
+        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService,
+        QueryAdmissionController queryAdmissionController )
     {
         checkNotNull( eventAnalyticsService );
         checkNotNull( rawAnalyticsManager );
@@ -205,6 +211,7 @@ public class DataHandler
         checkNotNull( systemSettingManager );
         checkNotNull( analyticsManager );
         checkNotNull( organisationUnitService );
+        checkNotNull( queryAdmissionController );
 
         this.eventAnalyticsService = eventAnalyticsService;
         this.rawAnalyticsManager = rawAnalyticsManager;
@@ -216,6 +223,7 @@ public class DataHandler
         this.systemSettingManager = systemSettingManager;
         this.analyticsManager = analyticsManager;
         this.organisationUnitService = organisationUnitService;
+        this.queryAdmissionController = queryAdmissionController;
     }
 
     /**
@@ -1149,11 +1157,18 @@ public class DataHandler
         timer.getSplitTime(
             "Planned analytics query, got: " + queryGroups.getLargestGroupSize() + " for optimal: " + optimalQueries );
 
+        long estimatedRowCount = isQueryCostControlEnabled() ? queryPlanner.getEstimatedRowCount( queryGroups ) : 0;
+
+        queryValidator.validateEstimatedRowCount( estimatedRowCount );
+
         Map<String, Object> map = new HashMap<>();
 
-        for ( List<DataQueryParams> queries : queryGroups.getSequentialQueries() )
+        try ( QueryAdmissionController.Permit permit = queryAdmissionController.admit( estimatedRowCount ) )
         {
-            executeQueries( tableType, maxLimit, map, queries );
+            for ( List<DataQueryParams> queries : queryGroups.getSequentialQueries() )
+            {
+                executeQueries( tableType, maxLimit, map, queries );
+            }
         }
 
         timer.getTime( "Got analytics values" );
@@ -1213,6 +1228,18 @@ public class DataHandler
         return (cores == null || cores == 0) ? getCpuCores() : cores;
     }
 
+    /**
+     * Indicates whether queries are validated or admitted based on their
+     * estimated row count, so that the estimate is only computed if needed.
+     */
+    private boolean isQueryCostControlEnabled()
+    {
+        Integer maxRowEstimate = (Integer) systemSettingManager.getSystemSetting( ANALYTICS_MAX_QUERY_ROW_ESTIMATE );
+        Integer expensiveThreshold = (Integer) systemSettingManager.getSystemSetting( ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD );
+
+        return (maxRowEstimate != null && maxRowEstimate > 0) || (expensiveThreshold != null && expensiveThreshold > 0);
+    }
+
     /**
      * Generates aggregated values for the given query. Creates a mapping between a
      * dimension key and the aggregated value. The dimension key is a concatenation
@@ -32,11 +32,15 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.common.event.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
@@ -55,6 +59,23 @@ public class JdbcPartitionManager
 {
     private Map<AnalyticsTableType, Set<String>> analyticsPartitions = new HashMap<>();
 
+    /**
+     * Time after which a missing analytics table is looked up again, so that
+     * tables created on other instances are found.
+     */
+    private static final long MISSING_TABLE_TTL_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+
+    private Map<String, Long> missingTables = new ConcurrentHashMap<>();
+
+    /**
+     * Time after which cached table statistics are read again, so that
+     * statistics stay current on instances which did not generate the
+     * analytics tables.
+     */
+    private static final long TABLE_STATISTICS_TTL_MILLIS = TimeUnit.MINUTES.toMillis( 10 );
+
+    private Map<String, TableStatistic> tableStatistics = new ConcurrentHashMap<>();
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -95,6 +116,32 @@ public class JdbcPartitionManager
         return count > 0;
     }
 
+    @Override
+    public boolean analyticsTableExists( String table )
+    {
+        final long now = System.currentTimeMillis();
+
+        Long checked = missingTables.get( table );
+
+        if ( checked != null && now - checked < MISSING_TABLE_TTL_MILLIS )
+        {
+            return false;
+        }
+
+        boolean exists = tableExists( table );
+
+        if ( exists )
+        {
+            missingTables.remove( table );
+        }
+        else
+        {
+            missingTables.put( table, now );
+        }
+
+        return exists;
+    }
+
     @Override
     public void filterNonExistingPartitions( Partitions partitions, String tableName )
     {
@@ -105,17 +152,84 @@ public class JdbcPartitionManager
         partitions.setPartitions( partitionSet );
     }
 
+    @Override
+    public long getEstimatedRowCount( String table )
+    {
+        return getTableStatistic( table, () -> {
+            final String sql =
+                "select coalesce(max(reltuples), 0) from pg_class " +
+                "where relname = '" + table + "' and relkind = 'r'";
+
+            log.debug( "Estimated row count SQL: " + sql );
+
+            return Math.max( 0L, jdbcTemplate.queryForObject( sql, Double.class ).longValue() );
+        } );
+    }
+
+    @Override
+    public long getEstimatedDistinctCount( String table, String column )
+    {
+        final long rowCount = getEstimatedRowCount( table );
+
+        return getTableStatistic( table + "." + column, () -> {
+            final String sql =
+                "select coalesce(max(n_distinct), 0) from pg_stats " +
+                "where tablename = '" + table + "' and attname = '" + column + "'";
+
+            log.debug( "Estimated distinct count SQL: " + sql );
+
+            double distinct = jdbcTemplate.queryForObject( sql, Double.class );
+
+            // Negative values are the number of distinct values divided by the number of rows
+
+            return distinct < 0 ? (long) ( -distinct * rowCount ) : (long) distinct;
+        } );
+    }
+
     private boolean partitionExists( String tableName, Integer partition )
     {
         return tableExists( PartitionUtils.getPartitionName( tableName, partition ) );
 
     }
 
+    private long getTableStatistic( String key, Supplier<Long> loader )
+    {
+        final long now = System.currentTimeMillis();
+
+        return tableStatistics.compute( key, ( k, statistic ) ->
+            statistic != null && now - statistic.loaded < TABLE_STATISTICS_TTL_MILLIS ?
+                statistic : new TableStatistic( loader.get(), now ) ).value;
+    }
+
+    @Override
+    @EventListener
+    public void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event )
+    {
+        missingTables = new ConcurrentHashMap<>();
+        tableStatistics = new ConcurrentHashMap<>();
+        log.info( "Analytics table existence and statistics cleared" );
+    }
+
     @Override
     @EventListener
     public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
     {
         analyticsPartitions = new HashMap<>();
+        missingTables = new ConcurrentHashMap<>();
+        tableStatistics = new ConcurrentHashMap<>();
         log.info( "Analytics partition cache cleared" );
     }
+
+    private static class TableStatistic
+    {
+        private final long value;
+
+        private final long loaded;
+
+        private TableStatistic( long value, long loaded )
+        {
+            this.value = value;
+            this.loaded = loaded;
+        }
+    }
 }
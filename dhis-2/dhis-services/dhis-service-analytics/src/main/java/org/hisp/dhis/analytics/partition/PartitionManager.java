@@ -32,6 +32,7 @@ import java.util.Set;
 
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.common.event.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
 
 /**
@@ -55,6 +56,16 @@ public interface PartitionManager
      */
     boolean tableExists( String table );
 
+    /**
+     * Indicates whether the given analytics table exists. Only a missing table
+     * is cached, for a short time or until analytics tables are updated or
+     * application caches are cleared, so that a table which is dropped is
+     * never reported as existing.
+     *
+     * @param table the analytics table name.
+     */
+    boolean analyticsTableExists( String table );
+
     /**
      * Filters the set of integers for which a database partition table
      * exists.
@@ -64,10 +75,37 @@ public interface PartitionManager
      */
     void filterNonExistingPartitions( Partitions partitions, String tableName );
 
+    /**
+     * Returns the estimated number of rows in the given table, based on the
+     * statistics collected by the database. Returns 0 if the table does not
+     * exist or has not been analyzed.
+     *
+     * @param table the table name.
+     */
+    long getEstimatedRowCount( String table );
+
+    /**
+     * Returns the estimated number of distinct values of the given column in
+     * the given table, based on the statistics collected by the database.
+     * Returns 0 if no statistics exist for the column.
+     *
+     * @param table the table name.
+     * @param column the column name.
+     */
+    long getEstimatedDistinctCount( String table, String column );
+
     /**
      * Event handler for {@link ApplicationCacheClearedEvent}.
      *
      * @param event the {@link ApplicationCacheClearedEvent}.
      */
     void handleApplicationCachesCleared( ApplicationCacheClearedEvent event );
+
+    /**
+     * Event handler for {@link AnalyticsTablesUpdatedEvent}. Clears the
+     * cached table existence and table statistics.
+     *
+     * @param event the {@link AnalyticsTablesUpdatedEvent}.
+     */
+    void handleAnalyticsTablesUpdated( AnalyticsTablesUpdatedEvent event );
 }
@@ -31,6 +31,7 @@ package org.hisp.dhis.analytics.table;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Preconditions;
@@ -45,6 +46,7 @@ import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.commons.collection.ListUtils;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.timer.SystemTimer;
 import org.hisp.dhis.commons.timer.Timer;
 import org.hisp.dhis.commons.util.TextUtils;
@@ -59,6 +61,7 @@ import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.database.DatabaseInfo;
 import org.hisp.dhis.util.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
@@ -189,7 +192,8 @@ public abstract class AbstractJdbcTableManager
 
     @Override
     @Async
-    public Future<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes )
+    public Future<?> createIndexesAndAnalyzeAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes,
+        Map<String, AtomicInteger> pendingIndexes )
     {
         taskLoop : while ( true )
         {
@@ -200,22 +204,25 @@ public abstract class AbstractJdbcTableManager
                 break taskLoop;
             }
 
-            final String indexName = inx.getIndexName( getAnalyticsTableType() );
-            final String indexType = inx.hasType() ? " using " + inx.getType() : "";
-            final String indexColumns = StringUtils.join( inx.getColumns(), "," );
+            createIndex( inx );
 
-            final String sql = "create index " + indexName + " on " + inx.getTable() + indexType + " (" + indexColumns + ")";
-
-            log.debug( "Create index: " + indexName + " SQL: " + sql );
-
-            jdbcTemplate.execute( sql );
+            if ( pendingIndexes.get( inx.getTable() ).decrementAndGet() == 0 )
+            {
+                log.debug( "Created all indexes, analyzing table: " + inx.getTable() );
 
-            log.debug( "Created index: " + indexName );
+                analyzeTable( inx.getTable() );
+            }
         }
 
         return null;
     }
 
+    @Override
+    public Future<?> createRollupTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
     @Override
     public void swapTable( AnalyticsTableUpdateParams params, AnalyticsTable table )
     {
@@ -276,7 +283,17 @@ public abstract class AbstractJdbcTableManager
                 break taskLoop;
             }
 
+            if ( partition.isLatestPartition() )
+            {
+                carryOverLatestData( partition );
+            }
+
             populateTable( params, partition );
+
+            if ( partition.isLatestPartition() )
+            {
+                setWatermark( partition.getTempTableName(), partition.getEndDate() );
+            }
         }
 
         return null;
@@ -321,6 +338,21 @@ public abstract class AbstractJdbcTableManager
      */
     protected abstract boolean hasUpdatedLatestData( Date startDate, Date endDate );
 
+    /**
+     * Returns a SQL condition matching rows of the given analytics table, aliased
+     * as "ax", which represent data updated between the given start and end date.
+     * Override in order to support incremental population of the "latest" partition.
+     *
+     * @param table the {@link AnalyticsTable}.
+     * @param startDate the start date, inclusive.
+     * @param endDate the end date, exclusive.
+     * @return a SQL condition, or null if not supported.
+     */
+    protected String getUpdatedDataClause( AnalyticsTable table, Date startDate, Date endDate )
+    {
+        return null;
+    }
+
     // -------------------------------------------------------------------------
     // Protected supportive methods
     // -------------------------------------------------------------------------
@@ -370,6 +402,26 @@ public abstract class AbstractJdbcTableManager
         }
     }
 
+    /**
+     * Creates the given index.
+     *
+     * @param inx the {@link AnalyticsIndex}.
+     */
+    protected void createIndex( AnalyticsIndex inx )
+    {
+        final String indexName = inx.getIndexName( getAnalyticsTableType() );
+        final String indexType = inx.hasType() ? " using " + inx.getType() : "";
+        final String indexColumns = StringUtils.join( inx.getColumns(), "," );
+
+        final String sql = "create index " + indexName + " on " + inx.getTable() + indexType + " (" + indexColumns + ")";
+
+        log.debug( "Create index: " + indexName + " SQL: " + sql );
+
+        jdbcTemplate.execute( sql );
+
+        log.debug( "Created index: " + indexName );
+    }
+
     /**
      * Drops and creates the given analytics table.
      *
@@ -610,6 +662,97 @@ public abstract class AbstractJdbcTableManager
     // Private supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Copies the rows of the existing "latest" partition which represent data not
+     * updated since the watermark of that partition into the temporary partition,
+     * and sets the watermark on the given partition so that only data updated since
+     * the watermark is populated. Leaves the watermark unset, meaning the partition
+     * is fully populated, if no existing partition with a watermark from after the
+     * last full analytics table update exists, or if the rows cannot be copied due
+     * to changed table columns.
+     *
+     * @param partition the "latest" {@link AnalyticsTablePartition}.
+     */
+    private void carryOverLatestData( AnalyticsTablePartition partition )
+    {
+        final String tableName = partition.getTableName();
+
+        if ( !partitionManager.tableExists( tableName ) )
+        {
+            return;
+        }
+
+        final Date watermark = getWatermark( tableName );
+
+        if ( watermark == null || watermark.before( partition.getStartDate() ) )
+        {
+            return;
+        }
+
+        final String updatedClause = getUpdatedDataClause( partition.getMasterTable(), watermark, partition.getEndDate() );
+
+        if ( updatedClause == null )
+        {
+            return;
+        }
+
+        final String columns = ListUtils.union( partition.getMasterTable().getDimensionColumns(), partition.getMasterTable().getValueColumns() )
+            .stream()
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.joining( "," ) );
+
+        final String sql =
+            "insert into " + partition.getTempTableName() + " (" + columns + ") " +
+            "select " + columns + " " +
+            "from " + tableName + " ax " +
+            "where not (" + updatedClause + ")";
+
+        try
+        {
+            invokeTimeAndLog( sql, String.format( "Carry over latest data from %s since: '%s'", tableName, getLongDateString( watermark ) ) );
+
+            partition.setWatermark( watermark );
+        }
+        catch ( BadSqlGrammarException ex )
+        {
+            log.warn( String.format( "Could not carry over latest data from %s, populating fully: %s", tableName, ex.getMessage() ) );
+        }
+    }
+
+    /**
+     * Returns the watermark of the given table, i.e. the end date of the data
+     * the table was populated with, or null if the table has no watermark.
+     *
+     * @param tableName the table name.
+     */
+    private Date getWatermark( String tableName )
+    {
+        final String sql = "select cast(obj_description('" + tableName + "'::regclass, 'pg_class') as timestamp)";
+
+        try
+        {
+            return jdbcTemplate.queryForObject( sql, Date.class );
+        }
+        catch ( DataAccessException ex )
+        {
+            log.debug( ex.getMessage() );
+
+            return null;
+        }
+    }
+
+    /**
+     * Sets the watermark of the given table. The watermark is stored as table
+     * comment, which is retained when the table is renamed during swap.
+     *
+     * @param tableName the table name.
+     * @param watermark the watermark.
+     */
+    private void setWatermark( String tableName, Date watermark )
+    {
+        executeSilently( "comment on table " + tableName + " is '" + getLongDateString( watermark ) + "'" );
+    }
+
     /**
      * Swaps a database table, meaning drops the real table and renames the
      * temporary table to become the real table.
@@ -617,7 +760,7 @@ public abstract class AbstractJdbcTableManager
      * @param tempTableName the temporary table name.
      * @param realTableName the real table name.
      */
-    private void swapTable( String tempTableName, String realTableName )
+    protected void swapTable( String tempTableName, String realTableName )
     {
         final String sql =
             "drop table if exists " + realTableName + " cascade; " +
@@ -36,22 +36,29 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.hisp.dhis.analytics.AnalyticsTableGenerator;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.common.event.AnalyticsTablesUpdatedEvent;
 import org.hisp.dhis.commons.collection.CollectionUtils;
 import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.resourcetable.ResourceTableType;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.system.util.Clock;
 import org.hisp.dhis.util.DateUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import lombok.extern.slf4j.Slf4j;
@@ -74,21 +81,45 @@ public class DefaultAnalyticsTableGenerator
 
     private Notifier notifier;
 
+    private DhisConfigurationProvider config;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Bounded executor for generating independent resource tables. Each table
+     * is generated in its own transaction.
+     */
+    private Executor resourceTableExecutor;
+
+    /**
+     * Margin subtracted from the last successful resource table update when
+     * detecting metadata changes, covering transactions which were in flight
+     * when the previous generation started.
+     */
+    private static final long CHANGE_DETECTION_MARGIN_MILLIS = 60 * 60 * 1000L;
+
     public DefaultAnalyticsTableGenerator( List<AnalyticsTableService> analyticsTableServices,
         ResourceTableService resourceTableService, MessageService messageService,
-        SystemSettingManager systemSettingManager, Notifier notifier )
+        SystemSettingManager systemSettingManager, Notifier notifier, DhisConfigurationProvider config,
+        ApplicationEventPublisher eventPublisher, @Qualifier( "resourceTableTaskExecutor" ) Executor resourceTableExecutor )
     {
         checkNotNull( analyticsTableServices );
         checkNotNull( resourceTableService );
         checkNotNull( messageService );
         checkNotNull( systemSettingManager );
         checkNotNull( notifier );
+        checkNotNull( config );
+        checkNotNull( eventPublisher );
+        checkNotNull( resourceTableExecutor );
 
         this.analyticsTableServices = analyticsTableServices;
         this.resourceTableService = resourceTableService;
         this.messageService = messageService;
         this.systemSettingManager = systemSettingManager;
         this.notifier = notifier;
+        this.config = config;
+        this.eventPublisher = eventPublisher;
+        this.resourceTableExecutor = resourceTableExecutor;
     }
 
     // -------------------------------------------------------------------------
@@ -163,6 +194,8 @@ public class DefaultAnalyticsTableGenerator
             systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, params.getStartTime() );
             systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME, DateUtils.getPrettyInterval( clock.getSplitTime() ) );
         }
+
+        eventPublisher.publishEvent( new AnalyticsTablesUpdatedEvent() );
     }
 
     @Override
@@ -205,18 +238,32 @@ public class DefaultAnalyticsTableGenerator
     {
         final Date startTime = new Date();
 
+        final Date lastSuccessfulUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_RESOURCE_TABLES_UPDATE );
+        final Date changedSince = lastSuccessfulUpdate != null && config.isEnabled( ConfigurationKey.RESOURCE_TABLE_CHANGE_DETECTION_ENABLED ) ?
+            new Date( lastSuccessfulUpdate.getTime() - CHANGE_DETECTION_MARGIN_MILLIS ) : null;
+
+        ResourceTableGraph graph = new ResourceTableGraph( type -> changedSince == null ||
+            resourceTableService.isResourceTableChanged( type, changedSince ) )
+            .add( ResourceTableType.ORG_UNIT_STRUCTURE, resourceTableService::generateOrganisationUnitStructures )
+            .add( ResourceTableType.DATA_SET_ORG_UNIT_CATEGORY, resourceTableService::generateDataSetOrganisationUnitCategoryTable )
+            .add( ResourceTableType.CATEGORY_OPTION_COMBO_NAME, resourceTableService::generateCategoryOptionComboNames )
+            .add( ResourceTableType.DATA_ELEMENT_GROUP_SET_STRUCTURE, resourceTableService::generateDataElementGroupSetTable )
+            .add( ResourceTableType.INDICATOR_GROUP_SET_STRUCTURE, resourceTableService::generateIndicatorGroupSetTable )
+            .add( ResourceTableType.ORG_UNIT_GROUP_SET_STRUCTURE, resourceTableService::generateOrganisationUnitGroupSetTable,
+                ResourceTableType.ORG_UNIT_STRUCTURE )
+            .add( ResourceTableType.CATEGORY_STRUCTURE, resourceTableService::generateCategoryTable )
+            .add( ResourceTableType.DATA_ELEMENT_STRUCTURE, resourceTableService::generateDataElementTable )
+            .add( ResourceTableType.PERIOD_STRUCTURE, resourceTableService::generatePeriodTable )
+            .add( ResourceTableType.DATE_PERIOD_STRUCTURE, resourceTableService::generateDatePeriodTable )
+            .add( ResourceTableType.DATA_ELEMENT_CATEGORY_OPTION_COMBO, resourceTableService::generateCategoryOptionComboTable );
+
         resourceTableService.dropAllSqlViews();
-        resourceTableService.generateOrganisationUnitStructures();
-        resourceTableService.generateDataSetOrganisationUnitCategoryTable();
-        resourceTableService.generateCategoryOptionComboNames();
-        resourceTableService.generateDataElementGroupSetTable();
-        resourceTableService.generateIndicatorGroupSetTable();
-        resourceTableService.generateOrganisationUnitGroupSetTable();
-        resourceTableService.generateCategoryTable();
-        resourceTableService.generateDataElementTable();
-        resourceTableService.generatePeriodTable();
-        resourceTableService.generateDatePeriodTable();
-        resourceTableService.generateCategoryOptionComboTable();
+
+        Set<ResourceTableType> generated = graph.run( config.isEnabled( ConfigurationKey.RESOURCE_TABLE_PARALLEL_ENABLED ) ?
+            resourceTableExecutor : null );
+
+        log.info( String.format( "Generated %d resource tables: %s", generated.size(), generated ) );
+
         resourceTableService.createAllSqlViews();
 
         systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_RESOURCE_TABLES_UPDATE, startTime );
@@ -53,10 +53,13 @@ import com.google.common.collect.Lists;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hisp.dhis.util.DateUtils.getLongDateString;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -184,16 +187,16 @@ public class DefaultAnalyticsTableService
             clock.logTime( "Tables vacuumed" );
         }
 
-        notifier.notify( jobId, "Creating indexes" );
+        notifier.notify( jobId, "Creating rollup tables" );
 
-        createIndexes( tables );
+        createRollupTables( tables );
 
-        clock.logTime( "Created indexes" );
-        notifier.notify( jobId, "Analyzing analytics tables" );
+        clock.logTime( "Created rollup tables" );
+        notifier.notify( jobId, "Creating indexes and analyzing tables" );
 
-        analyzeTables( tables );
+        createIndexesAndAnalyzeTables( tables );
 
-        clock.logTime( "Analyzed tables" );
+        clock.logTime( "Created indexes and analyzed tables" );
         notifier.notify( jobId, "Removing updated and deleted data" );
 
         tableManager.removeUpdatedData( params, tables );
@@ -334,62 +337,90 @@ public class DefaultAnalyticsTableService
 
         for ( int i = 0; i < getProcessNo(); i++ )
         {
-            tableManager.vacuumTablesAsync( partitionQ );
+            futures.add( tableManager.vacuumTablesAsync( partitionQ ) );
         }
 
         ConcurrentUtils.waitForCompletion( futures );
     }
 
     /**
-     * Creates indexes on the given analytics tables.
+     * Creates rollup tables for the given analytics tables.
      *
      * @param tables the list of {@link AnalyticsTable}.
      */
-    private void createIndexes( List<AnalyticsTable> tables )
+    private void createRollupTables( List<AnalyticsTable> tables )
+    {
+        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+
+        ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( partitions );
+
+        List<Future<?>> futures = new ArrayList<>();
+
+        for ( int i = 0; i < getProcessNo(); i++ )
+        {
+            futures.add( tableManager.createRollupTablesAsync( partitionQ ) );
+        }
+
+        ConcurrentUtils.waitForCompletion( futures );
+    }
+
+    /**
+     * Creates indexes on and analyzes the given analytics tables. Indexes are
+     * created by asynchronous tasks polling a shared queue, and each table
+     * partition is analyzed by the task which creates its last index, so that
+     * finished partitions do not wait for indexing of the remaining partitions.
+     *
+     * @param tables the list of {@link AnalyticsTable}.
+     */
+    private void createIndexesAndAnalyzeTables( List<AnalyticsTable> tables )
     {
         List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
 
         ConcurrentLinkedQueue<AnalyticsIndex> indexes = new ConcurrentLinkedQueue<>();
 
+        Map<String, AtomicInteger> pendingIndexes = new HashMap<>();
+
         for ( AnalyticsTablePartition partition : partitions )
         {
             List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
 
+            List<AnalyticsIndex> partitionIndexes = new ArrayList<>();
+
             for ( AnalyticsTableColumn col : columns )
             {
                 if ( !col.isSkipIndex() )
                 {
                     List<String> indexColumns = col.hasIndexColumns() ? col.getIndexColumns() : Lists.newArrayList( col.getName() );
 
-                    indexes.add( new AnalyticsIndex( partition.getTempTableName(), indexColumns, col.getIndexType() ) );
+                    partitionIndexes.add( new AnalyticsIndex( partition.getTempTableName(), indexColumns, col.getIndexType() ) );
                 }
             }
+
+            if ( partitionIndexes.isEmpty() )
+            {
+                tableManager.analyzeTable( partition.getTempTableName() );
+            }
+            else
+            {
+                indexes.addAll( partitionIndexes );
+                pendingIndexes.put( partition.getTempTableName(), new AtomicInteger( partitionIndexes.size() ) );
+            }
         }
 
         log.info( "No of analytics table indexes: " + indexes.size() );
 
+        int taskNo = Math.min( getProcessNo(), indexes.size() );
+
         List<Future<?>> futures = new ArrayList<>();
 
-        for ( int i = 0; i < getProcessNo(); i++ )
+        for ( int i = 0; i < taskNo; i++ )
         {
-            futures.add( tableManager.createIndexesAsync( indexes ) );
+            futures.add( tableManager.createIndexesAndAnalyzeAsync( indexes, pendingIndexes ) );
         }
 
         ConcurrentUtils.waitForCompletion( futures );
     }
 
-    /**
-     * Analyzes the given analytics tables.
-     *
-     * @param tables the list of {@link AnalyticsTable}.
-     */
-    private void analyzeTables( List<AnalyticsTable> tables )
-    {
-        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
-
-        partitions.forEach( table -> tableManager.analyzeTable( table.getTempTableName() ) );
-    }
-
     /**
      * Swaps the given analytics tables.
      *
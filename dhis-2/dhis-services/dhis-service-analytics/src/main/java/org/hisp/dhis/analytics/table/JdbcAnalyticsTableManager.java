@@ -43,10 +43,12 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsIndex;
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
@@ -56,6 +58,7 @@ import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.ColumnDataType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryOptionGroupSet;
@@ -206,9 +209,29 @@ public class JdbcAnalyticsTableManager
 
         AnalyticsTablePartition partition = PartitionUtils.getLatestTablePartition( tables );
 
+        String updatedDataClause = getUpdatedDataClause( partition.getMasterTable(), partition.getUpdatedSinceDate(), partition.getEndDate() );
+
+        String yearSql =
+            "select distinct ax." + quote( "year" ) + " " +
+            "from " + quote( getAnalyticsTableType().getTableName() ) + " ax " +
+            "where " + updatedDataClause;
+
+        List<Integer> years = jdbcTemplate.queryForList( yearSql, Integer.class );
+
         String sql =
             "delete from " + quote( getAnalyticsTableType().getTableName() ) + " ax " +
-            "where ax.id in (" +
+            "where " + updatedDataClause;
+
+        invokeTimeAndLog( sql, "Remove updated data values" );
+
+        refreshRollupTables( years );
+    }
+
+    @Override
+    protected String getUpdatedDataClause( AnalyticsTable table, Date startDate, Date endDate )
+    {
+        return
+            "ax.id in (" +
                 "select (de.uid || '-' || ps.iso || '-' || ou.uid || '-' || co.uid || '-' || ao.uid) as id " +
                 "from datavalue dv " +
                 "inner join dataelement de on dv.dataelementid=de.dataelementid " +
@@ -216,10 +239,8 @@ public class JdbcAnalyticsTableManager
                 "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
                 "inner join categoryoptioncombo co on dv.categoryoptioncomboid=co.categoryoptioncomboid " +
                 "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
-                "where dv.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " +
-                "and dv.lastupdated < '" + getLongDateString( partition.getEndDate() ) + "')";
-
-        invokeTimeAndLog( sql, "Remove updated data values" );
+                "where dv.lastupdated >= '" + getLongDateString( startDate ) + "' " +
+                "and dv.lastupdated < '" + getLongDateString( endDate ) + "')";
     }
 
     @Override
@@ -264,7 +285,7 @@ public class JdbcAnalyticsTableManager
         final boolean respectStartEndDates = (Boolean) systemSettingManager.getSystemSetting( SettingKey.RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT );
         final String approvalClause = getApprovalJoinClause( partition.getYear() );
         final String partitionClause = partition.isLatestPartition() ?
-            "and dv.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " :
+            "and dv.lastupdated >= '" + getLongDateString( partition.getUpdatedSinceDate() ) + "' " :
             "and ps.year = " + partition.getYear() + " ";
 
         String sql = "insert into " + partition.getTempTableName() + " (";
@@ -327,7 +348,7 @@ public class JdbcAnalyticsTableManager
 
         if ( whereClause != null )
         {
-            sql += "and " + whereClause;
+            sql += "and " + whereClause + " ";
         }
 
         invokeTimeAndLog( sql, String.format( "Populate %s %s", tableName, valueTypes ) );
@@ -543,12 +564,164 @@ public class JdbcAnalyticsTableManager
         return ConcurrentUtils.getImmediateFuture();
     }
 
+    @Override
+    @Async
+    public Future<?> createRollupTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions )
+    {
+        final int maxOrgUnitLevel = getRollupMaxOrgUnitLevel();
+
+        taskLoop:
+        while ( true )
+        {
+            AnalyticsTablePartition partition = partitions.poll();
+
+            if ( partition == null )
+            {
+                break taskLoop;
+            }
+
+            if ( maxOrgUnitLevel > 0 && !partition.isLatestPartition() )
+            {
+                createRollupTable( partition, maxOrgUnitLevel );
+            }
+        }
+
+        return ConcurrentUtils.getImmediateFuture();
+    }
+
+    @Override
+    public void swapTable( AnalyticsTableUpdateParams params, AnalyticsTable table )
+    {
+        super.swapTable( params, table );
+
+        for ( AnalyticsTablePartition partition : table.getTablePartitions() )
+        {
+            if ( partition.isLatestPartition() )
+            {
+                continue;
+            }
+
+            String tempRollupTableName = RollupTableUtils.getTempRollupPartitionName( table.getBaseName(), partition.getYear() );
+            String rollupTableName = PartitionUtils.getPartitionName( RollupTableUtils.getRollupTableName( table.getBaseName() ), partition.getYear() );
+
+            if ( partitionManager.tableExists( tempRollupTableName ) )
+            {
+                swapTable( tempRollupTableName, rollupTableName );
+            }
+            else
+            {
+                dropTable( rollupTableName );
+            }
+        }
+    }
+
     @Override
     public List<AnalyticsTableColumn> getFixedColumns()
     {
         return FIXED_COLS;
     }
 
+    /**
+     * Creates a rollup table for the given partition, where values are summed
+     * by all dimension columns retained for the given maximum organisation unit
+     * level. Rows without a numeric value are skipped.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param maxOrgUnitLevel the maximum organisation unit level.
+     */
+    private void createRollupTable( AnalyticsTablePartition partition, int maxOrgUnitLevel )
+    {
+        final String tableName = RollupTableUtils.getTempRollupPartitionName( partition.getMasterTable().getBaseName(), partition.getYear() );
+
+        List<String> columns = partition.getMasterTable().getDimensionColumns().stream()
+            .map( AnalyticsTableColumn::getName )
+            .filter( col -> RollupTableUtils.isRollupColumn( col, maxOrgUnitLevel ) )
+            .collect( Collectors.toList() );
+
+        createRollupTable( tableName, partition.getTempTableName(), columns );
+    }
+
+    /**
+     * Creates a rollup table with the given name from the given analytics table,
+     * where values are summed by the given dimension columns. Rows without a
+     * numeric value are skipped.
+     *
+     * @param tableName the name of the rollup table.
+     * @param sourceTableName the name of the analytics table to read from.
+     * @param columns the dimension columns to retain.
+     */
+    private void createRollupTable( String tableName, String sourceTableName, List<String> columns )
+    {
+        final String cols = StringUtils.join( columns, "," );
+
+        final String sql =
+            "create table " + tableName + " as " +
+            "select " + cols + ", sum(value) as value " +
+            "from " + sourceTableName + " " +
+            "where value is not null " +
+            "group by " + cols;
+
+        dropTable( tableName );
+
+        invokeTimeAndLog( sql, String.format( "Created rollup table: %s, columns: %d", tableName, columns.size() ) );
+
+        createIndex( new AnalyticsIndex( tableName, newArrayList( quote( "dx" ) ), null ) );
+
+        analyzeTable( tableName );
+    }
+
+    /**
+     * Rebuilds the existing rollup tables of the given years from their analytics
+     * table partitions. Used when data is removed from the analytics table
+     * partitions of these years, as this makes the rollup tables of these years
+     * stale. Each rollup table keeps its columns and is swapped in place, so that
+     * queries routed to rollup tables keep finding them.
+     *
+     * @param years the years of the analytics table partitions.
+     */
+    private void refreshRollupTables( List<Integer> years )
+    {
+        final String tableName = getAnalyticsTableType().getTableName();
+        final String rollupTableName = RollupTableUtils.getRollupTableName( tableName );
+
+        for ( Integer year : years )
+        {
+            String rollupPartitionName = PartitionUtils.getPartitionName( rollupTableName, year );
+
+            if ( !partitionManager.tableExists( rollupPartitionName ) )
+            {
+                continue;
+            }
+
+            final String sql =
+                "select column_name from information_schema.columns " +
+                "where table_name = '" + rollupPartitionName + "' " +
+                "and column_name <> 'value' " +
+                "order by ordinal_position";
+
+            List<String> columns = jdbcTemplate.queryForList( sql, String.class ).stream()
+                .map( AnalyticsSqlUtils::quote )
+                .collect( Collectors.toList() );
+
+            String tempRollupTableName = RollupTableUtils.getTempRollupPartitionName( tableName, year );
+
+            createRollupTable( tempRollupTableName, PartitionUtils.getPartitionName( tableName, year ), columns );
+
+            swapTable( tempRollupTableName, rollupPartitionName );
+        }
+    }
+
+    /**
+     * Returns the maximum organisation unit level of rollup tables, where zero
+     * or less means rollup tables are disabled.
+     */
+    private int getRollupMaxOrgUnitLevel()
+    {
+        Integer level = (Integer) systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_ROLLUP_MAX_ORG_UNIT_LEVEL );
+
+        return level != null ? level : 0;
+    }
+
     /**
      * Indicates whether the system should ignore data which has not been approved
      * in analytics tables.
@@ -262,18 +262,25 @@ public class JdbcEventAnalyticsTableManager
 
             String sql =
                 "delete from " + quote( table.getTableName() ) + " ax " +
-                "where ax.psi in (" +
-                    "select psi.uid " +
-                    "from programstageinstance psi " +
-                    "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
-                    "where pi.programid = " + table.getProgram().getId() + " " +
-                    "and psi.lastupdated >= '" + getLongDateString( partition.getStartDate() ) + "' " +
-                    "and psi.lastupdated < '" + getLongDateString( partition.getEndDate() ) + "')";
+                "where " + getUpdatedDataClause( table, partition.getUpdatedSinceDate(), partition.getEndDate() );
 
             invokeTimeAndLog( sql, String.format( "Remove updated events for table: '%s'", table.getTableName() ) );
         }
     }
 
+    @Override
+    protected String getUpdatedDataClause( AnalyticsTable table, Date startDate, Date endDate )
+    {
+        return
+            "ax.psi in (" +
+                "select psi.uid " +
+                "from programstageinstance psi " +
+                "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
+                "where pi.programid = " + table.getProgram().getId() + " " +
+                "and psi.lastupdated >= '" + getLongDateString( startDate ) + "' " +
+                "and psi.lastupdated < '" + getLongDateString( endDate ) + "')";
+    }
+
     @Override
     public List<AnalyticsTableColumn> getFixedColumns()
     {
@@ -298,7 +305,7 @@ public class JdbcEventAnalyticsTableManager
         final String start = DateUtils.getLongDateString( partition.getStartDate() );
         final String end = DateUtils.getLongDateString( partition.getEndDate() );
         final String partitionClause = partition.isLatestPartition() ?
-            "and psi.lastupdated >= '" + start + "' " :
+            "and psi.lastupdated >= '" + DateUtils.getLongDateString( partition.getUpdatedSinceDate() ) + "' " :
             "and psi.executiondate >= '" + start + "' and psi.executiondate < '" + end + "' ";
 
         String fromClause = "from programstageinstance psi " +
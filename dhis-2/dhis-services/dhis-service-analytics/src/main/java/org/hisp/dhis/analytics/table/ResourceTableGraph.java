@@ -0,0 +1,207 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
+import org.hisp.dhis.resourcetable.ResourceTableType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dependency graph of resource table generation tasks. A table is generated
+ * if it is reported as changed or if any of the tables it depends on was
+ * generated in the same run. Tables without a path between them in the graph
+ * may be generated concurrently.
+ * <p>
+ * Dependencies must be added before their dependents, which keeps the graph
+ * acyclic and makes the insertion order a valid sequential order.
+ */
+@Slf4j
+class ResourceTableGraph
+{
+    private final Map<ResourceTableType, Node> nodes = new LinkedHashMap<>();
+
+    private final Predicate<ResourceTableType> changed;
+
+    /**
+     * @param changed predicate indicating whether the source of a table has
+     *        changed since the table was last generated.
+     */
+    ResourceTableGraph( Predicate<ResourceTableType> changed )
+    {
+        this.changed = changed;
+    }
+
+    /**
+     * Adds a table generation task to the graph.
+     *
+     * @param type the resource table type.
+     * @param generator the task generating the table.
+     * @param dependencies the tables which must be generated first, all of
+     *        which must already be present in the graph.
+     * @return this graph.
+     */
+    ResourceTableGraph add( ResourceTableType type, Runnable generator, ResourceTableType... dependencies )
+    {
+        checkArgument( !nodes.containsKey( type ), "Resource table already in graph: " + type );
+
+        for ( ResourceTableType dependency : dependencies )
+        {
+            checkArgument( nodes.containsKey( dependency ),
+                String.format( "Dependency %s of %s must be added first", dependency, type ) );
+        }
+
+        nodes.put( type, new Node( type, generator, Arrays.asList( dependencies ) ) );
+        return this;
+    }
+
+    /**
+     * Generates the tables of the graph.
+     *
+     * @param executor the executor to generate independent tables on, or null
+     *        to generate all tables on the calling thread in insertion order.
+     * @return the tables which were generated.
+     */
+    Set<ResourceTableType> run( Executor executor )
+    {
+        return executor == null ? runSequential() : runParallel( executor );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private Set<ResourceTableType> runSequential()
+    {
+        Set<ResourceTableType> generated = EnumSet.noneOf( ResourceTableType.class );
+
+        for ( Node node : nodes.values() )
+        {
+            if ( generate( node, node.dependencies.stream().anyMatch( generated::contains ) ) )
+            {
+                generated.add( node.type );
+            }
+        }
+
+        return generated;
+    }
+
+    private Set<ResourceTableType> runParallel( Executor executor )
+    {
+        Map<ResourceTableType, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+
+        for ( Node node : nodes.values() )
+        {
+            List<CompletableFuture<Boolean>> dependencies = new ArrayList<>();
+            node.dependencies.forEach( d -> dependencies.add( futures.get( d ) ) );
+
+            CompletableFuture<Boolean> future = CompletableFuture
+                .allOf( dependencies.toArray( new CompletableFuture[0] ) )
+                .thenApplyAsync( v -> generate( node, dependencies.stream().anyMatch( CompletableFuture::join ) ),
+                    executor );
+
+            futures.put( node.type, future );
+        }
+
+        try
+        {
+            CompletableFuture.allOf( futures.values().toArray( new CompletableFuture[0] ) ).join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+
+        Set<ResourceTableType> generated = EnumSet.noneOf( ResourceTableType.class );
+        futures.forEach( ( type, future ) -> {
+            if ( future.join() )
+            {
+                generated.add( type );
+            }
+        } );
+
+        return generated;
+    }
+
+    /**
+     * Generates the table of the given node if forced or if its source has
+     * changed.
+     *
+     * @param node the node.
+     * @param force whether a dependency of the table was generated.
+     * @return true if the table was generated.
+     */
+    private boolean generate( Node node, boolean force )
+    {
+        if ( force || changed.test( node.type ) )
+        {
+            node.generator.run();
+            return true;
+        }
+
+        log.info( String.format( "Skipping unchanged resource table: %s", node.type.getTableName() ) );
+        return false;
+    }
+
+    private static class Node
+    {
+        private final ResourceTableType type;
+
+        private final Runnable generator;
+
+        private final List<ResourceTableType> dependencies;
+
+        private Node( ResourceTableType type, Runnable generator, List<ResourceTableType> dependencies )
+        {
+            this.type = type;
+            this.generator = generator;
+            this.dependencies = Collections.unmodifiableList( dependencies );
+        }
+    }
+}
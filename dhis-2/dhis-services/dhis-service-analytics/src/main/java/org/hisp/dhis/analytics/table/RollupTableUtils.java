@@ -0,0 +1,148 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.analytics.DataQueryParams.LEVEL_PREFIX;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.removeQuote;
+
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.period.QuarterlyPeriodType;
+import org.hisp.dhis.period.YearlyPeriodType;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Utilities for analytics rollup tables. A rollup table holds the values of an
+ * analytics table partition pre-aggregated by sum to yearly and quarterly periods
+ * and to organisation unit levels up to and including a maximum level. All other
+ * dimension columns are retained, which means that any sum query which only
+ * refers to retained columns gives identical results against the rollup table
+ * and the analytics table partition.
+ */
+public class RollupTableUtils
+{
+    public static final String ROLLUP_SUFFIX = "_rollup";
+
+    private static final Pattern ORG_UNIT_LEVEL_COLUMN_PATTERN = Pattern.compile( LEVEL_PREFIX + "(\\d+)" );
+
+    private static final Set<String> ROLLUP_PERIOD_COLUMNS = ImmutableSet.of(
+        YearlyPeriodType.NAME.toLowerCase(), QuarterlyPeriodType.NAME.toLowerCase() );
+
+    private static final Set<String> PERIOD_COLUMNS = PeriodType.getAvailablePeriodTypes().stream()
+        .map( pt -> pt.getName().toLowerCase() )
+        .collect( Collectors.toSet() );
+
+    private static final Set<String> NON_ROLLUP_COLUMNS = ImmutableSet.of(
+        "id", "pe", "ou", "level", "approvallevel", "pestartdate", "peenddate" );
+
+    /**
+     * Returns the name of the rollup table for the given analytics table name.
+     *
+     * @param tableName the analytics table name, e.g. {@code analytics}.
+     * @return the rollup table name, e.g. {@code analytics_rollup}.
+     */
+    public static String getRollupTableName( String tableName )
+    {
+        return tableName + ROLLUP_SUFFIX;
+    }
+
+    /**
+     * Indicates whether the given table name is the name of a rollup table.
+     *
+     * @param tableName the table name, e.g. {@code analytics_rollup}.
+     * @return true if the table name is a rollup table name.
+     */
+    public static boolean isRollupTableName( String tableName )
+    {
+        return tableName != null && tableName.endsWith( ROLLUP_SUFFIX );
+    }
+
+    /**
+     * Returns the name of the analytics table for the given rollup table name.
+     *
+     * @param rollupTableName the rollup table name, e.g. {@code analytics_rollup}.
+     * @return the analytics table name, e.g. {@code analytics}.
+     */
+    public static String getBaseTableName( String rollupTableName )
+    {
+        return StringUtils.removeEnd( rollupTableName, ROLLUP_SUFFIX );
+    }
+
+    /**
+     * Returns the name of the temporary rollup table for the given analytics
+     * table name and partition.
+     *
+     * @param tableName the analytics table name, e.g. {@code analytics}.
+     * @param partition the partition.
+     * @return the temporary rollup table name, e.g. {@code analytics_rollup_temp_2019}.
+     */
+    public static String getTempRollupPartitionName( String tableName, Integer partition )
+    {
+        return PartitionUtils.getPartitionName( getRollupTableName( tableName ) + AnalyticsTableManager.TABLE_TEMP_SUFFIX, partition );
+    }
+
+    /**
+     * Indicates whether the given dimension column is retained in rollup tables
+     * built for the given maximum organisation unit level.
+     *
+     * @param column the column name, quoted or unquoted.
+     * @param maxOrgUnitLevel the maximum organisation unit level.
+     * @return true if the column is retained in the rollup table.
+     */
+    public static boolean isRollupColumn( String column, int maxOrgUnitLevel )
+    {
+        String name = removeQuote( column );
+
+        if ( NON_ROLLUP_COLUMNS.contains( name ) )
+        {
+            return false;
+        }
+
+        if ( PERIOD_COLUMNS.contains( name ) )
+        {
+            return ROLLUP_PERIOD_COLUMNS.contains( name );
+        }
+
+        Matcher matcher = ORG_UNIT_LEVEL_COLUMN_PATTERN.matcher( name );
+
+        if ( matcher.matches() )
+        {
+            return Integer.parseInt( matcher.group( 1 ) ) <= maxOrgUnitLevel;
+        }
+
+        return true;
+    }
+}
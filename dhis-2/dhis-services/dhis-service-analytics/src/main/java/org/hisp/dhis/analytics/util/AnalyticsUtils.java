@@ -919,4 +919,104 @@ public class AnalyticsUtils
         return periodIndex < row.size() && row.get( periodIndex ) instanceof String
             && PeriodType.getPeriodFromIsoString( (String) row.get( periodIndex ) ) != null;
     }
+
+    /**
+     * Returns the component at the given index of the given dimension key, where
+     * components are separated by {@link DimensionalObject#DIMENSION_SEP}. Reads
+     * the component in place without splitting the key.
+     *
+     * @param key the dimension key.
+     * @param index the component index.
+     * @return the component, or null if the key has no component at the index.
+     */
+    public static String getKeyComponent( String key, int index )
+    {
+        int start = getKeyComponentStart( key, index );
+
+        return start == -1 ? null : key.substring( start, getKeyComponentEnd( key, start ) );
+    }
+
+    /**
+     * Returns the given dimension key with the component at the given index
+     * replaced by the given value, without splitting and joining the key.
+     *
+     * @param key the dimension key.
+     * @param index the component index.
+     * @param value the replacement value.
+     * @return the dimension key with the component replaced.
+     * @throws IllegalArgumentException if the key has no component at the index.
+     */
+    public static String replaceKeyComponent( String key, int index, String value )
+    {
+        int start = getKeyComponentStart( key, index );
+
+        Assert.isTrue( start != -1, String.format( "Key has no component at index %d: '%s'", index, key ) );
+
+        int end = getKeyComponentEnd( key, start );
+
+        return new StringBuilder( key.length() - ( end - start ) + value.length() )
+            .append( key, 0, start )
+            .append( value )
+            .append( key, end, key.length() )
+            .toString();
+    }
+
+    /**
+     * Returns the given dimension key with the component at the given index and
+     * its separator removed, without splitting and joining the key.
+     *
+     * @param key the dimension key.
+     * @param index the component index.
+     * @return the dimension key with the component removed.
+     * @throws IllegalArgumentException if the key has no component at the index.
+     */
+    public static String removeKeyComponent( String key, int index )
+    {
+        int start = getKeyComponentStart( key, index );
+
+        Assert.isTrue( start != -1, String.format( "Key has no component at index %d: '%s'", index, key ) );
+
+        int end = getKeyComponentEnd( key, start );
+
+        if ( end < key.length() )
+        {
+            return key.substring( 0, start ) + key.substring( end + DIMENSION_SEP.length() );
+        }
+
+        return start == 0 ? StringUtils.EMPTY : key.substring( 0, start - DIMENSION_SEP.length() );
+    }
+
+    /**
+     * Returns the start position of the component at the given index of the
+     * given dimension key, or -1 if the key has no component at the index.
+     */
+    private static int getKeyComponentStart( String key, int index )
+    {
+        int start = 0;
+
+        for ( int i = 0; i < index; i++ )
+        {
+            int sep = key.indexOf( DIMENSION_SEP, start );
+
+            if ( sep == -1 )
+            {
+                return -1;
+            }
+
+            start = sep + DIMENSION_SEP.length();
+        }
+
+        return start;
+    }
+
+    /**
+     * Returns the end position, exclusive, of the component of the given
+     * dimension key starting at the given position.
+     */
+    private static int getKeyComponentEnd( String key, int start )
+    {
+        int end = key.indexOf( DIMENSION_SEP, start );
+
+        return end == -1 ? key.length() : end;
+    }
 }
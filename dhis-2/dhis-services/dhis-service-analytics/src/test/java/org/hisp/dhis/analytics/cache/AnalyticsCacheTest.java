@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.hisp.dhis.analytics.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.system.grid.ListGrid;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+public class AnalyticsCacheTest
+{
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private Environment environment;
+
+    @Mock
+    private AnalyticsCacheSettings analyticsCacheSettings;
+
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    private AnalyticsCache analyticsCache;
+
+    @Before
+    public void setUp()
+    {
+        when( cacheProvider.newCacheBuilder( Grid.class ) ).thenReturn( new SimpleCacheBuilder<>() );
+        when( environment.getActiveProfiles() ).thenReturn( new String[] {} );
+        when( analyticsCacheSettings.fixedExpirationTimeOrDefault() ).thenReturn( 60L );
+
+        analyticsCache = new AnalyticsCache( cacheProvider, environment, analyticsCacheSettings );
+        analyticsCache.init();
+    }
+
+    @Test
+    public void testGetOrFetchCachesGrid()
+    {
+        // Given
+        final DataQueryParams params = DataQueryParams.newBuilder().build();
+        final AtomicInteger fetches = new AtomicInteger();
+
+        // When
+        final Grid gridA = analyticsCache.getOrFetch( params, p -> fetch( fetches ) );
+        final Grid gridB = analyticsCache.getOrFetch( params, p -> fetch( fetches ) );
+
+        // Then
+        assertThat( fetches.get(), is( 1 ) );
+        assertThat( gridB, is( sameInstance( gridA ) ) );
+    }
+
+    @Test
+    public void testGetOrFetchConcurrentMissesFetchOnce()
+        throws Exception
+    {
+        // Given
+        final DataQueryParams params = DataQueryParams.newBuilder().build();
+        final AtomicInteger fetches = new AtomicInteger();
+        final CountDownLatch fetchStarted = new CountDownLatch( 1 );
+        final CountDownLatch releaseFetch = new CountDownLatch( 1 );
+        final ExecutorService executor = Executors.newFixedThreadPool( 2 );
+
+        // When
+        final Future<Grid> leader = executor.submit( () -> analyticsCache.getOrFetch( params, p -> {
+            fetchStarted.countDown();
+            await( releaseFetch );
+            return fetch( fetches );
+        } ) );
+
+        fetchStarted.await( 10, TimeUnit.SECONDS );
+
+        final Future<Grid> follower = executor.submit( () -> analyticsCache.getOrFetch( params, p -> fetch( fetches ) ) );
+
+        releaseFetch.countDown();
+
+        final Grid gridA = leader.get( 10, TimeUnit.SECONDS );
+        final Grid gridB = follower.get( 10, TimeUnit.SECONDS );
+
+        executor.shutdown();
+
+        // Then
+        assertThat( fetches.get(), is( 1 ) );
+        assertThat( gridB, is( sameInstance( gridA ) ) );
+    }
+
+    @Test
+    public void testGetOrFetchRetriesAfterFailedFetch()
+    {
+        // Given
+        final DataQueryParams params = DataQueryParams.newBuilder().build();
+        final AtomicInteger fetches = new AtomicInteger();
+
+        // When
+        try
+        {
+            analyticsCache.getOrFetch( params, p -> {
+                throw new OutOfMemoryError();
+            } );
+
+            fail( "Expected fetch to fail" );
+        }
+        catch ( OutOfMemoryError ex )
+        {
+            // Expected
+        }
+
+        final Grid grid = analyticsCache.getOrFetch( params, p -> fetch( fetches ) );
+
+        // Then
+        assertThat( fetches.get(), is( 1 ) );
+        assertThat( grid, is( notNullValue() ) );
+    }
+
+    private Grid fetch( final AtomicInteger fetches )
+    {
+        fetches.incrementAndGet();
+
+        return new ListGrid();
+    }
+
+    private void await( final CountDownLatch latch )
+    {
+        try
+        {
+            latch.await( 10, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.hisp.dhis.analytics.data;
+
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_EXPENSIVE_QUERY_MAX_WAIT;
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD;
+import static org.hisp.dhis.setting.SettingKey.ANALYTICS_MAX_CONCURRENT_EXPENSIVE_QUERIES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.when;
+
+import org.hisp.dhis.analytics.QueryAdmissionController.Permit;
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class DefaultQueryAdmissionControllerTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    private DefaultQueryAdmissionController controller;
+
+    @Before
+    public void setUp()
+    {
+        when( systemSettingManager.getSystemSetting( ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD ) ).thenReturn( 1000 );
+        when( systemSettingManager.getSystemSetting( ANALYTICS_MAX_CONCURRENT_EXPENSIVE_QUERIES ) ).thenReturn( 1 );
+        when( systemSettingManager.getSystemSetting( ANALYTICS_EXPENSIVE_QUERY_MAX_WAIT ) ).thenReturn( 0 );
+
+        controller = new DefaultQueryAdmissionController( systemSettingManager );
+    }
+
+    @Test
+    public void testAdmitCheapQuery()
+    {
+        Permit permitA = controller.admit( 100 );
+        Permit permitB = controller.admit( 999 );
+
+        assertNotNull( permitA );
+        assertNotNull( permitB );
+        assertEquals( 0, controller.getRunning() );
+    }
+
+    @Test
+    public void testAdmitWhenThresholdDisabled()
+    {
+        when( systemSettingManager.getSystemSetting( ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD ) ).thenReturn( 0 );
+
+        controller.admit( Long.MAX_VALUE );
+        controller.admit( Long.MAX_VALUE );
+
+        assertEquals( 0, controller.getRunning() );
+    }
+
+    @Test
+    public void testRejectExpensiveQueryWhenLimitReached()
+    {
+        Permit permit = controller.admit( 5000 );
+
+        assertEquals( 1, controller.getRunning() );
+
+        QueryRuntimeException ex = assertThrows( QueryRuntimeException.class, () -> controller.admit( 5000 ) );
+
+        assertEquals( ErrorCode.E7135, ex.getErrorCode() );
+        assertEquals( 1, controller.getRejectedCount() );
+        assertEquals( 0, controller.getWaiting() );
+
+        permit.close();
+
+        assertEquals( 0, controller.getRunning() );
+    }
+
+    @Test
+    public void testReleasePermitOnce()
+    {
+        Permit permit = controller.admit( 5000 );
+
+        permit.close();
+        permit.close();
+
+        assertEquals( 0, controller.getRunning() );
+
+        try ( Permit next = controller.admit( 5000 ) )
+        {
+            assertEquals( 1, controller.getRunning() );
+        }
+
+        assertEquals( 0, controller.getRunning() );
+    }
+
+    @Test
+    public void testDeferredQueryAdmittedOnRelease()
+        throws Exception
+    {
+        when( systemSettingManager.getSystemSetting( ANALYTICS_EXPENSIVE_QUERY_MAX_WAIT ) ).thenReturn( 10 );
+
+        Permit permit = controller.admit( 5000 );
+
+        Thread waiter = new Thread( () -> controller.admit( 5000 ).close() );
+        waiter.start();
+
+        while ( controller.getWaiting() == 0 )
+        {
+            Thread.sleep( 5 );
+        }
+
+        permit.close();
+        waiter.join( 5000 );
+
+        assertEquals( 0, controller.getRunning() );
+        assertEquals( 0, controller.getWaiting() );
+        assertEquals( 0, controller.getRejectedCount() );
+    }
+}
@@ -0,0 +1,188 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_DATA_X;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_ORGUNIT;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.*;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.period.YearlyPeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class DefaultQueryPlannerRollupTest
+{
+    private DefaultQueryPlanner subject;
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private PartitionManager partitionManager;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private OrganisationUnit ouA;
+
+    private OrganisationUnit ouB;
+
+    private OrganisationUnit ouC;
+
+    @Before
+    public void setUp()
+    {
+        subject = new DefaultQueryPlanner( queryValidator, partitionManager, systemSettingManager );
+
+        ouA = createOrganisationUnit( 'A' );
+        ouB = createOrganisationUnit( 'B', ouA );
+        ouC = createOrganisationUnit( 'C', ouB );
+
+        ouA.setPath( "/" + ouA.getUid() );
+        ouB.setPath( ouA.getPath() + "/" + ouB.getUid() );
+        ouC.setPath( ouB.getPath() + "/" + ouC.getUid() );
+
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_ROLLUP_MAX_ORG_UNIT_LEVEL ) ).thenReturn( 2 );
+        when( partitionManager.analyticsTableExists( anyString() ) ).thenReturn( true );
+
+        doAnswer( invocation -> {
+            Partitions partitions = invocation.getArgument( 0 );
+            partitions.getPartitions().remove( AnalyticsTablePartition.LATEST_PARTITION );
+            return null;
+        } ).when( partitionManager ).filterNonExistingPartitions( any( Partitions.class ), anyString() );
+    }
+
+    @Test
+    public void testSumQueryRoutedToRollupTable()
+    {
+        DataQueryParams params = createParams( new YearlyPeriodType(), AggregationType.SUM, ouB );
+
+        assertEquals( "analytics_rollup", planSingleQuery( params ).getTableName() );
+    }
+
+    @Test
+    public void testQueryBelowRollupOrgUnitLevelNotRouted()
+    {
+        DataQueryParams params = createParams( new YearlyPeriodType(), AggregationType.SUM, ouC );
+
+        assertEquals( "analytics", planSingleQuery( params ).getTableName() );
+    }
+
+    @Test
+    public void testMonthlyQueryNotRouted()
+    {
+        DataQueryParams params = createParams( new MonthlyPeriodType(), AggregationType.SUM, ouB );
+
+        assertEquals( "analytics", planSingleQuery( params ).getTableName() );
+    }
+
+    @Test
+    public void testAverageQueryNotRouted()
+    {
+        DataQueryParams params = createParams( new YearlyPeriodType(), AggregationType.AVERAGE, ouB );
+
+        assertEquals( "analytics", planSingleQuery( params ).getTableName() );
+    }
+
+    @Test
+    public void testQueryNotRoutedWhenRollupTableMissing()
+    {
+        when( partitionManager.analyticsTableExists( "analytics_rollup_2019" ) ).thenReturn( false );
+
+        DataQueryParams params = createParams( new YearlyPeriodType(), AggregationType.SUM, ouB );
+
+        assertEquals( "analytics", planSingleQuery( params ).getTableName() );
+    }
+
+    @Test
+    public void testQueryNotRoutedWhenRollupDisabled()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_ROLLUP_MAX_ORG_UNIT_LEVEL ) ).thenReturn( 0 );
+
+        DataQueryParams params = createParams( new YearlyPeriodType(), AggregationType.SUM, ouB );
+
+        assertEquals( "analytics", planSingleQuery( params ).getTableName() );
+    }
+
+    private DataQueryParams planSingleQuery( DataQueryParams params )
+    {
+        DataQueryGroups queryGroups = subject.planQuery( params,
+            QueryPlannerParams.newBuilder().withTableType( AnalyticsTableType.DATA_VALUE ).build() );
+
+        List<DataQueryParams> queries = queryGroups.getAllQueries();
+
+        assertEquals( 1, queries.size() );
+
+        return queries.get( 0 );
+    }
+
+    private DataQueryParams createParams( PeriodType periodType, AggregationType aggregationType, OrganisationUnit unit )
+    {
+        List<DimensionalItemObject> periods = Lists.newArrayList(
+            periodType.createPeriod( new DateTime( 2019, 4, 1, 0, 0 ).toDate() ) );
+
+        return DataQueryParams.newBuilder()
+            .withDimensions( Lists.newArrayList(
+                new BaseDimensionalObject( "dx", DimensionType.DATA_X, DISPLAY_NAME_DATA_X, "display name",
+                    Lists.newArrayList( createDataElement( 'A', ValueType.INTEGER, aggregationType ) ) ),
+                new BaseDimensionalObject( "pe", DimensionType.PERIOD, periods ),
+                new BaseDimensionalObject( "ou", DimensionType.ORGANISATION_UNIT, null, DISPLAY_NAME_ORGUNIT,
+                    Lists.newArrayList( unit ) ) ) )
+            .build();
+    }
+}
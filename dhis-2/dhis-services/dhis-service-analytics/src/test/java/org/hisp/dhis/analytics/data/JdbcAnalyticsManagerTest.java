@@ -33,12 +33,27 @@ import static org.hisp.dhis.DhisConvenienceTest.*;
 import static org.hisp.dhis.common.DimensionalObject.*;
 import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
 import org.hisp.dhis.analytics.*;
+import org.hisp.dhis.analytics.cache.AnalyticsSubQueryCache;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -53,6 +68,7 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 
@@ -79,6 +95,9 @@ public class JdbcAnalyticsManagerTest
     @Mock
     private NestedIndicatorCyclicDependencyInspector nestedIndicatorCyclicDependencyInspector;
 
+    @Mock
+    private AnalyticsSubQueryCache subQueryCache;
+
     @Captor
     private ArgumentCaptor<String> sql;
 
@@ -89,13 +108,13 @@ public class JdbcAnalyticsManagerTest
     {
         QueryPlanner queryPlanner = new DefaultQueryPlanner(
             new DefaultQueryValidator( this.systemSettingManager, nestedIndicatorCyclicDependencyInspector ),
-            partitionManager );
+            partitionManager, systemSettingManager );
 
         mockRowSet();
 
         when( jdbcTemplate.queryForRowSet( sql.capture() ) ).thenReturn( rowSet );
 
-        subject = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
+        subject = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate, subQueryCache );
     }
 
     @Test
@@ -138,6 +157,84 @@ public class JdbcAnalyticsManagerTest
         assertExpectedLastSql( "desc" );
     }
 
+    @Test
+    public void verifyCachedSubQueryResultIsUsed()
+        throws Exception
+    {
+        DataQueryParams params = createParams( AggregationType.SUM );
+
+        Map<String, Object> cachedMap = new HashMap<>();
+        cachedMap.put( "deabcdefghA-201501", 10d );
+
+        when( subQueryCache.isEnabled() ).thenReturn( true );
+        when( subQueryCache.getKey( eq( AnalyticsTableType.DATA_VALUE ), anyString(), eq( 20000 ) ) ).thenReturn( "key" );
+        when( subQueryCache.get( "key" ) ).thenReturn( Optional.of( cachedMap ) );
+
+        Map<String, Object> map = subject.getAggregatedDataValues( params, AnalyticsTableType.DATA_VALUE, 20000 ).get();
+
+        assertEquals( cachedMap, map );
+        verify( jdbcTemplate, never() ).queryForRowSet( anyString() );
+        verify( subQueryCache, never() ).put( any(), anyString(), any() );
+    }
+
+    @Test
+    public void verifySubQueryResultIsCached()
+    {
+        DataQueryParams params = createParams( AggregationType.SUM );
+
+        when( subQueryCache.isEnabled() ).thenReturn( true );
+        when( subQueryCache.getKey( eq( AnalyticsTableType.DATA_VALUE ), anyString(), eq( 20000 ) ) ).thenReturn( "key" );
+        when( subQueryCache.get( "key" ) ).thenReturn( Optional.empty() );
+
+        subject.getAggregatedDataValues( params, AnalyticsTableType.DATA_VALUE, 20000 );
+
+        verify( subQueryCache ).put( eq( params ), eq( "key" ), any() );
+    }
+
+    @Test
+    public void verifyRollupQueryFallsBackToAnalyticsTable()
+        throws Exception
+    {
+        DataQueryParams params = DataQueryParams.newBuilder( createParams( AggregationType.SUM ) )
+            .withTableName( "analytics_rollup" )
+            .build();
+
+        when( jdbcTemplate.queryForRowSet( contains( "from analytics_rollup as ax" ) ) )
+            .thenThrow( new BadSqlGrammarException( "query", "select", new SQLException( "relation does not exist" ) ) );
+
+        subject.getAggregatedDataValues( params, AnalyticsTableType.DATA_VALUE, 20000 ).get();
+
+        verify( jdbcTemplate ).queryForRowSet( contains( "from analytics as ax" ) );
+    }
+
+    @Test
+    public void verifyQueryGeneratedWhenMergedOnAggregationType()
+    {
+        DataElement deA = createDataElement( 'A', ValueType.INTEGER, AggregationType.SUM );
+        DataElement deB = createDataElement( 'B', ValueType.INTEGER, AggregationType.COUNT );
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+        Period peA = PeriodType.getPeriodFromIsoString( "201501" );
+
+        ListMap<AnalyticsAggregationType, DimensionalItemObject> aggregationTypeDataItems = new ListMap<>();
+        aggregationTypeDataItems.putValue( AnalyticsAggregationType.SUM, deA );
+        aggregationTypeDataItems.putValue( AnalyticsAggregationType.COUNT, deB );
+
+        DataQueryParams params = DataQueryParams.newBuilder().withDataType( DataType.NUMERIC )
+            .withTableName( "analytics" )
+            .withAggregationType( AnalyticsAggregationType.SUM )
+            .withAggregationTypeDataItems( aggregationTypeDataItems )
+            .addDimension( new BaseDimensionalObject( DATA_X_DIM_ID, DimensionType.DATA_X, getList( deA, deB ) ) )
+            .addFilter( new BaseDimensionalObject( ORGUNIT_DIM_ID, DimensionType.ORGANISATION_UNIT, getList( ouA ) ) )
+            .addDimension( new BaseDimensionalObject( PERIOD_DIM_ID, DimensionType.PERIOD, getList( peA ) ) ).build();
+
+        subject.getAggregatedDataValues( params, AnalyticsTableType.DATA_VALUE, 20000 );
+
+        assertThat( sql.getValue(), containsString( "case when ax.\"dx\" in " ) );
+        assertThat( sql.getValue(), containsString( "when ax.\"dx\" in ('deabcdefghA') then sum(value) " ) );
+        assertThat( sql.getValue(), containsString( "when ax.\"dx\" in ('deabcdefghB') then count(value) " ) );
+        assertThat( sql.getValue(), containsString( "end as value " ) );
+    }
+
     private void mockRowSet()
     {
         // Simulate no rows
@@ -0,0 +1,136 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.DhisConvenienceTest.*;
+import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.system.grid.ListGrid;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.Lists;
+
+public class JdbcRawAnalyticsManagerTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @Captor
+    private ArgumentCaptor<String> sql;
+
+    private JdbcRawAnalyticsManager subject;
+
+    @Before
+    public void setUp()
+    {
+        subject = new JdbcRawAnalyticsManager( jdbcTemplate );
+    }
+
+    @Test
+    public void verifyRowsAreAddedToGridFromResultSet()
+        throws Exception
+    {
+        DataElement deA = createDataElement( 'A', ValueType.INTEGER, AggregationType.SUM );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( deA ) )
+            .withStartDate( getDate( 2020, 1, 1 ) )
+            .withEndDate( getDate( 2020, 12, 31 ) )
+            .withTableName( "analytics" )
+            .build();
+
+        when( jdbcTemplate.getFetchSize() ).thenReturn( 1000 );
+        when( connection.getAutoCommit() ).thenReturn( true );
+        when( connection.createStatement() ).thenReturn( statement );
+        when( statement.executeQuery( anyString() ) ).thenReturn( resultSet );
+        when( resultSet.next() ).thenReturn( true, true, false );
+        when( resultSet.getString( DATA_X_DIM_ID ) ).thenReturn( deA.getUid() );
+        when( resultSet.getDouble( "value" ) ).thenReturn( 3d, 5d );
+
+        doAnswer( invocation -> {
+            ConnectionCallback<?> callback = invocation.getArgument( 0 );
+            return callback.doInConnection( connection );
+        } ).when( jdbcTemplate ).execute( any( ConnectionCallback.class ) );
+
+        Grid grid = subject.getRawDataValues( params, new ListGrid() );
+
+        verify( statement ).executeQuery( sql.capture() );
+
+        InOrder inOrder = inOrder( connection, statement );
+        inOrder.verify( connection ).setAutoCommit( false );
+        inOrder.verify( statement ).setFetchSize( 1000 );
+        inOrder.verify( connection ).setAutoCommit( true );
+
+        assertThat( sql.getValue(), containsString( "from analytics as ax" ) );
+        assertEquals( 2, grid.getHeight() );
+        assertEquals( deA.getUid(), grid.getValue( 0, 0 ) );
+        assertEquals( 3d, grid.getValue( 0, 1 ) );
+        assertEquals( 5d, grid.getValue( 1, 1 ) );
+    }
+}
@@ -34,6 +34,7 @@ import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObjectUtils.COMPOSITE_DIM_OBJECT_PLAIN_SEP;
 import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -84,6 +85,8 @@ import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.period.QuarterlyPeriodType;
 import org.hisp.dhis.period.YearlyPeriodType;
 import org.hisp.dhis.program.Program;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -116,6 +119,9 @@ public class QueryPlannerTest
     @Autowired
     private OrganisationUnitService organisationUnitService;
 
+    @Autowired
+    private SystemSettingManager systemSettingManager;
+
     // -------------------------------------------------------------------------
     // Fixture
     // -------------------------------------------------------------------------
@@ -262,6 +268,12 @@ public class QueryPlannerTest
         dataElementService.addDataElementGroupSet( dgsB );
     }
 
+    @Override
+    public void tearDownTest()
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.ANALYTICS_MERGE_AGGREGATION_TYPE_QUERIES, false );
+    }
+
     // -------------------------------------------------------------------------
     // Tests
     // -------------------------------------------------------------------------
@@ -1167,6 +1179,123 @@ public class QueryPlannerTest
         }
     }
 
+    /**
+     * Query has data elements with sum and average sum org unit aggregation
+     * types and periods with the same number of days. Merges the two queries
+     * split on aggregation type into one query.
+     */
+    @Test
+    public void planQueryMergeAggregationTypes()
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.ANALYTICS_MERGE_AGGREGATION_TYPE_QUERIES, true );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( getList( deA, deB, deC, deD ) )
+            .withOrganisationUnits( getList( ouA, ouB ) )
+            .withPeriods( getList( createPeriod( "200101" ), createPeriod( "200103" ) ) ).build();
+
+        QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder().
+            withOptimalQueries( 1 ).withTableType( ANALYTICS_TABLE_TYPE ).build();
+
+        DataQueryGroups queryGroups = queryPlanner.planQuery( params, plannerParams );
+
+        assertEquals( 1, queryGroups.getAllQueries().size() );
+        assertEquals( 1, queryGroups.getSequentialQueries().size() );
+
+        DataQueryParams query = queryGroups.getAllQueries().get( 0 );
+
+        assertEquals( 4, query.getDataElements().size() );
+        assertTrue( query.hasAggregationTypeDataItems() );
+        assertEquals( 2, query.getAggregationTypeDataItems().size() );
+        assertEquals( getList( deA, deB ), query.getAggregationTypeDataItems().get( AnalyticsAggregationType.SUM ) );
+        assertDimensionNameNotNull( query );
+    }
+
+    /**
+     * Query has data elements with sum and average sum org unit aggregation
+     * types and periods with the same number of days. Merges the two queries
+     * split on aggregation type, then splits the merged query on data elements
+     * to satisfy optimal.
+     */
+    @Test
+    public void planQueryMergeAggregationTypesSplitOnDataElements()
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.ANALYTICS_MERGE_AGGREGATION_TYPE_QUERIES, true );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( getList( deA, deB, deC, deD ) )
+            .withOrganisationUnits( getList( ouA, ouB ) )
+            .withPeriods( getList( createPeriod( "200101" ), createPeriod( "200103" ) ) ).build();
+
+        QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder().
+            withOptimalQueries( 4 ).withTableType( ANALYTICS_TABLE_TYPE ).build();
+
+        DataQueryGroups queryGroups = queryPlanner.planQuery( params, plannerParams );
+
+        assertEquals( 4, queryGroups.getAllQueries().size() );
+        assertEquals( 1, queryGroups.getSequentialQueries().size() );
+        assertEquals( 4, queryGroups.getLargestGroupSize() );
+
+        for ( DataQueryParams query : queryGroups.getAllQueries() )
+        {
+            assertEquals( 1, query.getDataElements().size() );
+            assertTrue( query.hasAggregationTypeDataItems() );
+        }
+    }
+
+    /**
+     * Query has data elements with sum aggregation type and data elements which
+     * are disaggregated. Does not merge the queries split on aggregation type.
+     */
+    @Test
+    public void planQueryMergeAggregationTypesSkipDisaggregation()
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.ANALYTICS_MERGE_AGGREGATION_TYPE_QUERIES, true );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( getList( deA, deI, deJ ) )
+            .withOrganisationUnits( getList( ouA ) )
+            .withPeriods( getList( createPeriod( "201001" ) ) ).build();
+
+        QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder().
+            withOptimalQueries( 1 ).withTableType( ANALYTICS_TABLE_TYPE ).build();
+
+        DataQueryGroups queryGroups = queryPlanner.planQuery( params, plannerParams );
+
+        assertEquals( 2, queryGroups.getAllQueries().size() );
+        assertEquals( 2, queryGroups.getSequentialQueries().size() );
+
+        for ( DataQueryParams query : queryGroups.getAllQueries() )
+        {
+            assertFalse( query.hasAggregationTypeDataItems() );
+        }
+    }
+
+    /**
+     * Merging of queries on aggregation type is disabled by default.
+     */
+    @Test
+    public void planQueryMergeAggregationTypesDisabled()
+    {
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( getList( deA, deB, deC, deD ) )
+            .withOrganisationUnits( getList( ouA, ouB ) )
+            .withPeriods( getList( createPeriod( "200101" ), createPeriod( "200103" ) ) ).build();
+
+        QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder().
+            withOptimalQueries( 1 ).withTableType( ANALYTICS_TABLE_TYPE ).build();
+
+        DataQueryGroups queryGroups = queryPlanner.planQuery( params, plannerParams );
+
+        assertEquals( 2, queryGroups.getAllQueries().size() );
+        assertEquals( 2, queryGroups.getSequentialQueries().size() );
+
+        for ( DataQueryParams query : queryGroups.getAllQueries() )
+        {
+            assertFalse( query.hasAggregationTypeDataItems() );
+        }
+    }
+
     @Test
     public void testWithTableTypeAndPartition()
     {
@@ -43,6 +43,7 @@ import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 
@@ -68,6 +69,7 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramDataElementDimensionItem;
+import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.junit.Before;
 import org.junit.Rule;
@@ -84,6 +86,8 @@ public class QueryValidatorTest
     @Rule
     public MockitoRule mockitoRule = MockitoJUnit.rule();
 
+    private SystemSettingManager systemSettingManager;
+
     private DefaultQueryValidator queryValidator;
 
     // -------------------------------------------------------------------------
@@ -117,7 +121,8 @@ public class QueryValidatorTest
     @Before
     public void setUp()
     {
-        queryValidator = new DefaultQueryValidator( mock( SystemSettingManager.class ),
+        systemSettingManager = mock( SystemSettingManager.class );
+        queryValidator = new DefaultQueryValidator( systemSettingManager,
             mock( NestedIndicatorCyclicDependencyInspector.class ) );
         PeriodType pt = new MonthlyPeriodType();
 
@@ -331,6 +336,32 @@ public class QueryValidatorTest
         queryValidator.validate( params );
     }
 
+    @Test
+    public void validateEstimatedRowCountSuccess()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_ROW_ESTIMATE ) ).thenReturn( 1000 );
+
+        queryValidator.validateEstimatedRowCount( 1000 );
+    }
+
+    @Test
+    public void validateEstimatedRowCountNoLimit()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_ROW_ESTIMATE ) ).thenReturn( 0 );
+
+        queryValidator.validateEstimatedRowCount( Long.MAX_VALUE );
+    }
+
+    @Test
+    public void validateEstimatedRowCountExceeded()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_ROW_ESTIMATE ) ).thenReturn( 1000 );
+
+        ThrowingRunnable runnable = () -> queryValidator.validateEstimatedRowCount( 1001 );
+        IllegalQueryException ex = assertThrows( "Error code mismatch", IllegalQueryException.class, runnable );
+        assertEquals( ErrorCode.E7134, ex.getErrorCode() );
+    }
+
     /**
      * Asserts whether the given error code is thrown by the query validator
      * for the given query.
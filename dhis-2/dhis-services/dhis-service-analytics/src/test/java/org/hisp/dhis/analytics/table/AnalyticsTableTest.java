@@ -29,8 +29,11 @@ package org.hisp.dhis.analytics.table;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Date;
 import java.util.List;
 
 import org.hisp.dhis.analytics.AnalyticsTable;
@@ -88,6 +91,29 @@ public class AnalyticsTableTest
         assertEquals( "analytics_event_temp_uida_2015", partitionB.getTempTableName() );
     }
 
+    @Test
+    public void testGetLatestPartitionUpdatedSinceDate()
+    {
+        Date startDate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date watermark = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date endDate = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTable tableA = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() );
+
+        tableA.addPartitionTable( AnalyticsTablePartition.LATEST_PARTITION, startDate, endDate );
+
+        AnalyticsTablePartition partition = tableA.getLatestPartition();
+
+        assertFalse( partition.hasWatermark() );
+        assertEquals( startDate, partition.getUpdatedSinceDate() );
+
+        partition.setWatermark( watermark );
+
+        assertTrue( partition.hasWatermark() );
+        assertEquals( watermark, partition.getUpdatedSinceDate() );
+        assertEquals( startDate, partition.getStartDate() );
+    }
+
     @Test
     public void testEquals()
     {
@@ -32,6 +32,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnit;
@@ -42,13 +43,18 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.hisp.dhis.analytics.AnalyticsIndex;
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTableManager;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.category.CategoryService;
@@ -65,7 +71,9 @@ import org.joda.time.DateTime;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import static org.hisp.dhis.util.DateUtils.getLongDateString;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -80,6 +88,12 @@ public class JdbcAnalyticsTableManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private StatementBuilder statementBuilder;
+
+    @Mock
+    private PartitionManager partitionManager;
+
     @Rule
     public MockitoRule mockitoRule = MockitoJUnit.rule();
 
@@ -90,8 +104,8 @@ public class JdbcAnalyticsTableManagerTest
     {
         subject = new JdbcAnalyticsTableManager( mock( IdentifiableObjectManager.class ), mock( OrganisationUnitService.class ),
             mock( CategoryService.class ), systemSettingManager, mock( DataApprovalLevelService.class ),
-            mock( ResourceTableService.class ), mock( AnalyticsTableHookService.class ), mock( StatementBuilder.class ),
-            mock( PartitionManager.class ), mock( DatabaseInfo.class ), jdbcTemplate );
+            mock( ResourceTableService.class ), mock( AnalyticsTableHookService.class ), statementBuilder,
+            partitionManager, mock( DatabaseInfo.class ), jdbcTemplate );
     }
 
     @Test
@@ -183,4 +197,143 @@ public class JdbcAnalyticsTableManagerTest
 
         subject.getAnalyticsTables( params );
     }
+
+    @Test
+    public void testCreateIndexesAndAnalyzeTableWhenIndexed()
+    {
+        when( statementBuilder.getAnalyze( Mockito.anyString() ) ).thenAnswer( i -> "analyze " + i.getArgument( 0 ) + ";" );
+
+        ConcurrentLinkedQueue<AnalyticsIndex> indexes = new ConcurrentLinkedQueue<>( Lists.newArrayList(
+            new AnalyticsIndex( "analytics_2018_temp", Lists.newArrayList( "dx" ), null ),
+            new AnalyticsIndex( "analytics_2018_temp", Lists.newArrayList( "ou" ), null ),
+            new AnalyticsIndex( "analytics_2019_temp", Lists.newArrayList( "dx" ), null ) ) );
+
+        Map<String, AtomicInteger> pendingIndexes = new HashMap<>();
+        pendingIndexes.put( "analytics_2018_temp", new AtomicInteger( 2 ) );
+        pendingIndexes.put( "analytics_2019_temp", new AtomicInteger( 1 ) );
+
+        subject.createIndexesAndAnalyzeAsync( indexes, pendingIndexes );
+
+        InOrder inOrder = Mockito.inOrder( jdbcTemplate );
+
+        inOrder.verify( jdbcTemplate, Mockito.times( 2 ) ).execute( ArgumentMatchers.contains( " on analytics_2018_temp " ) );
+        inOrder.verify( jdbcTemplate ).execute( "analyze analytics_2018_temp;" );
+        inOrder.verify( jdbcTemplate ).execute( ArgumentMatchers.contains( " on analytics_2019_temp " ) );
+        inOrder.verify( jdbcTemplate ).execute( "analyze analytics_2019_temp;" );
+
+        assertTrue( indexes.isEmpty() );
+        assertEquals( 0, pendingIndexes.get( "analytics_2018_temp" ).get() );
+    }
+
+    @Test
+    public void testRemoveUpdatedDataRebuildsAffectedRollupTables()
+    {
+        Date lastFullTableUpdate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date lastLatestPartitionUpdate = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date startTime = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .build();
+
+        List<Map<String, Object>> queryResp = Lists.newArrayList();
+        queryResp.add( ImmutableMap.of( "dataelementid", 1 ) );
+
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ).thenReturn( lastFullTableUpdate );
+        when( systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) ).thenReturn( lastLatestPartitionUpdate );
+        when( jdbcTemplate.queryForList( Mockito.anyString() ) ).thenReturn( queryResp );
+        when( jdbcTemplate.queryForList( ArgumentMatchers.startsWith( "select distinct ax.\"year\"" ), ArgumentMatchers.eq( Integer.class ) ) )
+            .thenReturn( Lists.newArrayList( 2017, 2018 ) );
+        when( jdbcTemplate.queryForList( ArgumentMatchers.startsWith( "select column_name from information_schema.columns" ), ArgumentMatchers.eq( String.class ) ) )
+            .thenReturn( Lists.newArrayList( "dx", "year" ) );
+        when( partitionManager.tableExists( "analytics_rollup_2018" ) ).thenReturn( true );
+
+        List<AnalyticsTable> tables = subject.getAnalyticsTables( params );
+
+        subject.removeUpdatedData( params, tables );
+
+        Mockito.verify( jdbcTemplate ).execute( ArgumentMatchers.startsWith( "delete from \"analytics\" ax" ) );
+        Mockito.verify( jdbcTemplate ).execute( "create table analytics_rollup_temp_2018 as " +
+            "select \"dx\",\"year\", sum(value) as value from analytics_2018 where value is not null group by \"dx\",\"year\"" );
+        Mockito.verify( jdbcTemplate ).execute( "drop table if exists analytics_rollup_2018 cascade; " +
+            "alter table analytics_rollup_temp_2018 rename to analytics_rollup_2018;" );
+        Mockito.verify( jdbcTemplate, Mockito.never() ).execute( ArgumentMatchers.contains( "analytics_rollup_temp_2017" ) );
+    }
+
+    @Test
+    public void testPopulateLatestPartitionCarriesOverDataSinceWatermark()
+    {
+        Date startDate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date watermark = new DateTime( 2019, 3, 1, 9, 0 ).toDate();
+        Date endDate = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        mockPopulateTableSettings();
+
+        when( partitionManager.tableExists( "analytics_0" ) ).thenReturn( true );
+        when( jdbcTemplate.queryForObject( ArgumentMatchers.startsWith( "select cast(obj_description('analytics_0'" ), ArgumentMatchers.eq( Date.class ) ) )
+            .thenReturn( watermark );
+
+        AnalyticsTablePartition partition = getLatestPartition( startDate, endDate );
+
+        subject.populateTablesAsync( getParams( endDate ), new ConcurrentLinkedQueue<>( Lists.newArrayList( partition ) ) );
+
+        assertEquals( watermark, partition.getWatermark() );
+        assertEquals( watermark, partition.getUpdatedSinceDate() );
+
+        InOrder inOrder = Mockito.inOrder( jdbcTemplate );
+        inOrder.verify( jdbcTemplate ).execute( ArgumentMatchers.matches(
+            "insert into analytics_temp_0 \\(.*\\) select .* from analytics_0 ax where not \\(ax\\.id in \\(.*" +
+            "dv\\.lastupdated >= '" + getLongDateString( watermark ) + "'.*" ) );
+        inOrder.verify( jdbcTemplate, Mockito.times( 4 ) ).execute( ArgumentMatchers.matches(
+            "insert into analytics_temp_0 \\(.* and dv\\.lastupdated >= '" + getLongDateString( watermark ) + "' .*" ) );
+        inOrder.verify( jdbcTemplate ).execute( "comment on table analytics_temp_0 is '" + getLongDateString( endDate ) + "'" );
+    }
+
+    @Test
+    public void testPopulateLatestPartitionFullyWithoutWatermark()
+    {
+        Date startDate = new DateTime( 2019, 3, 1, 2, 0 ).toDate();
+        Date endDate = new DateTime( 2019, 3, 1, 10, 0 ).toDate();
+
+        mockPopulateTableSettings();
+
+        when( partitionManager.tableExists( "analytics_0" ) ).thenReturn( true );
+        when( jdbcTemplate.queryForObject( ArgumentMatchers.startsWith( "select cast(obj_description('analytics_0'" ), ArgumentMatchers.eq( Date.class ) ) )
+            .thenReturn( null );
+
+        AnalyticsTablePartition partition = getLatestPartition( startDate, endDate );
+
+        subject.populateTablesAsync( getParams( endDate ), new ConcurrentLinkedQueue<>( Lists.newArrayList( partition ) ) );
+
+        assertNull( partition.getWatermark() );
+        assertEquals( startDate, partition.getUpdatedSinceDate() );
+
+        Mockito.verify( jdbcTemplate, Mockito.never() ).execute( ArgumentMatchers.contains( "where not (" ) );
+        Mockito.verify( jdbcTemplate, Mockito.times( 4 ) ).execute( ArgumentMatchers.matches(
+            "insert into analytics_temp_0 \\(.* and dv\\.lastupdated >= '" + getLongDateString( startDate ) + "' .*" ) );
+        Mockito.verify( jdbcTemplate ).execute( "comment on table analytics_temp_0 is '" + getLongDateString( endDate ) + "'" );
+    }
+
+    private void mockPopulateTableSettings()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.SKIP_DATA_TYPE_VALIDATION_IN_ANALYTICS_TABLE_EXPORT ) ).thenReturn( false );
+        when( systemSettingManager.getSystemSetting( SettingKey.RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT ) ).thenReturn( false );
+        when( systemSettingManager.getSystemSetting( SettingKey.IGNORE_ANALYTICS_APPROVAL_YEAR_THRESHOLD ) ).thenReturn( -1 );
+    }
+
+    private AnalyticsTablePartition getLatestPartition( Date startDate, Date endDate )
+    {
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() );
+
+        return new AnalyticsTablePartition( table, AnalyticsTablePartition.LATEST_PARTITION, startDate, endDate, false );
+    }
+
+    private AnalyticsTableUpdateParams getParams( Date startTime )
+    {
+        return AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( startTime )
+            .withLatestPartition()
+            .build();
+    }
 }
@@ -0,0 +1,147 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static org.hisp.dhis.resourcetable.ResourceTableType.CATEGORY_OPTION_COMBO_NAME;
+import static org.hisp.dhis.resourcetable.ResourceTableType.CATEGORY_STRUCTURE;
+import static org.hisp.dhis.resourcetable.ResourceTableType.ORG_UNIT_GROUP_SET_STRUCTURE;
+import static org.hisp.dhis.resourcetable.ResourceTableType.ORG_UNIT_STRUCTURE;
+import static org.hisp.dhis.resourcetable.ResourceTableType.PERIOD_STRUCTURE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hisp.dhis.resourcetable.ResourceTableType;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class ResourceTableGraphTest
+{
+    private final List<ResourceTableType> generated = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRunSequentialInInsertionOrder()
+    {
+        Set<ResourceTableType> result = getGraph( Sets.newHashSet( ResourceTableType.values() ) ).run( null );
+
+        assertEquals( Sets.newHashSet( ORG_UNIT_STRUCTURE, ORG_UNIT_GROUP_SET_STRUCTURE, CATEGORY_OPTION_COMBO_NAME,
+            CATEGORY_STRUCTURE, PERIOD_STRUCTURE ), result );
+        assertEquals( Sets.newHashSet( result ), Sets.newHashSet( generated ) );
+        assertEquals( ORG_UNIT_STRUCTURE, generated.get( 0 ) );
+        assertEquals( PERIOD_STRUCTURE, generated.get( 4 ) );
+    }
+
+    @Test
+    public void testRunParallelRespectsDependencies()
+    {
+        Set<ResourceTableType> result = getGraph( Sets.newHashSet( ResourceTableType.values() ) ).run( executor );
+
+        assertEquals( 5, result.size() );
+        assertEquals( 5, generated.size() );
+        assertTrue( generated.indexOf( ORG_UNIT_STRUCTURE ) < generated.indexOf( ORG_UNIT_GROUP_SET_STRUCTURE ) );
+    }
+
+    @Test
+    public void testSkipUnchangedTables()
+    {
+        Set<ResourceTableType> result = getGraph( Sets.newHashSet( PERIOD_STRUCTURE ) ).run( executor );
+
+        assertEquals( Sets.newHashSet( PERIOD_STRUCTURE ), result );
+        assertEquals( 1, generated.size() );
+    }
+
+    @Test
+    public void testGenerateDependentsOfChangedTables()
+    {
+        Set<ResourceTableType> result = getGraph( Sets.newHashSet( ORG_UNIT_STRUCTURE ) ).run( null );
+
+        assertEquals( Sets.newHashSet( ORG_UNIT_STRUCTURE, ORG_UNIT_GROUP_SET_STRUCTURE ), result );
+
+        generated.clear();
+        result = getGraph( Sets.newHashSet( CATEGORY_OPTION_COMBO_NAME ) ).run( executor );
+
+        assertEquals( Sets.newHashSet( CATEGORY_OPTION_COMBO_NAME ), result );
+        assertFalse( generated.contains( ORG_UNIT_STRUCTURE ) );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testFailurePropagates()
+    {
+        new ResourceTableGraph( type -> true )
+            .add( ORG_UNIT_STRUCTURE, () -> {
+                throw new IllegalStateException( "Failed" );
+            } )
+            .add( ORG_UNIT_GROUP_SET_STRUCTURE, () -> generated.add( ORG_UNIT_GROUP_SET_STRUCTURE ),
+                ORG_UNIT_STRUCTURE )
+            .run( executor );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testDependencyMustBeAddedFirst()
+    {
+        new ResourceTableGraph( type -> true )
+            .add( ORG_UNIT_GROUP_SET_STRUCTURE, () -> {}, ORG_UNIT_STRUCTURE );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private ResourceTableGraph getGraph( Set<ResourceTableType> changed )
+    {
+        return new ResourceTableGraph( changed::contains )
+            .add( ORG_UNIT_STRUCTURE, () -> generate( ORG_UNIT_STRUCTURE ) )
+            .add( CATEGORY_OPTION_COMBO_NAME, () -> generate( CATEGORY_OPTION_COMBO_NAME ) )
+            .add( ORG_UNIT_GROUP_SET_STRUCTURE, () -> generate( ORG_UNIT_GROUP_SET_STRUCTURE ), ORG_UNIT_STRUCTURE )
+            .add( CATEGORY_STRUCTURE, () -> generate( CATEGORY_STRUCTURE ) )
+            .add( PERIOD_STRUCTURE, () -> generate( PERIOD_STRUCTURE ) );
+    }
+
+    private void generate( ResourceTableType type )
+    {
+        generated.add( type );
+    }
+}
@@ -0,0 +1,76 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RollupTableUtilsTest
+{
+    @Test
+    public void testGetRollupTableNames()
+    {
+        assertEquals( "analytics_rollup", RollupTableUtils.getRollupTableName( "analytics" ) );
+        assertEquals( "analytics_rollup_temp_2019", RollupTableUtils.getTempRollupPartitionName( "analytics", 2019 ) );
+        assertEquals( "analytics", RollupTableUtils.getBaseTableName( "analytics_rollup" ) );
+    }
+
+    @Test
+    public void testIsRollupTableName()
+    {
+        assertTrue( RollupTableUtils.isRollupTableName( "analytics_rollup" ) );
+
+        assertFalse( RollupTableUtils.isRollupTableName( "analytics" ) );
+        assertFalse( RollupTableUtils.isRollupTableName( null ) );
+    }
+
+    @Test
+    public void testIsRollupColumn()
+    {
+        assertTrue( RollupTableUtils.isRollupColumn( quote( "dx" ), 3 ) );
+        assertTrue( RollupTableUtils.isRollupColumn( quote( "co" ), 3 ) );
+        assertTrue( RollupTableUtils.isRollupColumn( quote( "year" ), 3 ) );
+        assertTrue( RollupTableUtils.isRollupColumn( quote( "yearly" ), 3 ) );
+        assertTrue( RollupTableUtils.isRollupColumn( "quarterly", 3 ) );
+        assertTrue( RollupTableUtils.isRollupColumn( quote( "uidlevel3" ), 3 ) );
+        assertTrue( RollupTableUtils.isRollupColumn( quote( "J5jldMd8OHv" ), 3 ) );
+
+        assertFalse( RollupTableUtils.isRollupColumn( quote( "uidlevel4" ), 3 ) );
+        assertFalse( RollupTableUtils.isRollupColumn( quote( "monthly" ), 3 ) );
+        assertFalse( RollupTableUtils.isRollupColumn( quote( "financialapril" ), 3 ) );
+        assertFalse( RollupTableUtils.isRollupColumn( quote( "pe" ), 3 ) );
+        assertFalse( RollupTableUtils.isRollupColumn( quote( "ou" ), 3 ) );
+        assertFalse( RollupTableUtils.isRollupColumn( quote( "pestartdate" ), 3 ) );
+        assertFalse( RollupTableUtils.isRollupColumn( quote( "approvallevel" ), 3 ) );
+    }
+}
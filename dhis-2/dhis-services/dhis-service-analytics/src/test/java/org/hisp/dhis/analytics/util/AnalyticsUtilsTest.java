@@ -665,4 +665,37 @@ public class AnalyticsUtilsTest
 
 
     }
+
+    @Test
+    public void testGetKeyComponent()
+    {
+        assertEquals( "deA", AnalyticsUtils.getKeyComponent( "deA-201801-ouA", 0 ) );
+        assertEquals( "201801", AnalyticsUtils.getKeyComponent( "deA-201801-ouA", 1 ) );
+        assertEquals( "ouA", AnalyticsUtils.getKeyComponent( "deA-201801-ouA", 2 ) );
+        assertNull( AnalyticsUtils.getKeyComponent( "deA-201801-ouA", 3 ) );
+    }
+
+    @Test
+    public void testReplaceKeyComponent()
+    {
+        assertEquals( "deA-2018Q1-ouA", AnalyticsUtils.replaceKeyComponent( "deA-201801-ouA", 1, "2018Q1" ) );
+        assertEquals( "deB-201801-ouA", AnalyticsUtils.replaceKeyComponent( "deA-201801-ouA", 0, "deB" ) );
+        assertEquals( "deA-201801-ouB", AnalyticsUtils.replaceKeyComponent( "deA-201801-ouA", 2, "ouB" ) );
+        assertEquals( "2018", AnalyticsUtils.replaceKeyComponent( "201801", 0, "2018" ) );
+    }
+
+    @Test
+    public void testRemoveKeyComponent()
+    {
+        assertEquals( "201801-ouA", AnalyticsUtils.removeKeyComponent( "deA-201801-ouA", 0 ) );
+        assertEquals( "deA-ouA", AnalyticsUtils.removeKeyComponent( "deA-201801-ouA", 1 ) );
+        assertEquals( "deA-201801", AnalyticsUtils.removeKeyComponent( "deA-201801-ouA", 2 ) );
+        assertEquals( "", AnalyticsUtils.removeKeyComponent( "deA", 0 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testRemoveKeyComponentOutOfBounds()
+    {
+        AnalyticsUtils.removeKeyComponent( "deA-201801", 2 );
+    }
 }
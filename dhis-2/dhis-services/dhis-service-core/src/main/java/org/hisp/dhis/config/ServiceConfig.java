@@ -28,7 +28,10 @@ package org.hisp.dhis.config;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.i18n.ui.resourcebundle.DefaultResourceBundleManager;
 import org.hisp.dhis.i18n.ui.resourcebundle.ResourceBundleManager;
@@ -42,6 +45,7 @@ import org.hisp.dhis.sms.config.SmsMessageSender;
 import org.hisp.dhis.user.UserSettingService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.*;
@@ -60,6 +64,62 @@ public class ServiceConfig
         return threadPoolTaskScheduler;
     }
 
+    /**
+     * Executor for loading the suppliers of the event import work context in
+     * parallel. Each thread uses its own connection, hence the size also bounds
+     * the number of connections used for loading work contexts.
+     */
+    @Bean( "eventImportContextTaskExecutor" )
+    public ThreadPoolTaskExecutor eventImportContextTaskExecutor()
+    {
+        return newTaskExecutor( "EVENT-IMPORT-CONTEXT-", Math.min( 8, Runtime.getRuntime().availableProcessors() ) );
+    }
+
+    /**
+     * Executor for evaluating program rules of a batch in parallel. Rule
+     * engine evaluations are CPU bound, hence the default size is bounded by
+     * the number of processors.
+     */
+    @Bean( "ruleEngineTaskExecutor" )
+    public ThreadPoolTaskExecutor ruleEngineTaskExecutor( DhisConfigurationProvider config )
+    {
+        return newTaskExecutor( "PROGRAM-RULE-ENGINE-", getPoolSize( config, ConfigurationKey.RULE_ENGINE_THREAD_POOL_SIZE, 8 ) );
+    }
+
+    /**
+     * Executor for prefetching the data of predictor organisation unit chunks.
+     * Each thread uses its own connection, hence the size also bounds the
+     * number of connections used for prefetching.
+     */
+    @Bean( "predictorTaskExecutor" )
+    public ThreadPoolTaskExecutor predictorTaskExecutor( DhisConfigurationProvider config )
+    {
+        return newTaskExecutor( "PREDICTOR-", getPoolSize( config, ConfigurationKey.PREDICTOR_THREAD_POOL_SIZE, 4 ) );
+    }
+
+    /**
+     * Executor for generating independent resource tables in parallel. Each
+     * table is generated in its own transaction, hence the size also bounds
+     * the number of connections used for resource table generation.
+     */
+    @Bean( "resourceTableTaskExecutor" )
+    public ThreadPoolTaskExecutor resourceTableTaskExecutor( DhisConfigurationProvider config )
+    {
+        return newTaskExecutor( "RESOURCE-TABLE-", getPoolSize( config, ConfigurationKey.RESOURCE_TABLE_THREAD_POOL_SIZE, 4 ) );
+    }
+
+    /**
+     * Executor for reading data values of data value set imports ahead of the
+     * importing thread. Each import which reads ahead uses one thread while it
+     * runs, hence the size bounds the number of imports reading ahead at once.
+     * Further imports wait for a thread to become available.
+     */
+    @Bean( "dataValueImportReaderTaskExecutor" )
+    public ThreadPoolTaskExecutor dataValueImportReaderTaskExecutor()
+    {
+        return newTaskExecutor( "DATAVALUE-IMPORT-READER-", Math.min( 8, Runtime.getRuntime().availableProcessors() ) );
+    }
+
     @Bean( "org.hisp.dhis.setting.StyleManager" )
     public StyleManager styleManager( SystemSettingManager systemSettingManager, UserSettingService userSettingService,
         I18nManager i18nManager )
@@ -94,4 +154,29 @@ public class ServiceConfig
     {
         return new DefaultResourceBundleManager();
     }
+
+    /**
+     * Returns the pool size configured for the given key, or if not configured,
+     * the number of processors up to the given max default size.
+     */
+    private static int getPoolSize( DhisConfigurationProvider config, ConfigurationKey key, int maxDefaultSize )
+    {
+        int poolSize = NumberUtils.toInt( config.getProperty( key ), 0 );
+
+        return poolSize > 0 ? poolSize : Math.min( maxDefaultSize, Runtime.getRuntime().availableProcessors() );
+    }
+
+    /**
+     * Creates a fixed size executor of daemon threads which is initialized and
+     * shut down with the application context.
+     */
+    private static ThreadPoolTaskExecutor newTaskExecutor( String threadNamePrefix, int poolSize )
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( poolSize );
+        executor.setMaxPoolSize( poolSize );
+        executor.setThreadNamePrefix( threadNamePrefix );
+        executor.setDaemon( true );
+        return executor;
+    }
 }
@@ -356,6 +356,13 @@ public class DefaultDataValueService
         return dataValueStore.getDeflatedDataValues( params );
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<DeflatedDataValue> getExistingDataValues( Collection<DataValue> dataValues )
+    {
+        return dataValueStore.getExistingDataValues( dataValues );
+    }
+
     @Override
     @Transactional(readOnly = true)
     public int getDataValueCount( int days )
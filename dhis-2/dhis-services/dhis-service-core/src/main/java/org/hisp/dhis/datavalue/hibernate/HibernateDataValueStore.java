@@ -437,7 +437,7 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 
         if ( params.hasLastUpdated() )
         {
-            where += sqlHelper.whereAnd() + "dv.lastupdated >= " + DateUtils.getMediumDateString( params.getLastUpdated() );
+            where += sqlHelper.whereAnd() + "dv.lastupdated >= '" + DateUtils.getMediumDateString( params.getLastUpdated() ) + "'";
         }
 
         if ( !params.isIncludeDeleted() )
@@ -476,6 +476,57 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
         return result;
     }
 
+    @Override
+    public List<DeflatedDataValue> getExistingDataValues( Collection<DataValue> dataValues )
+    {
+        if ( dataValues == null || dataValues.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        Set<String> rows = new HashSet<>();
+
+        for ( DataValue dataValue : dataValues )
+        {
+            rows.add( getDataValueRow( dataValue.getDataElement().getId(), dataValue.getPeriod().getId(),
+                dataValue.getSource().getId(), dataValue.getCategoryOptionCombo().getId(), dataValue.getAttributeOptionCombo().getId() ) );
+        }
+
+        String sql = "select dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid, " +
+            "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted " +
+            "from datavalue dv " +
+            "where (dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid) " +
+            "in (" + String.join( ",", rows ) + ")";
+
+        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+
+        List<DeflatedDataValue> result = new ArrayList<>();
+
+        while ( rowSet.next() )
+        {
+            Integer dataElementId = rowSet.getInt( 1 );
+            Integer periodId = rowSet.getInt( 2 );
+            Integer organisationUnitId = rowSet.getInt( 3 );
+            Integer categoryOptionComboId = rowSet.getInt( 4 );
+            Integer attributeOptionComboId = rowSet.getInt( 5 );
+            String value = rowSet.getString( 6 );
+            String storedBy = rowSet.getString( 7 );
+            Date created = rowSet.getTimestamp( 8 );
+            Date lastUpdated = rowSet.getTimestamp( 9 );
+            String comment = rowSet.getString( 10 );
+            boolean followup = rowSet.getBoolean( 11 );
+            boolean deleted = rowSet.getBoolean( 12 );
+
+            result.add( new DeflatedDataValue( dataElementId, periodId,
+                organisationUnitId, categoryOptionComboId, attributeOptionComboId,
+                value, storedBy, created, lastUpdated, comment, followup, deleted ) );
+        }
+
+        log.debug( result.size() + " existing DeflatedDataValues returned for " + dataValues.size() + " data values" );
+
+        return result;
+    }
+
     @Override
     public int getDataValueCountLastUpdatedBetween( Date startDate, Date endDate, boolean includeDeleted )
     {
@@ -513,6 +564,14 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Returns a SQL row value which identifies a data value by its dimensions.
+     */
+    private String getDataValueRow( long dataElementId, long periodId, long orgUnitId, long cocId, long aocId )
+    {
+        return "(" + dataElementId + "," + periodId + "," + orgUnitId + "," + cocId + "," + aocId + ")";
+    }
+
     /**
      * Gets a list of DataElementOperands to use for SQL query.
      *
@@ -35,6 +35,7 @@ import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.category.CategoryOptionCombo;
@@ -489,6 +490,25 @@ public class DataValueServiceTest
         assertEquals( 1, dataValueService.getDataValues(  sourceA,  periodA, Lists.newArrayList( dataElementA, dataElementB ), optionCombo ).size() );
     }
 
+    @Test
+    public void testGetExistingDataValues()
+    {
+        dataValueService.addDataValue( new DataValue( dataElementA, periodA, sourceA, optionCombo, optionCombo, "1" ) );
+        dataValueService.addDataValue( new DataValue( dataElementA, periodB, sourceA, optionCombo, optionCombo, "2" ) );
+        dataValueService.addDataValue( new DataValue( dataElementB, periodB, sourceB, optionCombo, optionCombo, "3" ) );
+
+        DataValue dataValueA = dataValueService.getDataValue( dataElementA, periodA, sourceA, optionCombo );
+        DataValue dataValueB = dataValueService.getDataValue( dataElementB, periodB, sourceB, optionCombo );
+        DataValue dataValueC = new DataValue( dataElementB, dataValueA.getPeriod(), sourceB, optionCombo, optionCombo, "4" );
+
+        List<DeflatedDataValue> existingValues = dataValueService.getExistingDataValues( Lists.newArrayList( dataValueA, dataValueB, dataValueC ) );
+
+        assertEquals( Sets.newHashSet( "1", "3" ), existingValues.stream()
+            .map( DeflatedDataValue::getValue )
+            .collect( Collectors.toSet() ) );
+        assertEquals( 2, existingValues.size() );
+    }
+
     @Test
     public void testMissingPeriod()
     {
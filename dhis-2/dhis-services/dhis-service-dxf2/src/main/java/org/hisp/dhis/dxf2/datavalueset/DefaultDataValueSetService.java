@@ -60,7 +60,9 @@ import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.importsummary.BoundedConflictSet;
 import org.hisp.dhis.dxf2.importsummary.ImportConflict;
 import org.hisp.dhis.dxf2.importsummary.ImportCount;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
@@ -107,6 +109,7 @@ import org.hisp.dhis.util.ObjectUtils;
 import org.hisp.quick.BatchHandler;
 import org.hisp.quick.BatchHandlerFactory;
 import org.hisp.staxwax.factory.XMLFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -115,10 +118,13 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -140,6 +146,8 @@ public class DefaultDataValueSetService
 {
     private static final String ERROR_OBJECT_NEEDED_TO_COMPLETE = "Must be provided to complete data set";
     private static final int CACHE_MISS_THRESHOLD = 250;
+    private static final int PARSE_AHEAD_CAPACITY = 1000;
+    private static final int NOTIFY_INTERVAL = 10000;
 
     private final IdentifiableObjectManager identifiableObjectManager;
 
@@ -183,6 +191,8 @@ public class DefaultDataValueSetService
 
     private final ObjectMapper jsonMapper;
 
+    private final Executor dataValueImportReaderExecutor;
+
     public DefaultDataValueSetService(
         IdentifiableObjectManager identifiableObjectManager,
         CategoryService categoryService,
@@ -204,7 +214,8 @@ public class DefaultDataValueSetService
         AclService aclService,
         AggregateAccessManager accessManager,
         DhisConfigurationProvider config,
-        ObjectMapper jsonMapper )
+        ObjectMapper jsonMapper,
+        @Qualifier( "dataValueImportReaderTaskExecutor" ) Executor dataValueImportReaderExecutor )
     {
         checkNotNull( identifiableObjectManager );
         checkNotNull( categoryService );
@@ -227,6 +238,7 @@ public class DefaultDataValueSetService
         checkNotNull( accessManager );
         checkNotNull( config );
         checkNotNull( jsonMapper );
+        checkNotNull( dataValueImportReaderExecutor );
 
         this.identifiableObjectManager = identifiableObjectManager;
         this.categoryService = categoryService;
@@ -249,6 +261,7 @@ public class DefaultDataValueSetService
         this.accessManager = accessManager;
         this.config = config;
         this.jsonMapper = jsonMapper;
+        this.dataValueImportReaderExecutor = dataValueImportReaderExecutor;
     }
 
     /**
@@ -665,7 +678,8 @@ public class DefaultDataValueSetService
         try
         {
             in = StreamUtils.wrapAndCheckCompressionFormat( in );
-            DataValueSet dataValueSet = jsonMapper.readValue( in, DataValueSet.class );
+            DataValueSet dataValueSet = Boolean.TRUE.equals( systemSettingManager.getSystemSetting( SettingKey.DATA_IMPORT_STREAMING_JSON ) ) ?
+                new StreamingJsonDataValueSet( jsonMapper.getFactory().createParser( in ) ) : jsonMapper.readValue( in, DataValueSet.class );
             return saveDataValueSet( importOptions, id, dataValueSet );
         }
         catch ( Exception ex )
@@ -742,6 +756,30 @@ public class DefaultDataValueSetService
      * options will be ignored.
      */
     private ImportSummary saveDataValueSet( ImportOptions importOptions, JobConfiguration id, DataValueSet dataValueSet )
+    {
+        ParseAheadDataValueReader parseAheadReader = Boolean.TRUE.equals( systemSettingManager.getSystemSetting( SettingKey.DATA_IMPORT_PARSE_AHEAD ) ) ?
+            new ParseAheadDataValueReader( dataValueSet, PARSE_AHEAD_CAPACITY, dataValueImportReaderExecutor ) : null;
+
+        try
+        {
+            return saveDataValueSet( importOptions, id, dataValueSet, parseAheadReader );
+        }
+        finally
+        {
+            if ( parseAheadReader != null )
+            {
+                parseAheadReader.close();
+            }
+        }
+    }
+
+    /**
+     * Imports the given data value set. Data values are read through the given
+     * parse-ahead reader, which is started once the outer meta-data is
+     * validated, or directly from the data value set if the reader is null.
+     */
+    private ImportSummary saveDataValueSet( ImportOptions importOptions, JobConfiguration id, DataValueSet dataValueSet,
+        ParseAheadDataValueReader parseAheadReader )
     {
         importOptions = ObjectUtils.firstNonNull( importOptions, ImportOptions.getDefaultImportOptions() );
 
@@ -752,6 +790,13 @@ public class DefaultDataValueSetService
         ImportSummary summary = new ImportSummary()
             .setImportOptions( importOptions );
 
+        Integer maxConflicts = (Integer) systemSettingManager.getSystemSetting( SettingKey.DATA_IMPORT_MAX_CONFLICTS );
+
+        if ( maxConflicts != null && maxConflicts > 0 )
+        {
+            summary.setConflicts( new BoundedConflictSet( maxConflicts ) );
+        }
+
         boolean isIso8601 = calendarService.getSystemCalendar().isIso8601();
         boolean skipLockExceptionCheck = !lockExceptionStore.anyExists();
 
@@ -938,11 +983,18 @@ public class DefaultDataValueSetService
         BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
         BatchHandler<DataValueAudit> auditBatchHandler = skipAudit ? null : batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init();
 
-        int importCount = 0;
-        int updateCount = 0;
-        int deleteCount = 0;
+        ImportCount importCount = new ImportCount();
         int totalCount = 0;
 
+        // ---------------------------------------------------------------------
+        // Existence of data values is resolved per chunk with a single query
+        // when a chunk size is set, otherwise one lookup is done per value
+        // ---------------------------------------------------------------------
+
+        Integer chunkSizeSetting = (Integer) systemSettingManager.getSystemSetting( SettingKey.DATA_IMPORT_EXISTENCE_CHECK_CHUNK_SIZE );
+        int existenceCheckChunkSize = !skipExistingCheck && chunkSizeSetting != null ? chunkSizeSetting : 0;
+        List<ChunkedDataValue> chunk = new ArrayList<>();
+
         // ---------------------------------------------------------------------
         // Data values
         // ---------------------------------------------------------------------
@@ -952,12 +1004,26 @@ public class DefaultDataValueSetService
         clock.logTime( "Validated outer meta-data" );
         notifier.notify( id, notificationLevel, "Importing data values" );
 
-        while ( dataValueSet.hasNextDataValue() )
+        // ---------------------------------------------------------------------
+        // Data values are optionally parsed ahead on a separate thread
+        // ---------------------------------------------------------------------
+
+        if ( parseAheadReader != null )
+        {
+            parseAheadReader.start();
+        }
+
+        while ( parseAheadReader != null ? parseAheadReader.hasNext() : dataValueSet.hasNextDataValue() )
         {
-            org.hisp.dhis.dxf2.datavalue.DataValue dataValue = dataValueSet.getNextDataValue();
+            org.hisp.dhis.dxf2.datavalue.DataValue dataValue = parseAheadReader != null ? parseAheadReader.next() : dataValueSet.getNextDataValue();
 
             totalCount++;
 
+            if ( totalCount % NOTIFY_INTERVAL == 0 )
+            {
+                notifier.update( id, notificationLevel, "Processed " + totalCount + " data values" );
+            }
+
             final DataElement dataElement =
                 dataElementMap.get( trimToNull( dataValue.getDataElement() ), dataElementCallable.setId( trimToNull( dataValue.getDataElement() ) ) );
             final Period period = outerPeriod != null ? outerPeriod :
@@ -1297,155 +1363,241 @@ public class DefaultDataValueSetService
             // Save, update or delete data value
             // -----------------------------------------------------------------
 
-            DataValue existingValue = !skipExistingCheck ? dataValueBatchHandler.findObject( internalValue ) : null;
+            if ( existenceCheckChunkSize > 0 )
+            {
+                chunk.add( new ChunkedDataValue( internalValue, actualDataValue ) );
 
-            // -----------------------------------------------------------------
-            // Check soft deleted data values on update and import
-            // -----------------------------------------------------------------
+                if ( chunk.size() >= existenceCheckChunkSize )
+                {
+                    saveDataValueChunk( chunk, strategy, dryRun, skipAudit, dataValueBatchHandler, auditBatchHandler, importCount );
 
-            if ( !skipExistingCheck && existingValue != null && !existingValue.isDeleted() )
+                    chunk.clear();
+                }
+            }
+            else
             {
-                if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
-                {
-                    AuditType auditType = AuditType.UPDATE;
+                DataValue existingValue = !skipExistingCheck ? dataValueBatchHandler.findObject( internalValue ) : null;
 
-                    if ( internalValue.isNullValue() || internalValue.isDeleted() )
-                    {
-                        internalValue.setDeleted( true );
+                saveDataValue( internalValue, existingValue, actualDataValue, strategy, dryRun, skipAudit,
+                    dataValueBatchHandler, auditBatchHandler, importCount );
+            }
+        }
 
-                        auditType = AuditType.DELETE;
+        if ( !chunk.isEmpty() )
+        {
+            saveDataValueChunk( chunk, strategy, dryRun, skipAudit, dataValueBatchHandler, auditBatchHandler, importCount );
+        }
 
-                        deleteCount++;
-                    }
-                    else
-                    {
-                        updateCount++;
-                    }
+        dataValueBatchHandler.flush();
 
-                    if ( !dryRun )
-                    {
-                        dataValueBatchHandler.updateObject( internalValue );
+        if ( !skipAudit )
+        {
+            auditBatchHandler.flush();
+        }
 
-                        if ( !skipAudit )
-                        {
-                            DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, auditType );
+        int ignores = totalCount - importCount.getImported() - importCount.getUpdated() - importCount.getDeleted();
 
-                            auditBatchHandler.addObject( auditValue );
-                        }
+        importCount.setIgnored( ignores );
 
-                        if ( dataElement.isFileType() )
-                        {
-                            FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
+        summary.setImportCount( importCount );
+        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
+        summary.setDescription( "Import process completed successfully" );
 
-                            fr.setAssigned( true );
+        if ( summary.getConflicts() instanceof BoundedConflictSet && ( (BoundedConflictSet) summary.getConflicts() ).getOmittedCount() > 0 )
+        {
+            summary.setDescription( "Import process completed successfully, " +
+                ( (BoundedConflictSet) summary.getConflicts() ).getOmittedCount() + " further conflicts were omitted" );
+        }
 
-                            fileResourceService.updateFileResource( fr );
-                        }
+        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount.getImported() +
+            ", update: " + importCount.getUpdated() + ", delete: " + importCount.getDeleted() );
+        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
 
-                    }
-                }
-                else if ( strategy.isDelete() )
+        dataValueSet.close();
+
+        return summary;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Resolves existence of the given chunk of data values with a single query
+     * and saves, updates or deletes each data value accordingly.
+     */
+    private void saveDataValueChunk( List<ChunkedDataValue> chunk, ImportStrategy strategy, boolean dryRun, boolean skipAudit,
+        BatchHandler<DataValue> dataValueBatchHandler, BatchHandler<DataValueAudit> auditBatchHandler, ImportCount importCount )
+    {
+        List<DataValue> dataValues = chunk.stream()
+            .map( ChunkedDataValue::getInternalValue )
+            .collect( Collectors.toList() );
+
+        Map<String, DeflatedDataValue> existingValues = new HashMap<>();
+
+        for ( DeflatedDataValue value : dataValueService.getExistingDataValues( dataValues ) )
+        {
+            existingValues.put( getDataValueKey( value.getDataElementId(), value.getPeriodId(), value.getSourceId(),
+                value.getCategoryOptionComboId(), value.getAttributeOptionComboId() ), value );
+        }
+
+        for ( ChunkedDataValue chunkedValue : chunk )
+        {
+            DataValue internalValue = chunkedValue.getInternalValue();
+
+            DeflatedDataValue deflatedValue = existingValues.get( getDataValueKey( internalValue.getDataElement().getId(),
+                internalValue.getPeriod().getId(), internalValue.getSource().getId(),
+                internalValue.getCategoryOptionCombo().getId(), internalValue.getAttributeOptionCombo().getId() ) );
+
+            DataValue existingValue = null;
+
+            if ( deflatedValue != null )
+            {
+                existingValue = new DataValue( internalValue.getDataElement(), internalValue.getPeriod(), internalValue.getSource(),
+                    internalValue.getCategoryOptionCombo(), internalValue.getAttributeOptionCombo(), deflatedValue.getValue() );
+                existingValue.setDeleted( deflatedValue.isDeleted() );
+            }
+
+            saveDataValue( internalValue, existingValue, chunkedValue.getActualDataValue(), strategy, dryRun, skipAudit,
+                dataValueBatchHandler, auditBatchHandler, importCount );
+        }
+    }
+
+    /**
+     * Saves, updates or deletes the given data value depending on the import
+     * strategy and the existing data value, and writes the audit entry.
+     */
+    private void saveDataValue( DataValue internalValue, DataValue existingValue, DataValue actualDataValue,
+        ImportStrategy strategy, boolean dryRun, boolean skipAudit, BatchHandler<DataValue> dataValueBatchHandler,
+        BatchHandler<DataValueAudit> auditBatchHandler, ImportCount importCount )
+    {
+        // ---------------------------------------------------------------------
+        // Check soft deleted data values on update and import
+        // ---------------------------------------------------------------------
+
+        if ( existingValue != null && !existingValue.isDeleted() )
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isUpdate() )
+            {
+                AuditType auditType = AuditType.UPDATE;
+
+                if ( internalValue.isNullValue() || internalValue.isDeleted() )
                 {
                     internalValue.setDeleted( true );
 
-                    deleteCount++;
+                    auditType = AuditType.DELETE;
 
-                    if ( !dryRun )
+                    importCount.incrementDeleted();
+                }
+                else
+                {
+                    importCount.incrementUpdated();
+                }
+
+                if ( !dryRun )
+                {
+                    dataValueBatchHandler.updateObject( internalValue );
+
+                    if ( !skipAudit )
                     {
-                        if ( dataElement.isFileType() && actualDataValue != null )
-                        {
-                            FileResource fr = fileResourceService.getFileResource( actualDataValue.getValue() );
+                        DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), internalValue.getStoredBy(), auditType );
 
-                            fileResourceService.updateFileResource( fr );
-                        }
+                        auditBatchHandler.addObject( auditValue );
+                    }
 
-                        dataValueBatchHandler.updateObject( internalValue );
+                    if ( internalValue.getDataElement().isFileType() )
+                    {
+                        FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
 
-                        if ( !skipAudit )
-                        {
-                            DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), storedBy, AuditType.DELETE );
+                        fr.setAssigned( true );
 
-                            auditBatchHandler.addObject( auditValue );
-                        }
+                        fileResourceService.updateFileResource( fr );
                     }
+
                 }
             }
-            else
+            else if ( strategy.isDelete() )
+            {
+                internalValue.setDeleted( true );
+
+                importCount.incrementDeleted();
+
+                if ( !dryRun )
+                {
+                    if ( internalValue.getDataElement().isFileType() && actualDataValue != null )
+                    {
+                        FileResource fr = fileResourceService.getFileResource( actualDataValue.getValue() );
+
+                        fileResourceService.updateFileResource( fr );
+                    }
+
+                    dataValueBatchHandler.updateObject( internalValue );
+
+                    if ( !skipAudit )
+                    {
+                        DataValueAudit auditValue = new DataValueAudit( internalValue, existingValue.getValue(), internalValue.getStoredBy(), AuditType.DELETE );
+
+                        auditBatchHandler.addObject( auditValue );
+                    }
+                }
+            }
+        }
+        else
+        {
+            if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
             {
-                if ( strategy.isCreateAndUpdate() || strategy.isCreate() )
+                if ( !internalValue.isNullValue() ) // Ignore null values
                 {
-                    if ( !internalValue.isNullValue() ) // Ignore null values
+                    if ( existingValue != null && existingValue.isDeleted() )
                     {
-                        if ( existingValue != null && existingValue.isDeleted() )
+                        importCount.incrementImported();
+
+                        if ( !dryRun )
                         {
-                            importCount++;
+                            dataValueBatchHandler.updateObject( internalValue );
 
-                            if ( !dryRun )
+                            if ( internalValue.getDataElement().isFileType() )
                             {
-                                dataValueBatchHandler.updateObject( internalValue );
+                                FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
 
-                                if ( dataElement.isFileType() )
-                                {
-                                    FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
+                                fr.setAssigned( true );
 
-                                    fr.setAssigned( true );
-
-                                    fileResourceService.updateFileResource( fr );
-                                }
+                                fileResourceService.updateFileResource( fr );
                             }
                         }
-                        else
+                    }
+                    else
+                    {
+                        boolean added = false;
+
+                        if ( !dryRun )
                         {
-                            boolean added = false;
+                            added = dataValueBatchHandler.addObject( internalValue );
 
-                            if ( !dryRun )
+                            if ( added && internalValue.getDataElement().isFileType() )
                             {
-                                added = dataValueBatchHandler.addObject( internalValue );
+                                FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
 
-                                if ( added && dataElement.isFileType() )
-                                {
-                                    FileResource fr = fileResourceService.getFileResource( internalValue.getValue() );
+                                fr.setAssigned( true );
 
-                                    fr.setAssigned( true );
-
-                                    fileResourceService.updateFileResource( fr );
-                                }
+                                fileResourceService.updateFileResource( fr );
                             }
+                        }
 
-                            if ( dryRun || added )
-                            {
-                                importCount++;
-                            }
+                        if ( dryRun || added )
+                        {
+                            importCount.incrementImported();
                         }
                     }
                 }
             }
         }
-
-        dataValueBatchHandler.flush();
-
-        if ( !skipAudit )
-        {
-            auditBatchHandler.flush();
-        }
-
-        int ignores = totalCount - importCount - updateCount - deleteCount;
-
-        summary.setImportCount( new ImportCount( importCount, updateCount, ignores, deleteCount ) );
-        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
-        summary.setDescription( "Import process completed successfully" );
-
-        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount + ", update: " + updateCount + ", delete: " + deleteCount );
-        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
-
-        dataValueSet.close();
-
-        return summary;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
+    private String getDataValueKey( long dataElementId, long periodId, long orgUnitId, long cocId, long aocId )
+    {
+        return dataElementId + "-" + periodId + "-" + orgUnitId + "-" + cocId + "-" + aocId;
+    }
 
     private void handleComplete( DataSet dataSet, Date completeDate, Period period, OrganisationUnit orgUnit,
         CategoryOptionCombo attributeOptionCombo, String currentUserName, ImportSummary summary )
@@ -1501,4 +1653,30 @@ public class DefaultDataValueSetService
     {
         return dataSet.isLocked( user, period, null ) && (skipLockExceptionCheck || lockExceptionStore.getCount( dataSet, period, organisationUnit ) == 0L);
     }
+
+    /**
+     * Data value which is pending persistence in a chunk.
+     */
+    private static class ChunkedDataValue
+    {
+        private final DataValue internalValue;
+
+        private final DataValue actualDataValue;
+
+        ChunkedDataValue( DataValue internalValue, DataValue actualDataValue )
+        {
+            this.internalValue = internalValue;
+            this.actualDataValue = actualDataValue;
+        }
+
+        DataValue getInternalValue()
+        {
+            return internalValue;
+        }
+
+        DataValue getActualDataValue()
+        {
+            return actualDataValue;
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+
+import com.google.common.base.Throwables;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads data values from a {@link DataValueSet} on a separate thread and
+ * hands them over through a bounded queue, so that parsing of the input
+ * overlaps with validation and persistence of the data values on the
+ * importing thread. Data values are returned in input order.
+ * <p>
+ * Streaming data values read lazily from the underlying reader, hence each
+ * data value is copied into a detached {@link DataValue} before it is handed
+ * over.
+ */
+@Slf4j
+public class ParseAheadDataValueReader
+    implements Iterator<DataValue>, AutoCloseable
+{
+    /**
+     * Max time the reader waits for the importing thread to take a data value
+     * before it assumes the import was abandoned.
+     */
+    private static final long OFFER_TIMEOUT_MINUTES = 10;
+
+    private static final DataValue END = new DataValue();
+
+    private final DataValueSet dataValueSet;
+
+    private final BlockingQueue<DataValue> queue;
+
+    private final Executor executor;
+
+    private volatile boolean closed = false;
+
+    private volatile Throwable failure;
+
+    private DataValue next;
+
+    /**
+     * @param dataValueSet the {@link DataValueSet} to read from.
+     * @param capacity the max number of data values read ahead.
+     * @param executor the executor to read on, which should be bounded.
+     */
+    public ParseAheadDataValueReader( DataValueSet dataValueSet, int capacity, Executor executor )
+    {
+        this.dataValueSet = dataValueSet;
+        this.queue = new ArrayBlockingQueue<>( capacity );
+        this.executor = executor;
+    }
+
+    /**
+     * Starts reading data values on a separate thread.
+     *
+     * @return this reader.
+     */
+    public ParseAheadDataValueReader start()
+    {
+        executor.execute( this::read );
+        return this;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if ( next == null )
+        {
+            try
+            {
+                next = queue.take();
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException( "Interrupted while reading data values", ex );
+            }
+        }
+
+        if ( next == END )
+        {
+            if ( failure != null )
+            {
+                Throwables.throwIfUnchecked( failure );
+                throw new IllegalStateException( "Reading of data values failed", failure );
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public DataValue next()
+    {
+        if ( !hasNext() )
+        {
+            throw new NoSuchElementException();
+        }
+
+        DataValue value = next;
+        next = null;
+        return value;
+    }
+
+    /**
+     * Stops the reader. Data values which are not yet taken are discarded.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        queue.clear();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void read()
+    {
+        try
+        {
+            while ( !closed && dataValueSet.hasNextDataValue() )
+            {
+                if ( !offer( copy( dataValueSet.getNextDataValue() ) ) )
+                {
+                    return;
+                }
+            }
+        }
+        catch ( Throwable ex )
+        {
+            log.error( "Reading of data values failed", ex );
+
+            failure = ex;
+        }
+        finally
+        {
+            offer( END );
+        }
+    }
+
+    private boolean offer( DataValue value )
+    {
+        try
+        {
+            while ( !closed )
+            {
+                if ( queue.offer( value, OFFER_TIMEOUT_MINUTES, TimeUnit.MINUTES ) )
+                {
+                    return true;
+                }
+
+                log.warn( "Data values not consumed in " + OFFER_TIMEOUT_MINUTES + " minutes, stopping reader" );
+
+                closed = true;
+            }
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return false;
+    }
+
+    private static DataValue copy( DataValue value )
+    {
+        DataValue copy = new DataValue();
+        copy.setDataElement( value.getDataElement() );
+        copy.setPeriod( value.getPeriod() );
+        copy.setOrgUnit( value.getOrgUnit() );
+        copy.setCategoryOptionCombo( value.getCategoryOptionCombo() );
+        copy.setAttributeOptionCombo( value.getAttributeOptionCombo() );
+        copy.setValueForced( value.getValue() );
+        copy.setStoredBy( value.getStoredBy() );
+        copy.setCreated( value.getCreated() );
+        copy.setLastUpdated( value.getLastUpdated() );
+        copy.setComment( value.getComment() );
+        copy.setFollowup( value.getFollowup() );
+        copy.setDeleted( value.getDeleted() );
+        return copy;
+    }
+}
@@ -30,22 +30,46 @@ package org.hisp.dhis.dxf2.datavalueset;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
+import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.dxf2.datavalue.DataValue;
 import org.hisp.dhis.dxf2.datavalue.StreamingJsonDataValue;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
+@Slf4j
 public class StreamingJsonDataValueSet extends DataValueSet
 {
+    private static final String FIELD_DATAVALUES = "dataValues";
+    private static final String FIELD_STRATEGY = "strategy";
+    private static final String FIELD_ATTRIBUTE_CATEGORY_OPTIONS = "attributeCategoryOptions";
+
+    private static final Set<String> PROPERTY_FIELDS = ImmutableSet.of( FIELD_IDSCHEME, FIELD_DATAELEMENTIDSCHEME,
+        FIELD_ORGUNITIDSCHEME, FIELD_CATEGORYOPTCOMBOIDSCHEME, FIELD_DATASETIDSCHEME, FIELD_DRYRUN, FIELD_STRATEGY,
+        FIELD_DATASET, FIELD_COMPLETEDATE, FIELD_PERIOD, FIELD_ORGUNIT, FIELD_ATTRIBUTE_OPTION_COMBO,
+        FIELD_ATTRIBUTE_CATEGORY_OPTIONS );
+
     private JsonGenerator generator;
 
     private boolean startedArray;
 
+    private JsonParser parser;
+
+    private boolean readingArray;
+
+    private DataValue nextDataValue;
+
     public StreamingJsonDataValueSet( OutputStream out )
     {
         try
@@ -63,6 +87,76 @@ public class StreamingJsonDataValueSet extends DataValueSet
         }
     }
 
+    /**
+     * Reads a data value set from the given parser. The properties of the data
+     * value set are read up front, after which data values are read one at a
+     * time while iterating. Data value set properties must precede the data
+     * values array, as data values are imported while reading. A data value set
+     * property which follows the data values array fails the import, while
+     * unknown properties are ignored.
+     *
+     * @param parser the JSON parser, must have an object codec.
+     */
+    public StreamingJsonDataValueSet( JsonParser parser )
+    {
+        this.parser = parser;
+
+        try
+        {
+            if ( parser.nextToken() != JsonToken.START_OBJECT )
+            {
+                throw new IllegalArgumentException( "Data value set must be a JSON object" );
+            }
+
+            readProperties();
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+    }
+
+    @Override
+    public boolean hasNextDataValue()
+    {
+        if ( nextDataValue != null )
+        {
+            return true;
+        }
+
+        if ( !readingArray )
+        {
+            return false;
+        }
+
+        try
+        {
+            if ( parser.nextToken() == JsonToken.START_OBJECT )
+            {
+                nextDataValue = parser.readValueAs( DataValue.class );
+                return true;
+            }
+
+            readingArray = false;
+            readTrailingProperties();
+            return false;
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+    }
+
+    @Override
+    public DataValue getNextDataValue()
+    {
+        hasNextDataValue();
+
+        DataValue dataValue = nextDataValue;
+        nextDataValue = null;
+        return dataValue;
+    }
+
     @Override
     public void setDataElementIdScheme( String dataElementIdScheme )
     {
@@ -138,6 +232,17 @@ public class StreamingJsonDataValueSet extends DataValueSet
     @Override
     public void close()
     {
+        if ( parser != null )
+        {
+            try
+            {
+                parser.close();
+            }
+            catch ( IOException ignored )
+            {
+            }
+        }
+
         if ( generator == null )
         {
             return;
@@ -182,4 +287,100 @@ public class StreamingJsonDataValueSet extends DataValueSet
         {
         }
     }
+
+    /**
+     * Reads properties until the start of the data values array or the end of
+     * the data value set object.
+     */
+    private void readProperties()
+        throws IOException
+    {
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ( FIELD_DATAVALUES.equals( fieldName ) && token == JsonToken.START_ARRAY )
+            {
+                readingArray = true;
+                return;
+            }
+
+            readProperty( fieldName, token );
+        }
+    }
+
+    private void readTrailingProperties()
+        throws IOException
+    {
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ( PROPERTY_FIELDS.contains( fieldName ) && token != JsonToken.VALUE_NULL )
+            {
+                throw new IllegalArgumentException( String.format(
+                    "Data value set property '%s' must precede '%s'", fieldName, FIELD_DATAVALUES ) );
+            }
+
+            log.warn( "Ignoring property following data values: " + fieldName );
+
+            parser.skipChildren();
+        }
+    }
+
+    private void readProperty( String fieldName, JsonToken token )
+        throws IOException
+    {
+        if ( token == JsonToken.VALUE_NULL )
+        {
+            return;
+        }
+
+        switch ( fieldName )
+        {
+            case FIELD_IDSCHEME:
+                idScheme = parser.getValueAsString();
+                break;
+            case FIELD_DATAELEMENTIDSCHEME:
+                dataElementIdScheme = parser.getValueAsString();
+                break;
+            case FIELD_ORGUNITIDSCHEME:
+                orgUnitIdScheme = parser.getValueAsString();
+                break;
+            case FIELD_CATEGORYOPTCOMBOIDSCHEME:
+                categoryOptionComboIdScheme = parser.getValueAsString();
+                break;
+            case FIELD_DATASETIDSCHEME:
+                dataSetIdScheme = parser.getValueAsString();
+                break;
+            case FIELD_DRYRUN:
+                dryRun = parser.getValueAsBoolean();
+                break;
+            case FIELD_STRATEGY:
+                strategy = parser.getValueAsString();
+                break;
+            case FIELD_DATASET:
+                dataSet = parser.getValueAsString();
+                break;
+            case FIELD_COMPLETEDATE:
+                completeDate = parser.getValueAsString();
+                break;
+            case FIELD_PERIOD:
+                period = parser.getValueAsString();
+                break;
+            case FIELD_ORGUNIT:
+                orgUnit = parser.getValueAsString();
+                break;
+            case FIELD_ATTRIBUTE_OPTION_COMBO:
+                attributeOptionCombo = parser.getValueAsString();
+                break;
+            case FIELD_ATTRIBUTE_CATEGORY_OPTIONS:
+                attributeCategoryOptions = parser.readValueAs( new TypeReference<List<String>>() {} );
+                break;
+            default:
+                parser.skipChildren();
+        }
+    }
 }
@@ -30,19 +30,33 @@ package org.hisp.dhis.dxf2.events.importer.context;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.hibernate.SessionFactory;
+import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.events.event.Event;
+import org.hisp.dhis.dxf2.events.event.Note;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.hibernate.HibernateProxyUtils;
+import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.trackedentity.TrackedEntityInstance;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserCredentials;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Luciano Fiandesio
@@ -76,6 +90,12 @@ public class WorkContextLoader
 
     private final SessionFactory sessionFactory;
 
+    private final DhisConfigurationProvider config;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor contextExecutor;
+
     public WorkContextLoader(
     // @formatter:off
         ProgramSupplier programSupplier,
@@ -89,7 +109,10 @@ public class WorkContextLoader
         AssignedUserSupplier assignedUserSupplier,
         ServiceDelegatorSupplier serviceDelegatorSupplier,
         ProgramOrgUnitSupplier programOrgUnitSupplier,
-        SessionFactory sessionFactory
+        SessionFactory sessionFactory,
+        DhisConfigurationProvider config,
+        PlatformTransactionManager transactionManager,
+        @Qualifier( "eventImportContextTaskExecutor" ) Executor contextExecutor
     // @formatter:on
     )
     {
@@ -105,10 +128,27 @@ public class WorkContextLoader
         this.programOrgUnitSupplier = programOrgUnitSupplier;
         this.serviceDelegatorSupplier = serviceDelegatorSupplier;
         this.sessionFactory = sessionFactory;
+        this.config = config;
+        this.transactionTemplate = new TransactionTemplate( transactionManager );
+        this.transactionTemplate.setReadOnly( true );
+        this.contextExecutor = contextExecutor;
     }
 
-    @Transactional( readOnly = true )
+    /**
+     * Loads the work context in a read-only transaction. The suppliers are
+     * loaded in parallel if enabled and if no transaction is active yet, since
+     * suppliers running on other connections cannot see rows written but not
+     * committed by an enclosing transaction.
+     */
     public WorkContext load( ImportOptions importOptions, List<Event> events )
+    {
+        final boolean parallel = config.isEnabled( ConfigurationKey.TRACKER_IMPORT_CONTEXT_PARALLEL_ENABLED )
+            && !TransactionSynchronizationManager.isActualTransactionActive();
+
+        return transactionTemplate.execute( status -> load( importOptions, events, parallel ) );
+    }
+
+    private WorkContext load( ImportOptions importOptions, List<Event> events, boolean parallel )
     {
         sessionFactory.getCurrentSession().flush();
 
@@ -124,6 +164,11 @@ public class WorkContextLoader
         // Make sure all events have the 'uid' field populated
         events = uidGen.assignUidToEvents( events );
 
+        if ( parallel )
+        {
+            return loadParallel( localImportOptions, events );
+        }
+
         final Map<String, ProgramStageInstance> programStageInstanceMap = programStageInstanceSupplier
             .get( localImportOptions, events );
 
@@ -150,6 +195,92 @@ public class WorkContextLoader
             .build();
     }
 
+    /**
+     * Loads the work context by running the JDBC based suppliers which do not
+     * depend on each other concurrently on a bounded pool. Suppliers which use
+     * the Hibernate session run on the calling thread, and suppliers which
+     * depend on the result of another supplier are chained to it. Programs are
+     * loaded first, since they are cached and used by several suppliers.
+     */
+    private WorkContext loadParallel( ImportOptions importOptions, List<Event> events )
+    {
+        final List<Event> eventList = events;
+
+        final Map<String, Program> programsMap = programSupplier.get( importOptions, eventList );
+
+        final CompletableFuture<Map<String, ProgramStageInstance>> programStageInstanceFuture = supplyAsync(
+            () -> programStageInstanceSupplier.get( importOptions, eventList ) );
+
+        final CompletableFuture<Map<String, OrganisationUnit>> orgUnitFuture = supplyAsync(
+            () -> organisationUnitSupplier.get( importOptions, eventList ) );
+
+        final CompletableFuture<Map<String, CategoryOptionCombo>> categoryOptionComboFuture = supplyAsync(
+            () -> categoryOptionComboSupplier.get( importOptions, eventList ) );
+
+        final CompletableFuture<Map<String, Note>> notesFuture = supplyAsync(
+            () -> noteSupplier.get( importOptions, eventList ) );
+
+        final CompletableFuture<Map<String, User>> assignedUserFuture = supplyAsync(
+            () -> assignedUserSupplier.get( importOptions, eventList ) );
+
+        final CompletableFuture<Map<Long, List<Long>>> programOrgUnitFuture = orgUnitFuture.thenApplyAsync(
+            orgUnitMap -> programOrgUnitSupplier.get( importOptions, eventList, orgUnitMap ), contextExecutor );
+
+        // Suppliers using the Hibernate session must run on this thread
+
+        final Map<String, Pair<TrackedEntityInstance, Boolean>> teiMap = trackedEntityInstanceSupplier
+            .get( importOptions, eventList );
+
+        final CompletableFuture<Map<String, ProgramInstance>> programInstanceFuture = supplyAsync(
+            () -> programInstanceSupplier.get( importOptions, teiMap, eventList ) );
+
+        final Map<String, DataElement> dataElementMap = dataElementSupplier.get( importOptions, eventList );
+
+        final Map<String, ProgramStageInstance> programStageInstanceMap = join( programStageInstanceFuture );
+
+        return WorkContext.builder()
+            .importOptions( importOptions )
+            .programsMap( programsMap )
+            .programStageInstanceMap( programStageInstanceMap )
+            .organisationUnitMap( join( orgUnitFuture ) )
+            .trackedEntityInstanceMap( teiMap )
+            .programInstanceMap( join( programInstanceFuture ) )
+            .categoryOptionComboMap( join( categoryOptionComboFuture ) )
+            .dataElementMap( dataElementMap )
+            .notesMap( join( notesFuture ) )
+            .assignedUserMap( join( assignedUserFuture ) )
+            .eventDataValueMap( new EventDataValueAggregator().aggregateDataValues( eventList, programStageInstanceMap,
+                importOptions ) )
+            .programWithOrgUnitsMap( join( programOrgUnitFuture ) )
+            .serviceDelegator( serviceDelegatorSupplier.get() )
+            .build();
+    }
+
+    private <T> CompletableFuture<T> supplyAsync( Supplier<T> supplier )
+    {
+        return CompletableFuture.supplyAsync( supplier, contextExecutor );
+    }
+
+    /**
+     * Waits for the given future and rethrows a failure of the supplier as is.
+     */
+    private <T> T join( CompletableFuture<T> future )
+    {
+        try
+        {
+            return future.join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
     /**
      * Make sure that the {@see User} object's properties are properly initialized,
      * to avoid running into Hibernate-related issues during validation
@@ -0,0 +1,69 @@
+package org.hisp.dhis.dxf2.importsummary;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.HashSet;
+
+/**
+ * Set of import conflicts which retains at most a given number of conflicts.
+ * Conflicts beyond the limit are counted but not retained, which keeps the
+ * memory use of imports with many conflicts bounded.
+ */
+public class BoundedConflictSet
+    extends HashSet<ImportConflict>
+{
+    private final int maxSize;
+
+    private int omittedCount = 0;
+
+    public BoundedConflictSet( int maxSize )
+    {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public boolean add( ImportConflict conflict )
+    {
+        if ( size() >= maxSize && !contains( conflict ) )
+        {
+            omittedCount++;
+            return false;
+        }
+
+        return super.add( conflict );
+    }
+
+    /**
+     * Returns the number of conflicts which were not retained.
+     */
+    public int getOmittedCount()
+    {
+        return omittedCount;
+    }
+}
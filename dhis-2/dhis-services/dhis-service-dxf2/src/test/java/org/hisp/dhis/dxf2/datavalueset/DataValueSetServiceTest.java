@@ -52,6 +52,7 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
+import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
@@ -71,6 +72,8 @@ import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.security.Authorities;
 import org.hisp.dhis.security.acl.AccessStringHelper;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserService;
@@ -132,6 +135,12 @@ public class DataValueSetServiceTest extends TransactionalIntegrationTest
     @Autowired
     private UserService _userService;
 
+    @Autowired
+    private DataValueService dataValueService;
+
+    @Autowired
+    private SystemSettingManager systemSettingManager;
+
     private Attribute attribute;
 
     private CategoryOptionCombo ocDef;
@@ -442,6 +451,43 @@ public class DataValueSetServiceTest extends TransactionalIntegrationTest
         assertImportDataValues( summary );
     }
 
+    @Test
+    public void testImportDataValuesXmlWithExistenceCheckChunks()
+        throws Exception
+    {
+        dataValueService.addDataValue( new DataValue( deA, peA, ouA, ocDef, ocDef, "10" ) );
+        idObjectManager.flush();
+
+        systemSettingManager.saveSystemSetting( SettingKey.DATA_IMPORT_EXISTENCE_CHECK_CHUNK_SIZE, 5 );
+
+        try
+        {
+            in = new ClassPathResource( "datavalueset/dataValueSetB.xml" ).getInputStream();
+
+            ImportSummary summary = dataValueSetService.saveDataValueSet( in );
+
+            assertEquals( summary.getConflicts().toString(), 0, summary.getConflicts().size() );
+            assertEquals( 11, summary.getImportCount().getImported() );
+            assertEquals( 1, summary.getImportCount().getUpdated() );
+            assertEquals( 0, summary.getImportCount().getDeleted() );
+            assertEquals( 0, summary.getImportCount().getIgnored() );
+            assertEquals( ImportStatus.SUCCESS, summary.getStatus() );
+
+            assertEquals( 11, mockDataValueBatchHandler.getInserts().size() );
+            assertEquals( 1, mockDataValueBatchHandler.getUpdates().size() );
+            assertTrue( mockDataValueBatchHandler.getUpdates().contains( new DataValue( deA, peA, ouA, ocDef, ocDef ) ) );
+
+            Collection<DataValueAudit> auditValues = mockDataValueAuditBatchHandler.getInserts();
+
+            assertEquals( 1, auditValues.size() );
+            assertEquals( "10", auditValues.iterator().next().getValue() );
+        }
+        finally
+        {
+            systemSettingManager.saveSystemSetting( SettingKey.DATA_IMPORT_EXISTENCE_CHECK_CHUNK_SIZE, 0 );
+        }
+    }
+
     @Test
     public void testImportDataValuesXmlWithCodeB()
         throws Exception
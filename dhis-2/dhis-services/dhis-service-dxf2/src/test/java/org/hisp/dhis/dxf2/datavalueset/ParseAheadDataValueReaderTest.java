@@ -0,0 +1,125 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParseAheadDataValueReaderTest
+{
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadInOrder()
+    {
+        DataValueSet dataValueSet = new DataValueSet();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            DataValue dataValue = new DataValue();
+            dataValue.setDataElement( "deA" );
+            dataValue.setValue( String.valueOf( i ) );
+            dataValueSet.getDataValues().add( dataValue );
+        }
+
+        List<String> values = new ArrayList<>();
+
+        try ( ParseAheadDataValueReader reader = new ParseAheadDataValueReader( dataValueSet, 10, executor ).start() )
+        {
+            while ( reader.hasNext() )
+            {
+                DataValue dataValue = reader.next();
+
+                assertEquals( "deA", dataValue.getDataElement() );
+
+                values.add( dataValue.getValue() );
+            }
+
+            assertFalse( reader.hasNext() );
+        }
+
+        assertEquals( 100, values.size() );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertEquals( String.valueOf( i ), values.get( i ) );
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testReadFailure()
+    {
+        DataValueSet dataValueSet = new DataValueSet()
+        {
+            @Override
+            public boolean hasNextDataValue()
+            {
+                throw new IllegalArgumentException( "Invalid input" );
+            }
+        };
+
+        try ( ParseAheadDataValueReader reader = new ParseAheadDataValueReader( dataValueSet, 10, executor ).start() )
+        {
+            reader.hasNext();
+        }
+    }
+
+    @Test( expected = StackOverflowError.class )
+    public void testReadError()
+    {
+        DataValueSet dataValueSet = new DataValueSet()
+        {
+            @Override
+            public boolean hasNextDataValue()
+            {
+                throw new StackOverflowError();
+            }
+        };
+
+        try ( ParseAheadDataValueReader reader = new ParseAheadDataValueReader( dataValueSet, 10, executor ).start() )
+        {
+            reader.hasNext();
+        }
+    }
+}
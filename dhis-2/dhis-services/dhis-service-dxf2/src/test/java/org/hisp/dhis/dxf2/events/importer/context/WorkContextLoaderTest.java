@@ -0,0 +1,227 @@
+package org.hisp.dhis.dxf2.events.importer.context;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dxf2.common.ImportOptions;
+import org.hisp.dhis.dxf2.events.event.Event;
+import org.hisp.dhis.dxf2.events.event.Note;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.collect.Lists;
+
+public class WorkContextLoaderTest
+{
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private ProgramSupplier programSupplier;
+
+    @Mock
+    private OrganisationUnitSupplier organisationUnitSupplier;
+
+    @Mock
+    private TrackedEntityInstanceSupplier trackedEntityInstanceSupplier;
+
+    @Mock
+    private ProgramInstanceSupplier programInstanceSupplier;
+
+    @Mock
+    private ProgramStageInstanceSupplier programStageInstanceSupplier;
+
+    @Mock
+    private CategoryOptionComboSupplier categoryOptionComboSupplier;
+
+    @Mock
+    private DataElementSupplier dataElementSupplier;
+
+    @Mock
+    private NoteSupplier noteSupplier;
+
+    @Mock
+    private AssignedUserSupplier assignedUserSupplier;
+
+    @Mock
+    private ServiceDelegatorSupplier serviceDelegatorSupplier;
+
+    @Mock
+    private ProgramOrgUnitSupplier programOrgUnitSupplier;
+
+    @Mock( answer = Answers.RETURNS_DEEP_STUBS )
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicBoolean executorUsed = new AtomicBoolean();
+
+    private final Executor executor = command -> {
+        executorUsed.set( true );
+        command.run();
+    };
+
+    private WorkContextLoader subject;
+
+    private ImportOptions importOptions;
+
+    private List<Event> events;
+
+    @Before
+    public void setUp()
+    {
+        subject = new WorkContextLoader( programSupplier, organisationUnitSupplier, trackedEntityInstanceSupplier,
+            programInstanceSupplier, programStageInstanceSupplier, categoryOptionComboSupplier, dataElementSupplier,
+            noteSupplier, assignedUserSupplier, serviceDelegatorSupplier, programOrgUnitSupplier, sessionFactory, config,
+            transactionManager, executor );
+
+        User user = new User();
+        user.setUserCredentials( new UserCredentials() );
+
+        importOptions = ImportOptions.getDefaultImportOptions();
+        importOptions.setUser( user );
+
+        events = Lists.newArrayList( new Event() );
+
+        when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_CONTEXT_PARALLEL_ENABLED ) ).thenReturn( true );
+    }
+
+    @Test
+    public void verifyParallelLoadCombinesSuppliers()
+    {
+        Map<String, Program> programMap = new HashMap<>();
+        Map<String, ProgramStageInstance> programStageInstanceMap = new HashMap<>();
+        Map<String, OrganisationUnit> orgUnitMap = new HashMap<>();
+        Map<String, Pair<TrackedEntityInstance, Boolean>> teiMap = new HashMap<>();
+        Map<String, ProgramInstance> programInstanceMap = new HashMap<>();
+        Map<String, CategoryOptionCombo> categoryOptionComboMap = new HashMap<>();
+        Map<String, DataElement> dataElementMap = new HashMap<>();
+        Map<String, Note> notesMap = new HashMap<>();
+        Map<String, User> assignedUserMap = new HashMap<>();
+        Map<Long, List<Long>> programOrgUnitMap = new HashMap<>();
+
+        when( programSupplier.get( any(), anyList() ) ).thenReturn( programMap );
+        when( programStageInstanceSupplier.get( any(), anyList() ) ).thenReturn( programStageInstanceMap );
+        when( organisationUnitSupplier.get( any(), anyList() ) ).thenReturn( orgUnitMap );
+        when( trackedEntityInstanceSupplier.get( any(), anyList() ) ).thenReturn( teiMap );
+        when( programInstanceSupplier.get( any(), eq( teiMap ), anyList() ) ).thenReturn( programInstanceMap );
+        when( categoryOptionComboSupplier.get( any(), anyList() ) ).thenReturn( categoryOptionComboMap );
+        when( dataElementSupplier.get( any(), anyList() ) ).thenReturn( dataElementMap );
+        when( noteSupplier.get( any(), anyList() ) ).thenReturn( notesMap );
+        when( assignedUserSupplier.get( any(), anyList() ) ).thenReturn( assignedUserMap );
+        when( programOrgUnitSupplier.get( any(), anyList(), eq( orgUnitMap ) ) ).thenReturn( programOrgUnitMap );
+
+        WorkContext workContext = subject.load( importOptions, events );
+
+        assertThat( workContext.getProgramsMap(), is( sameInstance( programMap ) ) );
+        assertThat( workContext.getProgramStageInstanceMap(), is( sameInstance( programStageInstanceMap ) ) );
+        assertThat( workContext.getOrganisationUnitMap(), is( sameInstance( orgUnitMap ) ) );
+        assertThat( workContext.getTrackedEntityInstanceMap(), is( sameInstance( teiMap ) ) );
+        assertThat( workContext.getProgramInstanceMap(), is( sameInstance( programInstanceMap ) ) );
+        assertThat( workContext.getCategoryOptionComboMap(), is( sameInstance( categoryOptionComboMap ) ) );
+        assertThat( workContext.getDataElementMap(), is( sameInstance( dataElementMap ) ) );
+        assertThat( workContext.getNotesMap(), is( sameInstance( notesMap ) ) );
+        assertThat( workContext.getAssignedUserMap(), is( sameInstance( assignedUserMap ) ) );
+        assertThat( workContext.getProgramWithOrgUnitsMap(), is( sameInstance( programOrgUnitMap ) ) );
+        assertTrue( executorUsed.get() );
+    }
+
+    @Test
+    public void verifySequentialLoadWithinActiveTransaction()
+    {
+        Map<String, OrganisationUnit> orgUnitMap = new HashMap<>();
+        Map<String, Pair<TrackedEntityInstance, Boolean>> teiMap = new HashMap<>();
+        Map<String, ProgramInstance> programInstanceMap = new HashMap<>();
+
+        when( organisationUnitSupplier.get( any(), anyList() ) ).thenReturn( orgUnitMap );
+        when( trackedEntityInstanceSupplier.get( any(), anyList() ) ).thenReturn( teiMap );
+        when( programInstanceSupplier.get( any(), eq( teiMap ), anyList() ) ).thenReturn( programInstanceMap );
+
+        TransactionSynchronizationManager.setActualTransactionActive( true );
+
+        try
+        {
+            WorkContext workContext = subject.load( importOptions, events );
+
+            assertThat( workContext.getProgramInstanceMap(), is( sameInstance( programInstanceMap ) ) );
+            assertFalse( executorUsed.get() );
+        }
+        finally
+        {
+            TransactionSynchronizationManager.setActualTransactionActive( false );
+        }
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void verifyParallelLoadRethrowsSupplierFailure()
+    {
+        when( noteSupplier.get( any(), anyList() ) ).thenThrow( new IllegalStateException( "Failed" ) );
+
+        subject.load( importOptions, events );
+    }
+}
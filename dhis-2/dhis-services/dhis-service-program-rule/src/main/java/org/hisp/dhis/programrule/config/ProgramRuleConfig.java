@@ -28,14 +28,20 @@ package org.hisp.dhis.programrule.config;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.concurrent.Executor;
+
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.programrule.ProgramRuleVariableService;
 import org.hisp.dhis.programrule.engine.*;
 import org.hisp.dhis.user.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
 /**
  * @author Enrico Colasante
@@ -58,6 +64,19 @@ public class ProgramRuleConfig
     @Autowired
     private ConstantService constantService;
 
+    @Autowired
+    private CacheProvider cacheProvider;
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Autowired
+    @Qualifier( "ruleEngineTaskExecutor" )
+    private Executor ruleEngineTaskExecutor;
+
     /**
      * This bean is used in the system when an event is intercepted by
      * {@link ProgramRuleEngineListener}. Only the notification rule actions are
@@ -68,7 +87,7 @@ public class ProgramRuleConfig
     {
         return new ProgramRuleEngine( programRuleEntityMapperService, programRuleVariableService,
             organisationUnitGroupService, currentUserService, constantService,
-            oldImplementableRuleService );
+            oldImplementableRuleService, cacheProvider, env, config, ruleEngineTaskExecutor );
     }
 
     /**
@@ -80,6 +99,6 @@ public class ProgramRuleConfig
     {
         return new ProgramRuleEngine( programRuleEntityMapperService, programRuleVariableService,
             organisationUnitGroupService, currentUserService, constantService,
-            newImplementableRuleService );
+            newImplementableRuleService, cacheProvider, env, config, ruleEngineTaskExecutor );
     }
 }
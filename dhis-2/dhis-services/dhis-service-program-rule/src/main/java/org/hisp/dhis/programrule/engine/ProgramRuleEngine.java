@@ -31,15 +31,25 @@ package org.hisp.dhis.programrule.engine;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.google.api.client.util.Sets;
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.BaseIdentifiableObject;
 import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.program.Program;
@@ -53,6 +63,7 @@ import org.hisp.dhis.rules.RuleEngineIntent;
 import org.hisp.dhis.rules.models.*;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.UserAuthorityGroup;
+import org.springframework.core.env.Environment;
 
 import com.google.api.client.util.Lists;
 
@@ -64,6 +75,12 @@ public class ProgramRuleEngine
 {
     private static final String USER = "USER";
 
+    private static final String SHARED_CONTEXT_KEY = "shared";
+
+    private static final long CONTEXT_EXPIRY_MINUTES = 60;
+
+    private static final long CLUSTER_CONTEXT_EXPIRY_MINUTES = 1;
+
     private final ProgramRuleEntityMapperService programRuleEntityMapperService;
 
     private final ProgramRuleVariableService programRuleVariableService;
@@ -76,12 +93,33 @@ public class ProgramRuleEngine
 
     private final ImplementableRuleService implementableRuleService;
 
+    private final DhisConfigurationProvider config;
+
+    /**
+     * Executor for batch evaluations.
+     */
+    private final Executor ruleEngineExecutor;
+
+    /**
+     * Mapped rules and rule variables per program uid.
+     */
+    private final Cache<ProgramContext> programContextCache;
+
+    /**
+     * Constants and organisation unit group members, shared by all programs.
+     */
+    private final Cache<SharedContext> sharedContextCache;
+
     public ProgramRuleEngine( ProgramRuleEntityMapperService programRuleEntityMapperService,
         ProgramRuleVariableService programRuleVariableService,
         OrganisationUnitGroupService organisationUnitGroupService,
         CurrentUserService currentUserService,
         ConstantService constantService,
-        ImplementableRuleService implementableRuleService )
+        ImplementableRuleService implementableRuleService,
+        CacheProvider cacheProvider,
+        Environment env,
+        DhisConfigurationProvider config,
+        Executor ruleEngineExecutor )
     {
         checkNotNull( programRuleEntityMapperService );
         checkNotNull( programRuleVariableService );
@@ -89,6 +127,10 @@ public class ProgramRuleEngine
         checkNotNull( currentUserService );
         checkNotNull( constantService );
         checkNotNull( implementableRuleService );
+        checkNotNull( cacheProvider );
+        checkNotNull( env );
+        checkNotNull( config );
+        checkNotNull( ruleEngineExecutor );
 
         this.programRuleEntityMapperService = programRuleEntityMapperService;
         this.programRuleVariableService = programRuleVariableService;
@@ -96,6 +138,29 @@ public class ProgramRuleEngine
         this.currentUserService = currentUserService;
         this.constantService = constantService;
         this.implementableRuleService = implementableRuleService;
+        this.config = config;
+        this.ruleEngineExecutor = ruleEngineExecutor;
+
+        boolean testRun = SystemUtils.isTestRun( env.getActiveProfiles() );
+
+        // Invalidation only reaches the caches of this instance, hence entries
+        // expire quickly when other instances may change metadata
+
+        long expiryInMinutes = config.isClusterEnabled() ? CLUSTER_CONTEXT_EXPIRY_MINUTES : CONTEXT_EXPIRY_MINUTES;
+
+        this.programContextCache = cacheProvider.newCacheBuilder( ProgramContext.class )
+            .forRegion( "programRuleEngineContext" )
+            .expireAfterWrite( expiryInMinutes, TimeUnit.MINUTES )
+            .forceInMemory()
+            .withMaximumSize( testRun ? 0 : 1000 )
+            .build();
+
+        this.sharedContextCache = cacheProvider.newCacheBuilder( SharedContext.class )
+            .forRegion( "programRuleEngineSharedContext" )
+            .expireAfterWrite( expiryInMinutes, TimeUnit.MINUTES )
+            .forceInMemory()
+            .withMaximumSize( testRun ? 0 : 1 )
+            .build();
     }
 
     public List<RuleEffect> evaluate( ProgramInstance enrollment, Set<ProgramStageInstance> events )
@@ -118,11 +183,58 @@ public class ProgramRuleEngine
         return evaluateProgramRules( enrollment, programStageInstance, events, enrollment.getProgram() );
     }
 
+    /**
+     * Evaluates the program rules of many enrollments and events at once. The
+     * rule engine inputs are mapped on the calling thread, since mapping reads
+     * lazily loaded associations. If {@code rule.engine.parallel.enabled} is on,
+     * the rule engine evaluations then run on a bounded thread pool.
+     *
+     * @param evaluations the enrollments and events to evaluate.
+     * @return the rule effects keyed by the uid of each enrollment or event.
+     */
+    public Map<String, List<RuleEffect>> evaluate( List<ProgramRuleEvaluation> evaluations )
+    {
+        Map<String, Callable<List<RuleEffect>>> executions = new LinkedHashMap<>();
+
+        for ( ProgramRuleEvaluation evaluation : evaluations )
+        {
+            executions.put( evaluation.getUid(), getRuleEngineExecution( evaluation.getEnrollment(),
+                evaluation.getEvent(), evaluation.getEvents(), evaluation.getProgram() ) );
+        }
+
+        Map<String, List<RuleEffect>> ruleEffects = new LinkedHashMap<>();
+
+        if ( executions.size() > 1 && config.isEnabled( ConfigurationKey.RULE_ENGINE_PARALLEL_ENABLED ) )
+        {
+            Map<String, CompletableFuture<List<RuleEffect>>> futures = new LinkedHashMap<>();
+
+            executions.forEach( ( uid, execution ) -> futures.put( uid,
+                CompletableFuture.supplyAsync( () -> execute( execution ), ruleEngineExecutor ) ) );
+
+            futures.forEach( ( uid, future ) -> ruleEffects.put( uid, future.join() ) );
+        }
+        else
+        {
+            executions.forEach( ( uid, execution ) -> ruleEffects.put( uid, execute( execution ) ) );
+        }
+
+        return ruleEffects;
+    }
+
     private List<RuleEffect> evaluateProgramRules( ProgramInstance enrollment,
         ProgramStageInstance programStageInstance, Set<ProgramStageInstance> events, Program program )
     {
-        List<RuleEffect> ruleEffects = new ArrayList<>();
+        return execute( getRuleEngineExecution( enrollment, programStageInstance, events, program ) );
+    }
 
+    /**
+     * Maps the given enrollment and events for the rule engine and returns the
+     * rule engine evaluation, which does not need the Hibernate session and can
+     * run on any thread.
+     */
+    private Callable<List<RuleEffect>> getRuleEngineExecution( ProgramInstance enrollment,
+        ProgramStageInstance programStageInstance, Set<ProgramStageInstance> events, Program program )
+    {
         List<RuleEvent> ruleEvents = getRuleEvents( events, programStageInstance );
 
         RuleEnrollment ruleEnrollment = getRuleEnrollment( enrollment );
@@ -142,8 +254,23 @@ public class ProgramRuleEngine
 
             RuleEngine ruleEngine = builder.build();
 
-            ruleEffects = getRuleEngineEvaluation( ruleEngine, ruleEnrollment,
-                programStageInstance );
+            return getRuleEngineEvaluation( ruleEngine, ruleEnrollment, programStageInstance );
+        }
+        catch ( Exception e )
+        {
+            log.error( DebugUtils.getStackTrace( e ) );
+
+            return ArrayList::new;
+        }
+    }
+
+    private List<RuleEffect> execute( Callable<List<RuleEffect>> execution )
+    {
+        List<RuleEffect> ruleEffects = new ArrayList<>();
+
+        try
+        {
+            ruleEffects = execution.call();
 
             ruleEffects
                 .stream()
@@ -183,57 +310,88 @@ public class ProgramRuleEngine
         return ruleEngine.evaluate( condition );
     }
 
+    /**
+     * Invalidates the cached rules, rule variables, constants and organisation
+     * unit group members. Called when metadata changes.
+     */
+    public void invalidateContextCache()
+    {
+        programContextCache.invalidateAll();
+        sharedContextCache.invalidateAll();
+    }
+
     private RuleEngineContext getRuleEngineContext( Program program, String uid )
+    {
+        ProgramContext programContext = programContextCache.get( program.getUid(), key -> loadProgramContext( program ) )
+            .orElseGet( () -> loadProgramContext( program ) );
+
+        List<Rule> rules = programContext.rules.stream()
+            .filter( rule -> StringUtils.isEmpty( rule.programStage() ) || Objects.equals( rule.programStage(), uid ) )
+            .collect( Collectors.toList() );
+
+        SharedContext sharedContext = getSharedContext();
+
+        return RuleEngineContext.builder()
+            .supplementaryData( getSupplementaryData( sharedContext ) )
+            .rules( rules )
+            .ruleVariables( programContext.ruleVariables )
+            .constantsValue( sharedContext.constants )
+            .build();
+    }
+
+    private ProgramContext loadProgramContext( Program program )
     {
         List<ProgramRuleVariable> programRuleVariables = programRuleVariableService
             .getProgramRuleVariable( program );
-        List<ProgramRule> programRules = implementableRuleService
-            .getImplementableRules( program )
-            .stream()
-            .filter( rule -> Objects.isNull( rule.getProgramStage() ) ||
-                Objects.equals( rule.getProgramStage().getUid(), uid ) )
-            .collect( Collectors.toList() );
+        List<ProgramRule> programRules = implementableRuleService.getImplementableRules( program );
+
+        return new ProgramContext( programRuleEntityMapperService.toMappedProgramRules( programRules ),
+            programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ) );
+    }
 
+    private SharedContext getSharedContext()
+    {
+        return sharedContextCache.get( SHARED_CONTEXT_KEY, key -> loadSharedContext() )
+            .orElseGet( this::loadSharedContext );
+    }
+
+    private SharedContext loadSharedContext()
+    {
         Map<String, String> constantMap = constantService.getConstantMap().entrySet()
             .stream()
             .collect( Collectors.toMap( Map.Entry::getKey, v -> v.getValue().toString() ) );
 
-        Map<String, List<String>> supplementaryData = organisationUnitGroupService.getAllOrganisationUnitGroups()
+        Map<String, List<String>> orgUnitGroupMembers = organisationUnitGroupService.getAllOrganisationUnitGroups()
             .stream()
             .collect( Collectors.toMap( BaseIdentifiableObject::getUid,
                 g -> g.getMembers().stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) ) );
 
+        return new SharedContext( Collections.unmodifiableMap( constantMap ),
+            Collections.unmodifiableMap( orgUnitGroupMembers ) );
+    }
+
+    private Map<String, List<String>> getSupplementaryData( SharedContext sharedContext )
+    {
+        Map<String, List<String>> supplementaryData = new HashMap<>( sharedContext.orgUnitGroupMembers );
+
         if ( currentUserService.getCurrentUser() != null )
         {
             supplementaryData.put( USER, currentUserService.getCurrentUser().getUserCredentials()
                 .getUserAuthorityGroups().stream().map( UserAuthorityGroup::getUid ).collect( Collectors.toList() ) );
         }
 
-        return RuleEngineContext.builder()
-            .supplementaryData( supplementaryData )
-            .rules( programRuleEntityMapperService.toMappedProgramRules( programRules ) )
-            .ruleVariables( programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ) )
-            .constantsValue( constantMap )
-            .build();
+        return supplementaryData;
     }
 
     private RuleEngine.Builder ruleEngineBuilder( List<ProgramRule> programRules,
         List<ProgramRuleVariable> programRuleVariables, RuleEngineIntent intent )
     {
-        Map<String, String> constantMap = constantService.getConstantMap().entrySet()
-            .stream()
-            .collect( Collectors.toMap( Map.Entry::getKey, v -> v.getValue().toString() ) );
+        SharedContext sharedContext = getSharedContext();
 
-        Map<String, List<String>> supplementaryData = organisationUnitGroupService.getAllOrganisationUnitGroups()
-            .stream()
-            .collect( Collectors.toMap( BaseIdentifiableObject::getUid,
-                g -> g.getMembers().stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) ) );
+        Map<String, String> constantMap = sharedContext.constants;
+
+        Map<String, List<String>> supplementaryData = getSupplementaryData( sharedContext );
 
-        if ( currentUserService.getCurrentUser() != null )
-        {
-            supplementaryData.put( USER, currentUserService.getCurrentUser().getUserCredentials()
-                .getUserAuthorityGroups().stream().map( UserAuthorityGroup::getUid ).collect( Collectors.toList() ) );
-        }
         if ( RuleEngineIntent.DESCRIPTION == intent )
         {
             Map<String, DataItem> itemStore = programRuleEntityMapperService.getItemStore( programRuleVariables );
@@ -276,17 +434,50 @@ public class ProgramRuleEngine
         return programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
     }
 
-    private List<RuleEffect> getRuleEngineEvaluation( RuleEngine ruleEngine, RuleEnrollment enrollment,
+    private Callable<List<RuleEffect>> getRuleEngineEvaluation( RuleEngine ruleEngine, RuleEnrollment enrollment,
         ProgramStageInstance event )
         throws Exception
     {
         if ( event == null )
         {
-            return ruleEngine.evaluate( enrollment ).call();
+            return ruleEngine.evaluate( enrollment );
         }
         else
         {
-            return ruleEngine.evaluate( getRuleEvent( event ) ).call();
+            return ruleEngine.evaluate( getRuleEvent( event ) );
+        }
+    }
+
+    /**
+     * Rules and rule variables of a program, mapped for the rule engine.
+     */
+    private static final class ProgramContext
+    {
+        private final List<Rule> rules;
+
+        private final List<RuleVariable> ruleVariables;
+
+        private ProgramContext( List<Rule> rules, List<RuleVariable> ruleVariables )
+        {
+            this.rules = Collections.unmodifiableList( rules );
+            this.ruleVariables = Collections.unmodifiableList( ruleVariables );
+        }
+    }
+
+    /**
+     * Constants and organisation unit group members, mapped for the rule
+     * engine.
+     */
+    private static final class SharedContext
+    {
+        private final Map<String, String> constants;
+
+        private final Map<String, List<String>> orgUnitGroupMembers;
+
+        private SharedContext( Map<String, String> constants, Map<String, List<String>> orgUnitGroupMembers )
+        {
+            this.constants = constants;
+            this.orgUnitGroupMembers = orgUnitGroupMembers;
         }
     }
 }
@@ -0,0 +1,111 @@
+package org.hisp.dhis.programrule.engine;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramStageInstance;
+
+import com.google.common.collect.Sets;
+
+import lombok.Getter;
+
+/**
+ * A single enrollment or event to evaluate as part of a batch, see
+ * {@link ProgramRuleEngine#evaluate(java.util.List)}.
+ */
+@Getter
+public class ProgramRuleEvaluation
+{
+    private final String uid;
+
+    private final ProgramInstance enrollment;
+
+    private final ProgramStageInstance event;
+
+    private final Set<ProgramStageInstance> events;
+
+    private final Program program;
+
+    private ProgramRuleEvaluation( String uid, ProgramInstance enrollment, ProgramStageInstance event,
+        Set<ProgramStageInstance> events, Program program )
+    {
+        this.uid = uid;
+        this.enrollment = enrollment;
+        this.event = event;
+        this.events = events;
+        this.program = program;
+    }
+
+    /**
+     * Evaluates the rules of an enrollment.
+     *
+     * @param enrollment the enrollment, its uid is the key of the result.
+     * @param events the events of the enrollment.
+     */
+    public static ProgramRuleEvaluation forEnrollment( ProgramInstance enrollment, Set<ProgramStageInstance> events )
+    {
+        checkNotNull( enrollment );
+
+        return new ProgramRuleEvaluation( enrollment.getUid(), enrollment, null, events, enrollment.getProgram() );
+    }
+
+    /**
+     * Evaluates the rules of an event belonging to an enrollment.
+     *
+     * @param enrollment the enrollment of the event.
+     * @param event the event, its uid is the key of the result.
+     * @param events the events of the enrollment.
+     */
+    public static ProgramRuleEvaluation forEvent( ProgramInstance enrollment, ProgramStageInstance event,
+        Set<ProgramStageInstance> events )
+    {
+        checkNotNull( enrollment );
+        checkNotNull( event );
+
+        return new ProgramRuleEvaluation( event.getUid(), enrollment, event, events, enrollment.getProgram() );
+    }
+
+    /**
+     * Evaluates the rules of an event of a program without registration.
+     *
+     * @param event the event, its uid is the key of the result.
+     * @param program the program of the event.
+     */
+    public static ProgramRuleEvaluation forProgramEvent( ProgramStageInstance event, Program program )
+    {
+        checkNotNull( event );
+
+        return new ProgramRuleEvaluation( event.getUid(), null, event, Sets.newHashSet(), program );
+    }
+}
@@ -0,0 +1,126 @@
+package org.hisp.dhis.programrule.engine;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.cache.DefaultCacheProvider;
+import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.programrule.ProgramRuleVariableService;
+import org.hisp.dhis.user.CurrentUserService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+public class ProgramRuleEngineContextCacheTest extends DhisConvenienceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ProgramRuleEntityMapperService programRuleEntityMapperService;
+
+    @Mock
+    private ProgramRuleVariableService programRuleVariableService;
+
+    @Mock
+    private OrganisationUnitGroupService organisationUnitGroupService;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private ConstantService constantService;
+
+    @Mock
+    private ImplementableRuleService implementableRuleService;
+
+    @Mock
+    private Environment environment;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private ProgramRuleEngine programRuleEngine;
+
+    private ProgramInstance enrollment;
+
+    @Before
+    public void setUp()
+    {
+        when( environment.getActiveProfiles() ).thenReturn( new String[0] );
+
+        programRuleEngine = new ProgramRuleEngine( programRuleEntityMapperService, programRuleVariableService,
+            organisationUnitGroupService, currentUserService, constantService, implementableRuleService,
+            new DefaultCacheProvider(), environment, config, Runnable::run );
+
+        Program program = createProgram( 'A' );
+
+        enrollment = new ProgramInstance();
+        enrollment.setProgram( program );
+    }
+
+    @Test
+    public void testRuleEngineContextIsLoadedOncePerProgram()
+    {
+        programRuleEngine.evaluate( enrollment, new HashSet<>() );
+        programRuleEngine.evaluate( enrollment, new HashSet<>() );
+
+        verify( implementableRuleService, times( 1 ) ).getImplementableRules( enrollment.getProgram() );
+        verify( programRuleVariableService, times( 1 ) ).getProgramRuleVariable( enrollment.getProgram() );
+        verify( organisationUnitGroupService, times( 1 ) ).getAllOrganisationUnitGroups();
+        verify( constantService, times( 1 ) ).getConstantMap();
+    }
+
+    @Test
+    public void testRuleEngineContextIsReloadedAfterInvalidation()
+    {
+        programRuleEngine.evaluate( enrollment, new HashSet<>() );
+
+        programRuleEngine.invalidateContextCache();
+
+        programRuleEngine.evaluate( enrollment, new HashSet<>() );
+
+        verify( implementableRuleService, times( 2 ) ).getImplementableRules( enrollment.getProgram() );
+        verify( organisationUnitGroupService, times( 2 ) ).getAllOrganisationUnitGroups();
+    }
+}
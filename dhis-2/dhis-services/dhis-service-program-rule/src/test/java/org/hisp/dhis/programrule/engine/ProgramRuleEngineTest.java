@@ -85,6 +85,7 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
@@ -322,6 +323,33 @@ public class ProgramRuleEngineTest extends DhisSpringTest
         assertEquals( "message_template", template.getMessageTemplate() );
     }
 
+    @Test
+    public void testBatchEvaluationOfEnrollmentAndEvent()
+    {
+        setUpSendMessageForEnrollment();
+
+        ProgramInstance programInstance = programInstanceService.getProgramInstance( "UID-P1" );
+
+        ProgramStageInstance programStageInstance = programStageInstanceService.getProgramStageInstance( "UID-PS1" );
+
+        Map<String, List<RuleEffect>> ruleEffects = programRuleEngine.evaluate( Lists.newArrayList(
+            ProgramRuleEvaluation.forEnrollment( programInstance, Sets.newHashSet() ),
+            ProgramRuleEvaluation.forEvent( programStageInstance.getProgramInstance(), programStageInstance,
+                Sets.newHashSet() ) ) );
+
+        assertEquals( 2, ruleEffects.size() );
+
+        for ( String uid : Lists.newArrayList( "UID-P1", "UID-PS1" ) )
+        {
+            assertEquals( 1, ruleEffects.get( uid ).size() );
+
+            RuleAction ruleAction = ruleEffects.get( uid ).get( 0 ).ruleAction();
+
+            assertTrue( ruleAction instanceof RuleActionSendMessage );
+            assertEquals( "PNT-1", ((RuleActionSendMessage) ruleAction).notification() );
+        }
+    }
+
     @Test
     public void testSchedulingByProgramRule()
     {
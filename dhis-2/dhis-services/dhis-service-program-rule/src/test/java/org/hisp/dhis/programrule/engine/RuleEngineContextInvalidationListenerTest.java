@@ -0,0 +1,107 @@
+package org.hisp.dhis.programrule.engine;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.user.User;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class RuleEngineContextInvalidationListenerTest extends DhisConvenienceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ProgramRuleEngine programRuleEngine;
+
+    private RuleEngineContextInvalidationListener listener;
+
+    @Before
+    public void setUp()
+    {
+        listener = new RuleEngineContextInvalidationListener( Lists.newArrayList( programRuleEngine ) );
+    }
+
+    @Test
+    public void testInvalidateOnProgramRuleChange()
+    {
+        Program program = createProgram( 'A' );
+
+        PostUpdateEvent event = mock( PostUpdateEvent.class );
+        when( event.getEntity() ).thenReturn( createProgramRule( 'A', program ) );
+
+        listener.onPostUpdate( event );
+
+        verify( programRuleEngine ).invalidateContextCache();
+    }
+
+    @Test
+    public void testInvalidateOnProgramDelete()
+    {
+        PostDeleteEvent event = mock( PostDeleteEvent.class );
+        when( event.getEntity() ).thenReturn( createProgram( 'A' ) );
+
+        listener.onPostDelete( event );
+
+        verify( programRuleEngine ).invalidateContextCache();
+    }
+
+    @Test
+    public void testIgnoreUnrelatedMetadata()
+    {
+        PostInsertEvent insertEvent = mock( PostInsertEvent.class );
+        when( insertEvent.getEntity() ).thenReturn( new JobConfiguration() );
+
+        PostUpdateEvent updateEvent = mock( PostUpdateEvent.class );
+        when( updateEvent.getEntity() ).thenReturn( new User() );
+
+        listener.onPostInsert( insertEvent );
+        listener.onPostUpdate( updateEvent );
+
+        verify( programRuleEngine, never() ).invalidateContextCache();
+    }
+}
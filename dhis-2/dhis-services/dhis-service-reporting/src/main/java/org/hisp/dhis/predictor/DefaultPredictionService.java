@@ -39,6 +39,9 @@ import static org.hisp.dhis.system.notification.NotificationLevel.ERROR;
 import static org.hisp.dhis.system.util.ValidationUtils.dataValueIsZeroAndInsignificant;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -60,6 +63,8 @@ import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.expression.Expression;
 import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.batchhandler.DataValueBatchHandler;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
@@ -70,6 +75,7 @@ import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.program.AnalyticsType;
 import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobStatus;
 import org.hisp.dhis.scheduling.parameters.PredictorJobParameters;
 import org.hisp.dhis.system.notification.NotificationLevel;
 import org.hisp.dhis.system.notification.Notifier;
@@ -79,6 +85,8 @@ import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.quick.BatchHandler;
 import org.hisp.quick.BatchHandlerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -120,11 +128,22 @@ public class DefaultPredictionService
 
     private CurrentUserService currentUserService;
 
+    private final DhisConfigurationProvider config;
+
+    /**
+     * Bounded executor for prefetching the aggregate data of organisation unit
+     * chunks. Only runs JDBC queries, the predictions and writes are made on
+     * the calling thread within its transaction. The number of chunks fetched
+     * ahead equals the pool size.
+     */
+    private final ThreadPoolTaskExecutor predictorExecutor;
+
     public DefaultPredictionService( PredictorService predictorService, ConstantService constantService,
         ExpressionService expressionService, DataValueService dataValueService, CategoryService categoryService,
         OrganisationUnitService organisationUnitService, PeriodService periodService,
         IdentifiableObjectManager idObjectManager, AnalyticsService analyticsService, Notifier notifier,
-        BatchHandlerFactory batchHandlerFactory, CurrentUserService currentUserService )
+        BatchHandlerFactory batchHandlerFactory, CurrentUserService currentUserService,
+        DhisConfigurationProvider config, @Qualifier( "predictorTaskExecutor" ) ThreadPoolTaskExecutor predictorExecutor )
     {
         checkNotNull( predictorService );
         checkNotNull( constantService );
@@ -137,6 +156,8 @@ public class DefaultPredictionService
         checkNotNull( notifier );
         checkNotNull( batchHandlerFactory );
         checkNotNull( currentUserService );
+        checkNotNull( config );
+        checkNotNull( predictorExecutor );
 
         this.predictorService = predictorService;
         this.constantService = constantService;
@@ -150,6 +171,8 @@ public class DefaultPredictionService
         this.notifier = notifier;
         this.batchHandlerFactory = batchHandlerFactory;
         this.currentUserService = currentUserService;
+        this.config = config;
+        this.predictorExecutor = predictorExecutor;
     }
 
     /**
@@ -187,12 +210,29 @@ public class DefaultPredictionService
         Date startDate = DateUtils.getDateAfterAddition( new Date(), params.getRelativeStart() );
         Date endDate = DateUtils.getDateAfterAddition( new Date(), params.getRelativeEnd() );
 
-        return predictTask( startDate, endDate, params.getPredictors(), params.getPredictorGroups(), jobId );
+        PredictionSummary predictionSummary = predictTask( startDate, endDate, params.getPredictors(),
+            params.getPredictorGroups(), getChangedSince( params, jobId ), jobId );
+
+        // Fail the job so that the next incremental run does not start from
+        // this run, as changes since the last completed run would be lost
+
+        if ( predictionSummary.getStatus() == PredictionStatus.ERROR )
+        {
+            throw new IllegalStateException( predictionSummary.getDescription() );
+        }
+
+        return predictionSummary;
     }
 
     @Override
     public PredictionSummary predictTask( Date startDate, Date endDate,
         List<String> predictors, List<String> predictorGroups, JobConfiguration jobId )
+    {
+        return predictTask( startDate, endDate, predictors, predictorGroups, null, jobId );
+    }
+
+    private PredictionSummary predictTask( Date startDate, Date endDate,
+        List<String> predictors, List<String> predictorGroups, Date changedSince, JobConfiguration jobId )
     {
         PredictionSummary predictionSummary;
 
@@ -200,7 +240,7 @@ public class DefaultPredictionService
         {
             notifier.notify( jobId, NotificationLevel.INFO, "Making predictions", false );
 
-            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups );
+            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups, changedSince );
 
             notifier.update( jobId, NotificationLevel.INFO, "Prediction done", true )
                 .addJobSummary( jobId, predictionSummary, PredictionSummary.class );
@@ -217,7 +257,27 @@ public class DefaultPredictionService
         return predictionSummary;
     }
 
-    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors, List<String> predictorGroups )
+    /**
+     * Gets the date since which input data changes must be recomputed by an
+     * incremental job, or null if all predictions must be recomputed. Uses
+     * the end of the last completed run minus one day as a safety margin, as
+     * data changed while the last run was reading it would otherwise be
+     * missed. Runs which fail with an error are marked as failed, so they
+     * never count as completed.
+     */
+    private Date getChangedSince( PredictorJobParameters params, JobConfiguration jobId )
+    {
+        if ( !params.isIncremental() || jobId == null || jobId.getLastExecuted() == null
+            || jobId.getLastExecutedStatus() != JobStatus.COMPLETED )
+        {
+            return null;
+        }
+
+        return DateUtils.getDateAfterAddition( jobId.getLastExecuted(), -1 );
+    }
+
+    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors,
+        List<String> predictorGroups, Date changedSince )
     {
         List<Predictor> predictorList = new ArrayList<>();
 
@@ -245,11 +305,16 @@ public class DefaultPredictionService
 
         PredictionSummary predictionSummary = new PredictionSummary();
 
-        log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to " + endDate.toString() );
+        log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to " + endDate.toString()
+            + ( changedSince != null ? " for data changed since " + changedSince.toString() : "" ) );
+
+        Set<DataElement> outputs = new HashSet<>();
 
         for ( Predictor predictor : predictorList )
         {
-            predict( predictor, startDate, endDate, predictionSummary );
+            predict( predictor, startDate, endDate, changedSince, outputs, predictionSummary );
+
+            outputs.add( predictor.getOutput() );
         }
 
         log.info( "Finished predictors from " + startDate.toString() + " to " + endDate.toString() + ": " + predictionSummary.toString() );
@@ -259,6 +324,26 @@ public class DefaultPredictionService
 
     @Override
     public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
+    {
+        predict( predictor, startDate, endDate, null, predictionSummary );
+    }
+
+    @Override
+    public void predict( Predictor predictor, Date startDate, Date endDate, Date changedSince,
+        PredictionSummary predictionSummary )
+    {
+        predict( predictor, startDate, endDate, changedSince, new HashSet<>(), predictionSummary );
+    }
+
+    /**
+     * Makes predictions for a predictor.
+     *
+     * @param outputs the outputs of the predictors already run within the
+     *        current transaction. Their uncommitted values are not visible to
+     *        queries run on other threads.
+     */
+    private void predict( Predictor predictor, Date startDate, Date endDate, Date changedSince,
+        Set<DataElement> outputs, PredictionSummary predictionSummary )
     {
         Expression generator = predictor.getGenerator();
         Expression skipTest = predictor.getSampleSkipTest();
@@ -294,6 +379,19 @@ public class DefaultPredictionService
         boolean requireData = generator.getMissingValueStrategy() != NEVER_SKIP && ( !items.isEmpty() || !sampleItems.isEmpty() );
         DimensionalItemObject predictionReference = getPredictionReference( outputDataElement, outputOptionCombo, sampleItems );
 
+        // Predictors using their own output as input depend on predictions
+        // made earlier in the same run, so they are not run incrementally.
+        // Data is only prefetched on other threads if neither an input nor
+        // the output was written within the current transaction, as existing
+        // predictions are prefetched along with the input data.
+
+        boolean usesOutput = usesAny( Collections.singleton( outputDataElement ), items, sampleItems );
+        boolean incremental = changedSince != null && !usesOutput
+            && isIncrementalPossible( predictor, items, sampleItems, constantMap, changedSince );
+        boolean prefetch = config.isEnabled( ConfigurationKey.PREDICTOR_PARALLEL_ENABLED ) && !usesOutput
+            && !usesAny( outputs, items, sampleItems ) && !outputs.contains( outputDataElement );
+        Set<Period> existingPeriods = Sets.union( existingSamplePeriods, existingOutputPeriods );
+
         Set<OrganisationUnit> currentUserOrgUnits = new HashSet<>();
         String storedBy = "system-process";
         User currentUser = currentUserService.getCurrentUser();
@@ -325,13 +423,69 @@ public class DefaultPredictionService
 
             List<List<OrganisationUnit>> orgUnitLists = Lists.partition( orgUnitsAtLevel, 500 );
 
+            // Aggregate data values are fetched by separate queries per org
+            // unit chunk. If enabled, the queries for the next chunks run on
+            // a bounded pool while the current chunk is predicted.
+
+            List<Supplier<ChunkData>> chunkFetches = new ArrayList<>();
+
             for ( List<OrganisationUnit> orgUnits : orgUnitLists )
             {
+                if ( prefetch )
+                {
+                    // Loads the org unit ancestors needed for the paths
+                    // within the current session before the queries run.
+
+                    orgUnits.forEach( OrganisationUnit::getPath );
+                }
+
+                chunkFetches.add( getChunkFetch(
+                    getDataExportParams( sampleItems, existingSamplePeriods, orgUnits ),
+                    getDataExportParams( items, existingOutputPeriods, orgUnits ),
+                    incremental ? getChangedDataExportParams( items, sampleItems, existingPeriods, orgUnits, changedSince ) : null,
+                    getOutputDataExportParams( outputDataElement, outputOptionCombo, outputPeriodSet, orgUnits ) ) );
+            }
+
+            List<CompletableFuture<ChunkData>> prefetchedChunks = new ArrayList<>();
+
+            int prefetchChunks = predictorExecutor.getCorePoolSize();
+
+            for ( int chunk = 0; chunk < orgUnitLists.size(); chunk++ )
+            {
+                List<OrganisationUnit> orgUnits = orgUnitLists.get( chunk );
+
+                ChunkData chunkData;
+
+                if ( prefetch && orgUnitLists.size() > 1 )
+                {
+                    while ( prefetchedChunks.size() < Math.min( chunk + prefetchChunks, orgUnitLists.size() ) )
+                    {
+                        prefetchedChunks.add( CompletableFuture.supplyAsync(
+                            chunkFetches.get( prefetchedChunks.size() ), predictorExecutor ) );
+                    }
+
+                    chunkData = join( prefetchedChunks.get( chunk ) );
+
+                    prefetchedChunks.set( chunk, null );
+                }
+                else
+                {
+                    chunkData = chunkFetches.get( chunk ).get();
+                }
+
                 Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> sampleMap4 = sampleItems.isEmpty() ?
-                    new Map4<>() : getDataValues( sampleItems, allSamplePeriods, existingSamplePeriods, orgUnits );
+                    new Map4<>() : getDataValues( sampleItems, allSamplePeriods, existingSamplePeriods, orgUnits, chunkData.sampleValues );
 
                 Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> valueMap4 = items.isEmpty() ?
-                        new Map4<>() : getDataValues( items, outputPeriodSet, existingOutputPeriods, orgUnits );
+                        new Map4<>() : getDataValues( items, outputPeriodSet, existingOutputPeriods, orgUnits, chunkData.values );
+
+                // In incremental mode, predict only for org unit and output
+                // periods with changed input data or without a prediction.
+
+                Set<String> predictedKeys = incremental ? new HashSet<>() : null;
+                Set<String> changedKeys = incremental ? getChangedKeys( chunkData.changedValues, existingPeriods ) : null;
+                Set<String> existingPredictionKeys = incremental ? getChangedKeys( chunkData.oldValues.stream()
+                    .filter( dv -> !dv.isDeleted() ).collect( Collectors.toList() ), outputPeriodSet ) : null;
 
                 List<DataValue> predictions = new ArrayList<>();
 
@@ -350,6 +504,21 @@ public class DefaultPredictionService
                     MapMap<Period, DimensionalItemObject, Double> sampleMapNonAoc = firstNonNull( sampleMap3.get( NON_AOC ), new MapMap<>() );
                     MapMap<Period, DimensionalItemObject, Double> valueMapNonAoc = firstNonNull( valueMap3.get( NON_AOC ), new MapMap<>() );
 
+                    Set<Period> orgUnitOutputPeriods = new HashSet<>( outputPeriods );
+
+                    if ( incremental )
+                    {
+                        orgUnitOutputPeriods.removeIf( outputPeriod -> !isPredictionNeeded( orgUnit, outputPeriod,
+                            samplePeriodsMap, changedKeys, existingPredictionKeys ) );
+
+                        orgUnitOutputPeriods.forEach( outputPeriod -> predictedKeys.add( getKey( orgUnit, outputPeriod ) ) );
+
+                        if ( orgUnitOutputPeriods.isEmpty() )
+                        {
+                            continue;
+                        }
+                    }
+
                     Set<String> attributeOptionCombos = getAttributeOptionCombos( sampleMap3, valueMap3, defaultOptionComboAsSet );
 
                     // Predict independently for each AOC, adding in the data,
@@ -369,6 +538,11 @@ public class DefaultPredictionService
 
                         for ( Period outputPeriod : outputPeriods )
                         {
+                            if ( !orgUnitOutputPeriods.contains( outputPeriod ) )
+                            {
+                                continue;
+                            }
+
                             Map<DimensionalItemObject, Double> valueMap = firstNonNull( valueMap2.get( outputPeriod ), new HashMap<>() );
 
                             if ( requireData && dataIsAbsent( outputPeriod, valueMap, samplePeriodsMap, periodValueMap ) )
@@ -399,8 +573,8 @@ public class DefaultPredictionService
                     }
                 }
 
-                writePredictions( predictions, outputDataElement, outputOptionCombo,
-                    outputPeriodSet, existingOutputPeriods, orgUnits, storedBy, predictionSummary );
+                writePredictions( predictions, outputDataElement, outputOptionCombo, existingOutputPeriods,
+                    orgUnits, storedBy, chunkData.oldValues, predictedKeys, predictionSummary );
             }
         }
     }
@@ -409,6 +583,114 @@ public class DefaultPredictionService
     // Supportive Methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Aggregate data values fetched for an organisation unit chunk.
+     */
+    private static class ChunkData
+    {
+        private final List<DeflatedDataValue> sampleValues;
+
+        private final List<DeflatedDataValue> values;
+
+        private final List<DeflatedDataValue> changedValues;
+
+        private final List<DeflatedDataValue> oldValues;
+
+        private ChunkData( List<DeflatedDataValue> sampleValues, List<DeflatedDataValue> values,
+            List<DeflatedDataValue> changedValues, List<DeflatedDataValue> oldValues )
+        {
+            this.sampleValues = sampleValues;
+            this.values = values;
+            this.changedValues = changedValues;
+            this.oldValues = oldValues;
+        }
+    }
+
+    /**
+     * Checks whether any of the predictor items reference data of any of the
+     * given data elements.
+     *
+     * @param dataElements the data elements.
+     * @param items the non-sampled items.
+     * @param sampleItems the sampled items.
+     * @return true if the data elements are used as input.
+     */
+    private boolean usesAny( Collection<DataElement> dataElements, Set<DimensionalItemObject> items,
+        Set<DimensionalItemObject> sampleItems )
+    {
+        return Sets.union( items, sampleItems ).stream().anyMatch( item ->
+            dataElements.contains( item ) || ( item instanceof DataElementOperand
+                && dataElements.contains( ( (DataElementOperand) item ).getDataElement() ) ) );
+    }
+
+    /**
+     * Checks whether changes to the predictor input can be found from the
+     * aggregate data values changed since a given date. This is not the case
+     * for event data, or if the predictor or any constant changed since.
+     *
+     * @param predictor the predictor.
+     * @param items the non-sampled items.
+     * @param sampleItems the sampled items.
+     * @param constantMap the constants.
+     * @param changedSince the date since which to find changes.
+     * @return true if the predictor can be run incrementally.
+     */
+    private boolean isIncrementalPossible( Predictor predictor, Set<DimensionalItemObject> items,
+        Set<DimensionalItemObject> sampleItems, Map<String, Constant> constantMap, Date changedSince )
+    {
+        boolean aggregateOnly = Sets.union( items, sampleItems ).stream()
+            .allMatch( item -> item instanceof DataElement || item instanceof DataElementOperand );
+
+        boolean predictorChanged = predictor.getLastUpdated() == null || !predictor.getLastUpdated().before( changedSince );
+
+        boolean constantChanged = constantMap.values().stream()
+            .anyMatch( c -> c.getLastUpdated() == null || !c.getLastUpdated().before( changedSince ) );
+
+        return aggregateOnly && !predictorChanged && !constantChanged;
+    }
+
+    /**
+     * Gets the organisation unit and period keys of data values.
+     *
+     * @param dataValues the data values.
+     * @param periods the periods to look up the data value periods in.
+     * @return the set of keys.
+     */
+    private Set<String> getChangedKeys( List<DeflatedDataValue> dataValues, Set<Period> periods )
+    {
+        Map<Long, Period> periodLookup = periods.stream().collect( Collectors.toMap( Period::getId, p -> p ) );
+
+        return dataValues.stream()
+            .filter( dv -> periodLookup.containsKey( dv.getPeriodId() ) )
+            .map( dv -> dv.getSourceId() + "-" + periodLookup.get( dv.getPeriodId() ).getIsoDate() )
+            .collect( Collectors.toSet() );
+    }
+
+    private String getKey( OrganisationUnit orgUnit, Period period )
+    {
+        return orgUnit.getId() + "-" + period.getId();
+    }
+
+    /**
+     * Checks whether an incremental run must predict for an organisation unit
+     * and output period. This is the case if there is no prediction yet, or
+     * if input data changed in the output period or any of its sample periods.
+     */
+    private boolean isPredictionNeeded( OrganisationUnit orgUnit, Period outputPeriod,
+        ListMap<Period, Period> samplePeriodsMap, Set<String> changedKeys, Set<String> existingPredictionKeys )
+    {
+        String prefix = orgUnit.getId() + "-";
+
+        if ( !existingPredictionKeys.contains( prefix + outputPeriod.getIsoDate() )
+            || changedKeys.contains( prefix + outputPeriod.getIsoDate() ) )
+        {
+            return true;
+        }
+
+        return samplePeriodsMap.get( outputPeriod ).stream()
+            .anyMatch( p -> changedKeys.contains( prefix + p.getIsoDate() ) );
+    }
+
     /**
      * For a predictor and orgUnit, determines the set of attribute option
      * combos for which predictions will be generated.
@@ -702,11 +984,12 @@ public class DefaultPredictionService
      * @param allPeriods all data Periods (to fetch event data).
      * @param existingPeriods existing data Periods (to fetch aggregate data).
      * @param orgUnits the roots of the OrganisationUnit trees to include.
+     * @param deflatedDataValues the fetched aggregate data values.
      * @return the map of values
      */
     private Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> getDataValues(
         Set<DimensionalItemObject> dimensionItems, Set<Period> allPeriods, Set<Period> existingPeriods,
-        List<OrganisationUnit> orgUnits)
+        List<OrganisationUnit> orgUnits, List<DeflatedDataValue> deflatedDataValues )
     {
         Set<DataElement> dataElements = new HashSet<>();
         Set<DataElementOperand> dataElementOperands = new HashSet<>();
@@ -736,7 +1019,7 @@ public class DefaultPredictionService
 
         if ( ( !dataElements.isEmpty() || !dataElementOperands.isEmpty() ) && !existingPeriods.isEmpty() )
         {
-            dataValues = fetchDataValues( dataElements, dataElementOperands, existingPeriods, orgUnits );
+            dataValues = mapDataValues( dataElements, dataElementOperands, existingPeriods, orgUnits, deflatedDataValues );
         }
 
         if ( !eventAttributeOptionObjects.isEmpty() && !allPeriods.isEmpty() )
@@ -752,18 +1035,139 @@ public class DefaultPredictionService
         return dataValues;
     }
 
-    private Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> fetchDataValues(
-        Set<DataElement> dataElements, Set<DataElementOperand> dataElementOperands, Set<Period> periods, List<OrganisationUnit> orgUnits )
+    /**
+     * Gets the parameters to fetch the aggregate data values for a set of
+     * DimensionalItemObjects, or null if there is no aggregate data to fetch.
+     *
+     * @param dimensionItems the dimensionItems.
+     * @param existingPeriods existing data Periods.
+     * @param orgUnits the roots of the OrganisationUnit trees to include.
+     * @return the data export parameters, or null.
+     */
+    private DataExportParams getDataExportParams( Set<DimensionalItemObject> dimensionItems,
+        Set<Period> existingPeriods, List<OrganisationUnit> orgUnits )
     {
+        Set<DataElement> dataElements = getDataElements( dimensionItems );
+        Set<DataElementOperand> dataElementOperands = getDataElementOperands( dimensionItems );
+
+        if ( ( dataElements.isEmpty() && dataElementOperands.isEmpty() ) || existingPeriods.isEmpty() )
+        {
+            return null;
+        }
+
         DataExportParams params = new DataExportParams();
         params.setDataElements( dataElements );
         params.setDataElementOperands( dataElementOperands );
-        params.setPeriods( periods );
+        params.setPeriods( existingPeriods );
         params.setOrganisationUnits( new HashSet<>( orgUnits ) );
         params.setReturnParentOrgUnit( true );
 
-        List<DeflatedDataValue> deflatedDataValues = dataValueService.getDeflatedDataValues( params );
+        return params;
+    }
 
+    /**
+     * Gets the parameters to fetch the aggregate input data values, including
+     * deletions, that changed since a given date. Returns null if there is no
+     * aggregate input data.
+     *
+     * @param items the non-sampled items.
+     * @param sampleItems the sampled items.
+     * @param existingPeriods existing sample and output Periods.
+     * @param orgUnits the roots of the OrganisationUnit trees to include.
+     * @param changedSince the date since which to find changes.
+     * @return the data export parameters, or null.
+     */
+    private DataExportParams getChangedDataExportParams( Set<DimensionalItemObject> items,
+        Set<DimensionalItemObject> sampleItems, Set<Period> existingPeriods, List<OrganisationUnit> orgUnits,
+        Date changedSince )
+    {
+        DataExportParams params = getDataExportParams( Sets.union( items, sampleItems ), existingPeriods, orgUnits );
+
+        if ( params != null )
+        {
+            params.setIncludeDeleted( true );
+            params.setLastUpdated( changedSince );
+        }
+
+        return params;
+    }
+
+    /**
+     * Gets the parameters to fetch the existing predicted values, including
+     * deleted ones, for a predictor output.
+     *
+     * @param outputDataElement Predictor output data element.
+     * @param outputOptionCombo Predictor output category option combo.
+     * @param periods Periods to predict for.
+     * @param orgUnits Organisation units to predict for.
+     * @return the data export parameters.
+     */
+    private DataExportParams getOutputDataExportParams( DataElement outputDataElement,
+        CategoryOptionCombo outputOptionCombo, Set<Period> periods, List<OrganisationUnit> orgUnits )
+    {
+        DataExportParams params = new DataExportParams();
+        params.setDataElementOperands( Sets.newHashSet( new DataElementOperand( outputDataElement, outputOptionCombo ) ) );
+        params.setPeriods( periods );
+        params.setOrganisationUnits( new HashSet<>( orgUnits ) );
+        params.setIncludeDeleted( true );
+
+        return params;
+    }
+
+    /**
+     * Gets a supplier of the aggregate data values needed to predict for an
+     * organisation unit chunk. The supplier only runs JDBC queries and can
+     * therefore be run outside of the current transaction.
+     */
+    private Supplier<ChunkData> getChunkFetch( DataExportParams sampleParams, DataExportParams valueParams,
+        DataExportParams changedParams, DataExportParams oldValueParams )
+    {
+        return () -> new ChunkData( fetchDataValues( sampleParams ), fetchDataValues( valueParams ),
+            fetchDataValues( changedParams ), fetchDataValues( oldValueParams ) );
+    }
+
+    private List<DeflatedDataValue> fetchDataValues( DataExportParams params )
+    {
+        return params == null ? new ArrayList<>() : dataValueService.getDeflatedDataValues( params );
+    }
+
+    private ChunkData join( CompletableFuture<ChunkData> future )
+    {
+        try
+        {
+            return future.join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    private Set<DataElement> getDataElements( Set<DimensionalItemObject> dimensionItems )
+    {
+        return dimensionItems.stream()
+            .filter( o -> o instanceof DataElement )
+            .map( o -> (DataElement) o )
+            .collect( Collectors.toSet() );
+    }
+
+    private Set<DataElementOperand> getDataElementOperands( Set<DimensionalItemObject> dimensionItems )
+    {
+        return dimensionItems.stream()
+            .filter( o -> o instanceof DataElementOperand )
+            .map( o -> (DataElementOperand) o )
+            .collect( Collectors.toSet() );
+    }
+
+    private Map4<OrganisationUnit, String, Period, DimensionalItemObject, Double> mapDataValues(
+        Set<DataElement> dataElements, Set<DataElementOperand> dataElementOperands, Set<Period> periods,
+        List<OrganisationUnit> orgUnits, List<DeflatedDataValue> deflatedDataValues )
+    {
         Map<Long, DataElement> dataElementLookup = dataElements.stream().collect( Collectors.toMap( DataElement::getId, de -> de ) );
         Map<String, DataElementOperand> dataElementOperandLookup = dataElementOperands.stream().collect(
             Collectors.toMap( deo -> deo.getDataElement().getId() + "." + deo.getCategoryOptionCombo().getId(), deo -> deo ) );
@@ -898,24 +1302,23 @@ public class DefaultPredictionService
      * @param predictions Predictions to write to the database.
      * @param outputDataElement Predictor output data elmeent.
      * @param outputOptionCombo Predictor output category option commbo.
-     * @param periods Periods to predict for.
      * @param existingPeriods Those periods to predict for already in DB.
      * @param orgUnits Organisation units to predict for.
+     * @param oldValueList Existing predicted values, including deleted ones.
+     * @param predictedKeys Org unit and period keys predicted for, or null
+     *        if predicted for all of them.
      * @param summary Prediction summary to update.
      */
     private void writePredictions( List<DataValue> predictions, DataElement outputDataElement,
-        CategoryOptionCombo outputOptionCombo, Set<Period> periods, Set<Period> existingPeriods,
-        List<OrganisationUnit> orgUnits, String storedBy, PredictionSummary summary )
+        CategoryOptionCombo outputOptionCombo, Set<Period> existingPeriods, List<OrganisationUnit> orgUnits,
+        String storedBy, List<DeflatedDataValue> oldValueList, Set<String> predictedKeys, PredictionSummary summary )
     {
-        DataExportParams params = new DataExportParams();
-        params.setDataElementOperands( Sets.newHashSet( new DataElementOperand( outputDataElement, outputOptionCombo ) ) );
-        params.setPeriods( periods );
-        params.setOrganisationUnits( new HashSet<>( orgUnits ) );
-        params.setIncludeDeleted( true );
-
-        List<DeflatedDataValue> oldValueList = dataValueService.getDeflatedDataValues( params );
+        // Old values for org units and periods that were not predicted for
+        // are left as they are.
 
-        Map<String, DeflatedDataValue> oldValues = oldValueList.stream().collect( Collectors.toMap(
+        Map<String, DeflatedDataValue> oldValues = oldValueList.stream()
+            .filter( d -> predictedKeys == null || predictedKeys.contains( d.getSourceId() + "-" + d.getPeriodId() ) )
+            .collect( Collectors.toMap(
             d -> d.getPeriodId() + "-" + d.getSourceId() + "-" + d.getAttributeOptionComboId(), d -> d ) );
 
         BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
@@ -43,7 +43,8 @@ public interface PredictionService
      * Executes a predictor job run
      *
      * @param predictorJobParameters parameters for the predictor job run
-     * @param jobId associated with the task running (for notifier)
+     * @param jobId associated with the task running (for notifier, and for
+     *        the time of the last run of incremental jobs)
      * @return a summary of what was predicted
      */
     PredictionSummary predictJob( PredictorJobParameters predictorJobParameters, JobConfiguration jobId );
@@ -70,4 +71,20 @@ public interface PredictionService
      * @param predictionSummary the prediction summary to add to
      */
     void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary );
+
+    /**
+     * Executes a single predictor for a date range, recomputing only the
+     * predictions for which input data changed since the given date. All
+     * predictions are recomputed if the predictor, or a constant, changed
+     * since that date, or if the predictor uses event data.
+     *
+     * @param predictor the predictor to run
+     * @param startDate the start date of the predictor run
+     * @param endDate the end date of the predictor run
+     * @param changedSince recompute predictions with data changed since this
+     *        date, or all predictions if null
+     * @param predictionSummary the prediction summary to add to
+     */
+    void predict( Predictor predictor, Date startDate, Date endDate, Date changedSince,
+        PredictionSummary predictionSummary );
 }
@@ -68,6 +68,6 @@ public class PredictorJob
             throw new IllegalStateException( "No job parameters present in predictor job" );
         }
 
-        predictionService.predictJob( predictorJobParameters, null );
+        predictionService.predictJob( predictorJobParameters, jobConfiguration );
     }
 }
@@ -60,6 +60,14 @@ public class ValidationRunContext
 {
     public static final int ORG_UNITS_PER_TASK = 500;
 
+    public static final int MIN_ORG_UNITS_PER_TASK = 20;
+
+    /**
+     * Number of tasks to aim for per thread, so that threads finishing early
+     * can take over remaining work.
+     */
+    public static final int TASKS_PER_THREAD = 4;
+
     private Queue<ValidationResult> validationResults;
 
     private List<OrganisationUnit> orgUnits;
@@ -86,6 +94,8 @@ public class ValidationRunContext
 
     private boolean persistResults = false;
 
+    private volatile boolean cancelled = false;
+
     private MapMapMap<OrganisationUnit, ValidationRule, Period, List<ValidationResult>> initialValidationResults = new MapMapMap<>();
 
     private ValidationRunContext()
@@ -203,14 +213,39 @@ public class ValidationRunContext
 
     }
 
-    public int getNumberOfTasks()
+    /**
+     * Determines the number of organisation units per task, so that there are
+     * enough tasks to keep all threads busy until the end of the run.
+     *
+     * @param parallelism the number of threads running validation tasks.
+     * @return the number of organisation units per task.
+     */
+    public int getOrgUnitsPerTask( int parallelism )
+    {
+        int targetTasks = Math.max( 1, parallelism * TASKS_PER_THREAD );
+
+        int orgUnitsPerTask = ( orgUnits.size() + targetTasks - 1 ) / targetTasks;
+
+        return Math.max( MIN_ORG_UNITS_PER_TASK, Math.min( ORG_UNITS_PER_TASK, orgUnitsPerTask ) );
+    }
+
+    /**
+     * Cancels the validation run. Running tasks stop at the next check of
+     * {@link #isAnalysisComplete()}.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+
+    public boolean isCancelled()
     {
-        return ( orgUnits.size() + ORG_UNITS_PER_TASK - 1 ) / ORG_UNITS_PER_TASK;
+        return cancelled;
     }
 
     public boolean isAnalysisComplete()
     {
-        return validationResults.size() >= maxResults;
+        return cancelled || validationResults.size() >= maxResults;
     }
 
     // -------------------------------------------------------------------------
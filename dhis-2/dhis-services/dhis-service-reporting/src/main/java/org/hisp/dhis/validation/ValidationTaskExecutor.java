@@ -0,0 +1,187 @@
+package org.hisp.dhis.validation;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.monitoring.metrics.MonitoredMeterBinder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes validation tasks on a work-stealing pool shared by all validation
+ * runs, so that concurrent runs do not oversubscribe the CPU. The pool size
+ * is set by {@code validation.thread.pool.size} and defaults to one less than
+ * the number of CPU cores.
+ */
+@Slf4j
+@Component
+public class ValidationTaskExecutor
+    implements MonitoredMeterBinder
+{
+    private final ForkJoinPool pool;
+
+    private final AtomicLong taskCount = new AtomicLong();
+
+    private final AtomicLong taskTimeNanos = new AtomicLong();
+
+    private final AtomicLong failedTaskCount = new AtomicLong();
+
+    public ValidationTaskExecutor( DhisConfigurationProvider config )
+    {
+        int poolSize = NumberUtils.toInt( config.getProperty( ConfigurationKey.VALIDATION_THREAD_POOL_SIZE ), 0 );
+
+        if ( poolSize <= 0 )
+        {
+            poolSize = SystemUtils.getCpuCores();
+
+            if ( poolSize > 2 )
+            {
+                poolSize--;
+            }
+        }
+
+        this.pool = new ForkJoinPool( poolSize, this::newThread, null, true );
+
+        log.info( "Validation task executor created with parallelism: " + poolSize );
+    }
+
+    /**
+     * Submits a validation task. The time spent running the task is recorded.
+     *
+     * @param task the validation task.
+     * @return the future of the task, which can be used to cancel it.
+     */
+    public Future<?> submit( ValidationTask task )
+    {
+        return pool.submit( () -> {
+            long start = System.nanoTime();
+
+            try
+            {
+                task.run();
+            }
+            catch ( RuntimeException ex )
+            {
+                failedTaskCount.incrementAndGet();
+
+                throw ex;
+            }
+            finally
+            {
+                long elapsed = System.nanoTime() - start;
+
+                taskCount.incrementAndGet();
+                taskTimeNanos.addAndGet( elapsed );
+
+                log.debug( "Validation task finished in " + TimeUnit.NANOSECONDS.toMillis( elapsed ) + " ms" );
+            }
+        } );
+    }
+
+    /**
+     * Returns the number of threads validation tasks run on.
+     */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public ConfigurationKey getMonitoringKey()
+    {
+        return ConfigurationKey.MONITORING_VALIDATION_ENABLED;
+    }
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        FunctionTimer.builder( "validation.tasks", this, ValidationTaskExecutor::getTaskCount,
+            ValidationTaskExecutor::getTaskTimeNanos, TimeUnit.NANOSECONDS )
+            .description( "Time spent running validation tasks" )
+            .register( registry );
+
+        FunctionCounter.builder( "validation.tasks.failed", failedTaskCount, AtomicLong::get )
+            .description( "Number of validation tasks which failed with an error" )
+            .register( registry );
+
+        Gauge.builder( "validation.tasks.queued", pool, ForkJoinPool::getQueuedSubmissionCount )
+            .description( "Number of validation tasks waiting to run" )
+            .register( registry );
+
+        Gauge.builder( "validation.tasks.active", pool, ForkJoinPool::getActiveThreadCount )
+            .description( "Number of threads currently running validation tasks" )
+            .register( registry );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        pool.shutdownNow();
+    }
+
+    private long getTaskCount()
+    {
+        return taskCount.get();
+    }
+
+    private double getTaskTimeNanos()
+    {
+        return taskTimeNanos.get();
+    }
+
+    private ForkJoinWorkerThread newThread( ForkJoinPool forkJoinPool )
+    {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread( forkJoinPool );
+
+        thread.setName( "VALIDATION-" + thread.getPoolIndex() );
+        thread.setDaemon( true );
+
+        // Worker threads must resolve classes of the web application
+
+        thread.setContextClassLoader( ValidationTaskExecutor.class.getClassLoader() );
+
+        return thread;
+    }
+}
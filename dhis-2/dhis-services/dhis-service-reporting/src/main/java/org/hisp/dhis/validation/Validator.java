@@ -29,34 +29,42 @@ package org.hisp.dhis.validation;
  */
 
 import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.category.CategoryService;
-import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.springframework.context.ApplicationContext;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Evaluates validation rules.
  *
  * @author Jim Grace
  */
+@Slf4j
 public class Validator
 {
+    private static final long MAX_RUN_HOURS = 6;
+
     /**
      * Evaluates validation rules for a collection of organisation units. This
      * method breaks the job down by organisation unit. It assigns the
-     * evaluation for each organisation unit to a task that can be evaluated
-     * independently in a multi-threaded environment.
+     * evaluation for each group of organisation units to a task that can be
+     * evaluated independently on the shared {@link ValidationTaskExecutor}.
+     * The group size adapts to the number of organisation units and threads,
+     * so that threads finishing early can take over remaining tasks.
      * <p/>
      * Return early with no results if there are no organisation units
-     * or no validation rules.
+     * or no validation rules. If the calling thread is interrupted, for
+     * instance when the validation job is stopped, the remaining tasks are
+     * cancelled and the results found so far are returned.
      *
      * @return a collection of any validations that were found
      */
@@ -65,35 +73,27 @@ public class Validator
     {
         CategoryService categoryService = applicationContext.getBean( CategoryService.class );
 
-        int threadPoolSize = getThreadPoolSize( context );
-
-        if ( threadPoolSize == 0 || context.getPeriodTypeXs().isEmpty() )
+        if ( context.getOrgUnits().isEmpty() || context.getPeriodTypeXs().isEmpty() )
         {
             return new ArrayList<>( context.getValidationResults() );
         }
 
-        ExecutorService executor = Executors.newFixedThreadPool( threadPoolSize );
+        ValidationTaskExecutor executor = applicationContext.getBean( ValidationTaskExecutor.class );
 
-        List<List<OrganisationUnit>> orgUnitLists = Lists.partition( context.getOrgUnits(), ValidationRunContext.ORG_UNITS_PER_TASK );
+        List<List<OrganisationUnit>> orgUnitLists = Lists.partition( context.getOrgUnits(),
+            context.getOrgUnitsPerTask( executor.getParallelism() ) );
+
+        List<Future<?>> futures = new ArrayList<>();
 
         for ( List<OrganisationUnit> orgUnits : orgUnitLists )
         {
             ValidationTask task = (ValidationTask) applicationContext.getBean( DataValidationTask.NAME );
             task.init( orgUnits, context, analyticsService );
 
-            executor.execute( task );
+            futures.add( executor.submit( task ) );
         }
 
-        executor.shutdown();
-
-        try
-        {
-            executor.awaitTermination( 6, TimeUnit.HOURS );
-        }
-        catch ( InterruptedException e )
-        {
-            executor.shutdownNow();
-        }
+        awaitTasks( futures, context );
 
         reloadAttributeOptionCombos( context.getValidationResults(), categoryService );
 
@@ -101,28 +101,51 @@ public class Validator
     }
 
     /**
-     * Determines how many threads we should use for testing validation rules.
+     * Waits for the given tasks to finish. Cancels the remaining tasks if the
+     * calling thread is interrupted or the run exceeds the maximum duration.
      *
+     * @param futures the futures of the tasks.
      * @param context validation run context
-     * @return number of threads we should use for testing validation rules
      */
-    private static int getThreadPoolSize( ValidationRunContext context )
+    private static void awaitTasks( List<Future<?>> futures, ValidationRunContext context )
     {
-        int threadPoolSize = SystemUtils.getCpuCores();
+        long deadline = System.nanoTime() + TimeUnit.HOURS.toNanos( MAX_RUN_HOURS );
 
-        if ( threadPoolSize > 2 )
+        try
         {
-            threadPoolSize--;
+            for ( Future<?> future : futures )
+            {
+                try
+                {
+                    future.get( Math.max( 0, deadline - System.nanoTime() ), TimeUnit.NANOSECONDS );
+                }
+                catch ( ExecutionException ex )
+                {
+                    // Already logged by the task, continue with the other tasks
+                }
+            }
         }
+        catch ( InterruptedException ex )
+        {
+            log.info( "Validation run interrupted, cancelling remaining tasks" );
 
-        int numberOfTasks = context.getNumberOfTasks();
+            cancelTasks( futures, context );
 
-        if ( threadPoolSize > numberOfTasks )
+            Thread.currentThread().interrupt();
+        }
+        catch ( TimeoutException ex )
         {
-            threadPoolSize = numberOfTasks;
+            log.warn( "Validation run exceeded " + MAX_RUN_HOURS + " hours, cancelling remaining tasks" );
+
+            cancelTasks( futures, context );
         }
+    }
+
+    private static void cancelTasks( List<Future<?>> futures, ValidationRunContext context )
+    {
+        context.cancel();
 
-        return threadPoolSize;
+        futures.forEach( future -> future.cancel( true ) );
     }
 
     /**
@@ -553,6 +553,49 @@ public class PredictionServiceTest
         assertEquals( "Pred 1 Ins 0 Upd 0 Del 0 Unch 8", shortSummary( summary ) );
     }
 
+    @Test
+    public void testPredictIncremental()
+    {
+        setupTestData();
+
+        Predictor p = createPredictor( dataElementX, defaultCombo, "PredictIncremental",
+            expressionA, null, periodTypeMonthly, orgUnitLevel1, 3, 1, 0 );
+        p.setLastUpdated( new Date() );
+
+        predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 10 ), summary );
+
+        assertEquals( "Pred 1 Ins 4 Upd 0 Del 0 Unch 0", shortSummary( summary ) );
+
+        // With no input data changed since, only the missing predictions are
+        // made and the existing ones are left as they are.
+
+        summary = new PredictionSummary();
+
+        Date changedSince = new DateTime().plusDays( 1 ).toDate();
+
+        predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 12 ), changedSince, summary );
+
+        assertEquals( "Pred 1 Ins 4 Upd 0 Del 0 Unch 0", shortSummary( summary ) );
+
+        assertEquals( "5.0", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 8 ) ) );
+        assertEquals( "6.121", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 9 ) ) );
+        assertEquals( "10.8", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 10 ) ) );
+        assertEquals( "10.24", getDataValue( dataElementX, defaultCombo, sourceA, makeMonth( 2001, 11 ) ) );
+
+        assertEquals( "11.0", getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 8 ) ) );
+        assertEquals( "13.24", getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 9 ) ) );
+        assertEquals( "17.92", getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 10 ) ) );
+        assertEquals( "16.8", getDataValue( dataElementX, defaultCombo, sourceB, makeMonth( 2001, 11 ) ) );
+
+        // A full run finds all predictions unchanged.
+
+        summary = new PredictionSummary();
+
+        predictionService.predict( p, monthStart( 2001, 7 ), monthStart( 2001, 12 ), summary );
+
+        assertEquals( "Pred 1 Ins 0 Upd 0 Del 0 Unch 8", shortSummary( summary ) );
+    }
+
     @Test
     public void testPredictSeasonal()
     {
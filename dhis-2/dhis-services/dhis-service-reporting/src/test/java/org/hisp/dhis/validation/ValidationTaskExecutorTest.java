@@ -0,0 +1,113 @@
+package org.hisp.dhis.validation;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.hisp.dhis.analytics.AnalyticsService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ValidationTaskExecutorTest
+{
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private ValidationTaskExecutor executor;
+
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( ConfigurationKey.VALIDATION_THREAD_POOL_SIZE ) ).thenReturn( "2" );
+
+        executor = new ValidationTaskExecutor( config );
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testPoolSizeFromConfiguration()
+    {
+        assertEquals( 2, executor.getParallelism() );
+    }
+
+    @Test
+    public void testTaskTimeIsRecorded()
+        throws Exception
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor.bindTo( registry );
+
+        AtomicBoolean ran = new AtomicBoolean();
+
+        Future<?> future = executor.submit( new ValidationTask()
+        {
+            @Override
+            public void init( List<OrganisationUnit> orgUnits, ValidationRunContext context,
+                AnalyticsService analyticsService )
+            {
+            }
+
+            @Override
+            public void run()
+            {
+                ran.set( true );
+            }
+        } );
+
+        future.get( 10, TimeUnit.SECONDS );
+
+        assertTrue( ran.get() );
+        assertEquals( 1.0, registry.get( "validation.tasks" ).functionTimer().count(), 0 );
+    }
+}
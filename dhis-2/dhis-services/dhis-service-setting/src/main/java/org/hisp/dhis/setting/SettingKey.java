@@ -108,6 +108,12 @@ public enum SettingKey
     CUSTOM_TOP_MENU_LOGO( "keyCustomTopMenuLogo", Boolean.FALSE, Boolean.class ),
     ANALYTICS_MAINTENANCE_MODE( "keyAnalyticsMaintenanceMode", Boolean.FALSE, Boolean.class ),
     DATABASE_SERVER_CPUS( "keyDatabaseServerCpus", 0, Integer.class ),
+    ANALYTICS_ROLLUP_MAX_ORG_UNIT_LEVEL( "keyAnalyticsRollupMaxOrgUnitLevel", 0, Integer.class ),
+    ANALYTICS_MAX_QUERY_ROW_ESTIMATE( "keyAnalyticsMaxQueryRowEstimate", 0, Integer.class ),
+    ANALYTICS_EXPENSIVE_QUERY_ROW_THRESHOLD( "keyAnalyticsExpensiveQueryRowThreshold", 0, Integer.class ),
+    ANALYTICS_MAX_CONCURRENT_EXPENSIVE_QUERIES( "keyAnalyticsMaxConcurrentExpensiveQueries", 2, Integer.class ),
+    ANALYTICS_EXPENSIVE_QUERY_MAX_WAIT( "keyAnalyticsExpensiveQueryMaxWait", 30, Integer.class ),
+    ANALYTICS_MERGE_AGGREGATION_TYPE_QUERIES( "keyAnalyticsMergeAggregationTypeQueries", Boolean.FALSE, Boolean.class ),
     LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME( "keyLastSuccessfulAnalyticsTablesRuntime" ),
     LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_RUNTIME( "keyLastSuccessfulLatestAnalyticsPartitionRuntime" ),
     LAST_MONITORING_RUN( "keyLastMonitoringRun", Date.class ),
@@ -137,6 +143,10 @@ public enum SettingKey
     DATA_IMPORT_STRICT_ATTRIBUTE_OPTION_COMBOS( "keyDataImportStrictAttributeOptionCombos", Boolean.FALSE, Boolean.class ),
     DATA_IMPORT_REQUIRE_CATEGORY_OPTION_COMBO( "keyDataImportRequireCategoryOptionCombo", Boolean.FALSE, Boolean.class ),
     DATA_IMPORT_REQUIRE_ATTRIBUTE_OPTION_COMBO( "keyDataImportRequireAttributeOptionCombo", Boolean.FALSE, Boolean.class ),
+    DATA_IMPORT_EXISTENCE_CHECK_CHUNK_SIZE( "keyDataImportExistenceCheckChunkSize", 0, Integer.class ),
+    DATA_IMPORT_PARSE_AHEAD( "keyDataImportParseAhead", Boolean.FALSE, Boolean.class ),
+    DATA_IMPORT_STREAMING_JSON( "keyDataImportStreamingJson", Boolean.FALSE, Boolean.class ),
+    DATA_IMPORT_MAX_CONFLICTS( "keyDataImportMaxConflicts", 0, Integer.class ),
     CUSTOM_JS( "keyCustomJs" ),
     CUSTOM_CSS( "keyCustomCss" ),
     CALENDAR( "keyCalendar", "iso8601", String.class ),
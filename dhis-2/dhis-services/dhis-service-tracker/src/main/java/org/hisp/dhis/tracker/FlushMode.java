@@ -42,4 +42,10 @@ public enum FlushMode
      * Let the importer decide the flushing.
      */
     AUTO,
+
+    /**
+     * Flush once per tracker type with JDBC statement batching enabled, so
+     * that inserts and updates are sent to the database in batches.
+     */
+    BATCH,
 }
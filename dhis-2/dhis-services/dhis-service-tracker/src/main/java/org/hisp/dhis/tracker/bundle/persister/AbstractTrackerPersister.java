@@ -66,6 +66,12 @@ import lombok.extern.slf4j.Slf4j;
 public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends BaseIdentifiableObject>
     implements TrackerPersister<T, V>
 {
+    /**
+     * Number of statements sent to the database per JDBC batch when using
+     * {@link FlushMode#BATCH}.
+     */
+    private static final int JDBC_BATCH_SIZE = 500;
+
     protected List<TrackerBundleHook> bundleHooks;
 
     protected final ReservedValueService reservedValueService;
@@ -100,87 +106,104 @@ public abstract class AbstractTrackerPersister<T extends TrackerDto, V extends B
         runPreCreateHooks( bundle );
         session.flush();
 
-        //
-        // Extract the entities to persist from the Bundle
-        //
-        List<T> dtos = getByType( getType(), bundle );
+        Integer jdbcBatchSize = session.getJdbcBatchSize();
+
+        if ( FlushMode.BATCH == bundle.getFlushMode() )
+        {
+            session.setJdbcBatchSize( JDBC_BATCH_SIZE );
+        }
 
-        for ( int idx = 0; idx < dtos.size(); idx++ )
+        try
         {
             //
-            // Create the Report for the entity being persisted
+            // Extract the entities to persist from the Bundle
             //
-            final T trackerDto = dtos.get( idx );
+            List<T> dtos = getByType( getType(), bundle );
 
-            TrackerObjectReport objectReport = new TrackerObjectReport( getType(), trackerDto.getUid(), idx );
-            typeReport.addObjectReport( objectReport );
-
-            try
+            for ( int idx = 0; idx < dtos.size(); idx++ )
             {
                 //
-                // Convert the TrackerDto into an Hibernate-managed entity
-                //
-                V convertedDto = convert( bundle, trackerDto );
-
-                //
-                // Handle comments persistence, if required
+                // Create the Report for the entity being persisted
                 //
-                persistComments( convertedDto );
+                final T trackerDto = dtos.get( idx );
 
-                updateDataValues( session, bundle.getPreheat(), trackerDto, convertedDto );
+                TrackerObjectReport objectReport = new TrackerObjectReport( getType(), trackerDto.getUid(), idx );
+                typeReport.addObjectReport( objectReport );
 
-                //
-                // Save or update the entity
-                //
-                if ( isNew( bundle.getPreheat(), trackerDto.getUid() ) )
+                try
                 {
-                    session.persist( convertedDto );
-                    typeReport.getStats().incCreated();
+                    //
+                    // Convert the TrackerDto into an Hibernate-managed entity
+                    //
+                    V convertedDto = convert( bundle, trackerDto );
+
+                    //
+                    // Handle comments persistence, if required
+                    //
+                    persistComments( convertedDto );
+
+                    updateDataValues( session, bundle.getPreheat(), trackerDto, convertedDto );
+
+                    //
+                    // Save or update the entity
+                    //
+                    if ( isNew( bundle.getPreheat(), trackerDto.getUid() ) )
+                    {
+                        session.persist( convertedDto );
+                        typeReport.getStats().incCreated();
+                    }
+                    else
+                    {
+                        session.merge( convertedDto );
+                        typeReport.getStats().incUpdated();
+                    }
+
+                    updateAttributes( session, bundle.getPreheat(), trackerDto, convertedDto );
+
+                    //
+                    // Add the entity to the Preheat
+                    //
+                    updatePreheat( bundle.getPreheat(), convertedDto );
+
+                    if ( FlushMode.OBJECT == bundle.getFlushMode() )
+                    {
+                        session.flush();
+                    }
+
+                    if ( !bundle.isSkipSideEffects() )
+                    {
+                        sideEffectDataBundles.add( handleSideEffects( bundle, convertedDto ) );
+                    }
                 }
-                else
+                catch ( Exception e )
                 {
-                    session.merge( convertedDto );
-                    typeReport.getStats().incUpdated();
-                }
-
-                updateAttributes( session, bundle.getPreheat(), trackerDto, convertedDto );
+                    final String msg = "A Tracker Entity of type '" + getType().getName() + "' (" + trackerDto.getUid()
+                        + ") failed to persist.";
 
-                //
-                // Add the entity to the Preheat
-                //
-                updatePreheat( bundle.getPreheat(), convertedDto );
+                    if ( bundle.getAtomicMode().equals( AtomicMode.ALL ) )
+                    {
+                        throw new PersistenceException( msg , e );
+                    }
+                    else
+                    {
+                        // TODO currently we do not keep track of the failed entity in the TrackerObjectReport
 
-                if ( FlushMode.OBJECT == bundle.getFlushMode() )
-                {
-                    session.flush();
-                }
+                        log.warn( msg + "\nThe Import process will process remaining entities.", e );
 
-                if ( !bundle.isSkipSideEffects() )
-                {
-                    sideEffectDataBundles.add( handleSideEffects( bundle, convertedDto ) );
+                        typeReport.getStats().incIgnored();
+                    }
                 }
             }
-            catch ( Exception e )
-            {
-                final String msg = "A Tracker Entity of type '" + getType().getName() + "' (" + trackerDto.getUid()
-                    + ") failed to persist.";
-
-                if ( bundle.getAtomicMode().equals( AtomicMode.ALL ) )
-                {
-                    throw new PersistenceException( msg , e );
-                }
-                else
-                {
-                    // TODO currently we do not keep track of the failed entity in the TrackerObjectReport
 
-                    log.warn( msg + "\nThe Import process will process remaining entities.", e );
-
-                    typeReport.getStats().incIgnored();
-                }
-            }
+            session.flush();
         }
+        finally
+        {
+            // Restore the batch size also when an entity fails to persist
+            // under AtomicMode.ALL, since the session outlives the persister
 
-        session.flush();
+            session.setJdbcBatchSize( jdbcBatchSize );
+        }
 
         //
         // Execute post-create hooks - if any
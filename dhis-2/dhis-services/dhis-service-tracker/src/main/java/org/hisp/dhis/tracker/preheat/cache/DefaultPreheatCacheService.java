@@ -31,31 +31,43 @@ package org.hisp.dhis.tracker.preheat.cache;
 import static org.hisp.dhis.commons.util.SystemUtils.isTestRun;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.cache2k.Cache;
 import org.cache2k.Cache2kBuilder;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.monitoring.metrics.MonitoredMeterBinder;
 import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Pre-heat cache implementation for metadata objects.
  *
+ * The cache is local to each instance. Changes to cached metadata types on
+ * this instance evict the cache through
+ * {@link PreheatCacheInvalidationListener}, while other instances of a
+ * cluster rely on the configured TTL.
+ *
  * @author Luciano Fiandesio
  */
+@Slf4j
 @RequiredArgsConstructor
 @Service
-public class DefaultPreheatCacheService implements PreheatCacheService
+public class DefaultPreheatCacheService implements PreheatCacheService, MonitoredMeterBinder
 {
     private final DhisConfigurationProvider config;
 
@@ -72,14 +84,26 @@ public class DefaultPreheatCacheService implements PreheatCacheService
      * Caveat: this data structure may reference multiple times the same objects, if
      * different {@link TrackerIdScheme} are used during different imports.
      */
-    private static Map<String, Cache<String, IdentifiableObject>> cache = new HashMap<>();
+    private static final Map<String, Cache<String, IdentifiableObject>> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong invalidationCount = new AtomicLong();
 
     @Override
     public Optional<IdentifiableObject> get( final String cacheKey, final String id )
     {
-        if ( isCacheEnabled() && cache.containsKey( cacheKey ) )
+        if ( isCacheEnabled() )
         {
-            return Optional.ofNullable( cache.get( cacheKey ).get( id ) );
+            Cache<String, IdentifiableObject> c = cache.get( cacheKey );
+
+            IdentifiableObject object = c != null ? c.peek( id ) : null;
+
+            ( object != null ? hitCount : missCount ).incrementAndGet();
+
+            return Optional.ofNullable( object );
         }
 
         return Optional.empty();
@@ -88,16 +112,30 @@ public class DefaultPreheatCacheService implements PreheatCacheService
     @Override
     public boolean hasKey( String cacheKey )
     {
-        return cache.containsKey( cacheKey );
+        Cache<String, IdentifiableObject> c = cache.get( cacheKey );
+
+        // Invalidated caches stay in place but hold no objects
+
+        return c != null && c.keys().iterator().hasNext();
     }
 
     public List<IdentifiableObject> getAll( String cacheKey )
     {
         List<IdentifiableObject> res = new ArrayList<>();
-        if ( hasKey( cacheKey ) )
+
+        Cache<String, IdentifiableObject> c = cache.get( cacheKey );
+
+        if ( c != null )
         {
-            cache.get( cacheKey ).keys().forEach( k -> {
-                res.add( cache.get( cacheKey ).get( k ) );
+            c.keys().forEach( k -> {
+                IdentifiableObject object = c.peek( k );
+
+                // Entries may expire or be evicted while iterating
+
+                if ( object != null )
+                {
+                    res.add( object );
+                }
             } );
         }
         return res;
@@ -114,33 +152,88 @@ public class DefaultPreheatCacheService implements PreheatCacheService
             {
                 return;
             }
-            if ( cache.containsKey( cacheKey ) )
+
+            cache.computeIfAbsent( cacheKey, k -> new Cache2kBuilder<String, IdentifiableObject>()
             {
-                cache.get( cacheKey ).put( id, object );
             }
-            else
-            {
-                Cache<String, IdentifiableObject> c = new Cache2kBuilder<String, IdentifiableObject>()
-                {
-                }
-                    .expireAfterWrite( cacheTTL, TimeUnit.MINUTES )
-                    .name( cacheKey )
-                    .permitNullValues( false )
-                    .entryCapacity( capacity == -1 ? Long.MAX_VALUE : capacity )
-                    .resilienceDuration( 30, TimeUnit.SECONDS ) // cope with at most 30 seconds
-                    // outage before propagating exceptions
-                    .build();
+                .expireAfterWrite( cacheTTL, TimeUnit.MINUTES )
+                .name( k )
+                .permitNullValues( false )
+                .entryCapacity( capacity == -1 ? Long.MAX_VALUE : capacity )
+                .resilienceDuration( 30, TimeUnit.SECONDS ) // cope with at most 30 seconds
+                // outage before propagating exceptions
+                .build() )
+                .put( id, object );
+        }
+    }
 
-                c.put( id, object );
+    public void invalidateCache()
+    {
+        cache.values().forEach( Cache::removeAll );
+    }
 
-                cache.put( cacheKey, c );
-            }
+    @Override
+    public void invalidateCache( String cacheKey )
+    {
+        if ( hasKey( cacheKey ) )
+        {
+            log.debug( "Invalidating tracker pre-heat cache after change of {}", cacheKey );
+
+            invalidationCount.incrementAndGet();
+
+            invalidateCache();
         }
     }
 
-    public void invalidateCache()
+    @Override
+    public ConfigurationKey getMonitoringKey()
+    {
+        return ConfigurationKey.MONITORING_TRACKER_ENABLED;
+    }
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        FunctionCounter.builder( "tracker.preheat.cache.hits", hitCount, AtomicLong::get )
+            .description( "Number of tracker pre-heat cache lookups served from the cache" )
+            .register( registry );
+
+        FunctionCounter.builder( "tracker.preheat.cache.misses", missCount, AtomicLong::get )
+            .description( "Number of tracker pre-heat cache lookups not found in the cache" )
+            .register( registry );
+
+        FunctionCounter.builder( "tracker.preheat.cache.invalidations", invalidationCount, AtomicLong::get )
+            .description( "Number of tracker pre-heat cache invalidations caused by metadata changes" )
+            .register( registry );
+
+        Gauge.builder( "tracker.preheat.cache.size", this, DefaultPreheatCacheService::getSize )
+            .description( "Number of objects held by the tracker pre-heat cache" )
+            .register( registry );
+    }
+
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    private long getSize()
     {
-        cache.keySet().forEach( k -> cache.get( k ).removeAll() );
+        long size = 0;
+
+        for ( Cache<String, IdentifiableObject> c : cache.values() )
+        {
+            for ( String ignored : c.keys() )
+            {
+                size++;
+            }
+        }
+
+        return size;
     }
 
     private boolean isCacheEnabled()
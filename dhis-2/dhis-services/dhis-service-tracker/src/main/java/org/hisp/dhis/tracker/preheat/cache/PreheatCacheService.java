@@ -50,7 +50,7 @@ public interface PreheatCacheService
     Optional<IdentifiableObject> get( String cacheKey, String id );
 
     /**
-     * Check whether a class type is part of the cache
+     * Check whether a class type is part of the cache and holds any objects
      * 
      * @param cacheKey the full class name of a metadata object
      *
@@ -80,4 +80,14 @@ public interface PreheatCacheService
      * Invalidates all caches.
      */
     void invalidateCache();
+
+    /**
+     * Invalidates all caches if the given class type is part of the cache.
+     * Cached metadata objects reference each other (e.g. a Program holds its
+     * Program Stages), so a change to a single cached type clears every cache
+     * to avoid serving stale object graphs.
+     *
+     * @param cacheKey the full class name of a metadata object that changed
+     */
+    void invalidateCache( String cacheKey );
 }
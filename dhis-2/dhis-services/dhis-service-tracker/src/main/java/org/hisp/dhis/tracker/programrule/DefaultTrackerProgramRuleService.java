@@ -33,6 +33,7 @@ import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.programrule.engine.ProgramRuleEngine;
+import org.hisp.dhis.programrule.engine.ProgramRuleEvaluation;
 import org.hisp.dhis.rules.models.RuleEffect;
 import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.hisp.dhis.tracker.TrackerProgramRuleService;
@@ -44,12 +45,13 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * @author Enrico Colasante
@@ -79,66 +81,88 @@ public class DefaultTrackerProgramRuleService
     public Map<String, List<RuleEffect>> calculateEnrollmentRuleEffects( List<Enrollment> enrollments,
         TrackerBundle bundle )
     {
-        return enrollments
+        List<ProgramRuleEvaluation> evaluations = enrollments
             .stream()
-            .collect( Collectors.toMap( Enrollment::getEnrollment, e -> {
-                ProgramInstance enrollment = enrollmentTrackerConverterService.fromForRuleEngine( bundle.getPreheat(),
-                    e );
-                return programRuleEngine.evaluate( enrollment, Sets.newHashSet() );
-            } ) );
+            .map( e -> ProgramRuleEvaluation.forEnrollment(
+                enrollmentTrackerConverterService.fromForRuleEngine( bundle.getPreheat(), e ), Sets.newHashSet() ) )
+            .collect( Collectors.toList() );
+
+        return programRuleEngine.evaluate( evaluations );
     }
 
     @Override
     @Transactional( readOnly = true )
     public Map<String, List<RuleEffect>> calculateEventRuleEffects( List<Event> events, TrackerBundle bundle )
     {
-        return events
+        // Convert each event once and group the events by enrollment up front,
+        // instead of scanning and converting all events for every event
+
+        Map<String, ProgramStageInstance> programStageInstances = new HashMap<>();
+
+        events.forEach( event -> programStageInstances.put( event.getEvent(),
+            eventTrackerConverterService.from( bundle.getPreheat(), event ) ) );
+
+        Map<String, Set<ProgramStageInstance>> enrollmentEvents = getEventsByEnrollment( bundle, events,
+            programStageInstances );
+
+        Map<String, Enrollment> bundleEnrollments = bundle.getEnrollments()
             .stream()
-            .collect( Collectors.toMap( Event::getEvent, event -> {
-                ProgramInstance enrollment = getEnrollment( bundle, event );
-                ProgramStageInstance programStageInstance = eventTrackerConverterService
-                    .from( bundle.getPreheat(), event );
-                if ( enrollment == null )
-                {
-                    return programRuleEngine.evaluateProgramEvent( programStageInstance,
-                        bundle.getPreheat().get( Program.class, event.getProgram() ) );
-                }
-                else
-                {
-                    return programRuleEngine.evaluate( enrollment,
-                        programStageInstance,
-                        getEventsFromEnrollment( enrollment.getUid(), bundle, events ) );
-                }
-            } ) );
+            .collect( Collectors.toMap( Enrollment::getEnrollment, e -> e, ( e1, e2 ) -> e1 ) );
+
+        Map<String, ProgramInstance> enrollments = new HashMap<>();
+
+        List<ProgramRuleEvaluation> evaluations = new ArrayList<>();
+
+        for ( Event event : events )
+        {
+            ProgramInstance enrollment = enrollments.computeIfAbsent( event.getEnrollment(),
+                uid -> getEnrollment( bundle, bundleEnrollments, uid ) );
+
+            ProgramStageInstance programStageInstance = programStageInstances.get( event.getEvent() );
+
+            if ( enrollment == null )
+            {
+                evaluations.add( ProgramRuleEvaluation.forProgramEvent( programStageInstance,
+                    bundle.getPreheat().get( Program.class, event.getProgram() ) ) );
+            }
+            else
+            {
+                evaluations.add( ProgramRuleEvaluation.forEvent( enrollment, programStageInstance,
+                    enrollmentEvents.getOrDefault( enrollment.getUid(), Sets.newHashSet() ) ) );
+            }
+        }
+
+        return programRuleEngine.evaluate( evaluations );
     }
 
-    private ProgramInstance getEnrollment( TrackerBundle bundle, Event event )
+    private ProgramInstance getEnrollment( TrackerBundle bundle, Map<String, Enrollment> bundleEnrollments,
+        String enrollment )
     {
-        Optional<Enrollment> bundleEnrollment = bundle.getEnrollments()
-            .stream()
-            .filter( e -> event.getEnrollment().equals( e.getEnrollment() ) )
-            .findAny();
-        return bundleEnrollment.isPresent()
-            ? enrollmentTrackerConverterService.fromForRuleEngine( bundle.getPreheat(), bundleEnrollment.get() )
-            : bundle.getPreheat().getEnrollment( TrackerIdScheme.UID, event.getEnrollment() );
+        Enrollment bundleEnrollment = bundleEnrollments.get( enrollment );
+
+        return bundleEnrollment != null
+            ? enrollmentTrackerConverterService.fromForRuleEngine( bundle.getPreheat(), bundleEnrollment )
+            : bundle.getPreheat().getEnrollment( TrackerIdScheme.UID, enrollment );
     }
 
-    private Set<ProgramStageInstance> getEventsFromEnrollment( String enrollment, TrackerBundle bundle,
-        List<Event> events )
+    private Map<String, Set<ProgramStageInstance>> getEventsByEnrollment( TrackerBundle bundle, List<Event> events,
+        Map<String, ProgramStageInstance> programStageInstances )
     {
-        List<ProgramStageInstance> preheatEvents = bundle.getPreheat().getEvents().values()
+        Map<String, Set<ProgramStageInstance>> eventsByEnrollment = new HashMap<>();
+
+        bundle.getPreheat().getEvents().values()
             .stream()
             .flatMap( psi -> psi.values().stream() )
-            .collect( Collectors.toList() );
-        Stream<ProgramStageInstance> programStageInstances = preheatEvents
-            .stream()
-            .filter( e -> e.getProgramInstance().getUid().equals( enrollment ) );
-        Stream<ProgramStageInstance> bundleEvents = events
-            .stream()
-            .filter( e -> e.getEnrollment().equals( enrollment ) )
-            .map( event -> eventTrackerConverterService.from( bundle.getPreheat(), event ) );
+            .forEach( psi -> eventsByEnrollment
+                .computeIfAbsent( psi.getProgramInstance().getUid(), k -> new HashSet<>() ).add( psi ) );
 
-        return Stream.concat( programStageInstances, bundleEvents ).collect( Collectors.toSet() );
+        events
+            .stream()
+            .filter( e -> e.getEnrollment() != null )
+            .forEach( e -> eventsByEnrollment
+                .computeIfAbsent( e.getEnrollment(), k -> new HashSet<>() )
+                .add( programStageInstances.get( e.getEvent() ) ) );
 
+        return eventsByEnrollment;
     }
 }
@@ -39,8 +39,11 @@ import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.tracker.FlushMode;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.TrackerTest;
+import org.hisp.dhis.tracker.TrackerType;
+import org.hisp.dhis.tracker.report.TrackerBundleReport;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -89,4 +92,21 @@ public class TrackerBundleServiceTest
         List<TrackedEntityInstance> trackedEntityInstances = manager.getAll( TrackedEntityInstance.class );
         assertEquals( 13, trackedEntityInstances.size() );
     }
+
+    @Test
+    public void testTrackedEntityInstanceImportWithBatchFlushMode()
+        throws IOException
+    {
+        TrackerImportParams trackerImportParams = fromJson( "tracker/trackedentity_basic_data.json" );
+        trackerImportParams.setFlushMode( FlushMode.BATCH );
+
+        TrackerBundle trackerBundle = trackerBundleService.create( trackerImportParams );
+
+        TrackerBundleReport bundleReport = trackerBundleService.commit( trackerBundle );
+
+        assertEquals( 13, bundleReport.getTypeReportMap().get( TrackerType.TRACKED_ENTITY ).getStats().getCreated() );
+
+        List<TrackedEntityInstance> trackedEntityInstances = manager.getAll( TrackedEntityInstance.class );
+        assertEquals( 13, trackedEntityInstances.size() );
+    }
 }
@@ -0,0 +1,218 @@
+package org.hisp.dhis.tracker.bundle.persister;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.tracker.AtomicMode;
+import org.hisp.dhis.tracker.FlushMode;
+import org.hisp.dhis.tracker.TrackerType;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.job.TrackerSideEffectDataBundle;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.hisp.dhis.tracker.report.TrackerTypeReport;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class AbstractTrackerPersisterTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Session session;
+
+    private Integer jdbcBatchSize;
+
+    private List<Integer> persistBatchSizes;
+
+    private List<TrackedEntity> trackedEntities;
+
+    @Before
+    public void setUp()
+    {
+        jdbcBatchSize = null;
+        persistBatchSizes = new ArrayList<>();
+
+        when( session.getJdbcBatchSize() ).thenAnswer( invocation -> jdbcBatchSize );
+        doAnswer( invocation -> jdbcBatchSize = invocation.getArgument( 0 ) )
+            .when( session ).setJdbcBatchSize( any() );
+        doAnswer( invocation -> persistBatchSizes.add( jdbcBatchSize ) )
+            .when( session ).persist( any() );
+
+        trackedEntities = Lists.newArrayList(
+            TrackedEntity.builder().uid( "teiA" ).trackedEntity( "teiA" ).build(),
+            TrackedEntity.builder().uid( "teiB" ).trackedEntity( "teiB" ).build(),
+            TrackedEntity.builder().uid( "teiC" ).trackedEntity( "teiC" ).build() );
+    }
+
+    @Test
+    public void testBatchFlushModePersistsWithJdbcBatching()
+    {
+        TrackerTypeReport report = new TestPersister( false ).persist( session, getBundle( FlushMode.BATCH ) );
+
+        assertEquals( 3, report.getStats().getCreated() );
+        assertEquals( Lists.newArrayList( 500, 500, 500 ), persistBatchSizes );
+        verify( session, times( 2 ) ).flush();
+        assertNull( jdbcBatchSize );
+    }
+
+    @Test
+    public void testAutoFlushModePersistsWithoutJdbcBatching()
+    {
+        new TestPersister( false ).persist( session, getBundle( FlushMode.AUTO ) );
+
+        assertEquals( Lists.newArrayList( null, null, null ), persistBatchSizes );
+        verify( session, never() ).setJdbcBatchSize( anyInt() );
+    }
+
+    @Test
+    public void testBatchSizeRestoredWhenPersistFails()
+    {
+        jdbcBatchSize = 20;
+
+        try
+        {
+            new TestPersister( true ).persist( session, getBundle( FlushMode.BATCH ) );
+        }
+        catch ( PersistenceException ex )
+        {
+            assertEquals( Integer.valueOf( 20 ), jdbcBatchSize );
+            return;
+        }
+
+        throw new AssertionError( "Expected PersistenceException" );
+    }
+
+    private TrackerBundle getBundle( FlushMode flushMode )
+    {
+        return TrackerBundle.builder()
+            .flushMode( flushMode )
+            .atomicMode( AtomicMode.ALL )
+            .skipSideEffects( true )
+            .trackedEntities( trackedEntities )
+            .build();
+    }
+
+    private static class TestPersister
+        extends AbstractTrackerPersister<TrackedEntity, TrackedEntityInstance>
+    {
+        private final boolean failOnConvert;
+
+        private TestPersister( boolean failOnConvert )
+        {
+            super( new ArrayList<>(), null );
+            this.failOnConvert = failOnConvert;
+        }
+
+        @Override
+        protected void runPreCreateHooks( TrackerBundle bundle )
+        {
+        }
+
+        @Override
+        protected TrackedEntityInstance convert( TrackerBundle bundle, TrackedEntity trackerDto )
+        {
+            if ( failOnConvert )
+            {
+                throw new IllegalStateException( "Conversion failed" );
+            }
+
+            TrackedEntityInstance trackedEntityInstance = new TrackedEntityInstance();
+            trackedEntityInstance.setUid( trackerDto.getUid() );
+            return trackedEntityInstance;
+        }
+
+        @Override
+        protected void persistComments( TrackedEntityInstance entity )
+        {
+        }
+
+        @Override
+        protected void updateDataValues( Session session, TrackerPreheat preheat, TrackedEntity trackerDto,
+            TrackedEntityInstance entity )
+        {
+        }
+
+        @Override
+        protected void updateAttributes( Session session, TrackerPreheat preheat, TrackedEntity trackerDto,
+            TrackedEntityInstance entity )
+        {
+        }
+
+        @Override
+        protected void updatePreheat( TrackerPreheat preheat, TrackedEntityInstance convertedDto )
+        {
+        }
+
+        @Override
+        protected boolean isNew( TrackerPreheat preheat, String uid )
+        {
+            return true;
+        }
+
+        @Override
+        protected TrackerSideEffectDataBundle handleSideEffects( TrackerBundle bundle, TrackedEntityInstance entity )
+        {
+            return null;
+        }
+
+        @Override
+        protected TrackerType getType()
+        {
+            return TrackerType.TRACKED_ENTITY;
+        }
+
+        @Override
+        protected void runPostCreateHooks( TrackerBundle bundle )
+        {
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.hisp.dhis.tracker.preheat.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+public class DefaultPreheatCacheServiceTest
+{
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private Environment environment;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private DefaultPreheatCacheService cacheService;
+
+    private String cacheKey;
+
+    @Before
+    public void setUp()
+    {
+        when( environment.getActiveProfiles() ).thenReturn( new String[0] );
+        when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        cacheService = new DefaultPreheatCacheService( config, environment );
+
+        // Caches are shared between instances, use a distinct key per test
+
+        cacheKey = Program.class.getName() + "-" + CodeGenerator.generateUid();
+    }
+
+    @After
+    public void tearDown()
+    {
+        cacheService.invalidateCache();
+    }
+
+    @Test
+    public void verifyHitsAndMissesAreCounted()
+    {
+        Program program = new Program();
+        program.setUid( CodeGenerator.generateUid() );
+
+        cacheService.put( cacheKey, program.getUid(), program, 10, 100 );
+
+        assertTrue( cacheService.get( cacheKey, program.getUid() ).isPresent() );
+        assertFalse( cacheService.get( cacheKey, CodeGenerator.generateUid() ).isPresent() );
+        assertFalse( cacheService.get( "not-cached", program.getUid() ).isPresent() );
+
+        assertThat( cacheService.getHitCount(), is( 1L ) );
+        assertThat( cacheService.getMissCount(), is( 2L ) );
+    }
+
+    @Test
+    public void verifyInvalidateCacheForCachedKeyClearsCache()
+    {
+        Program program = new Program();
+        program.setUid( CodeGenerator.generateUid() );
+
+        cacheService.put( cacheKey, program.getUid(), program, 10, 100 );
+
+        cacheService.invalidateCache( "not-cached" );
+
+        assertThat( cacheService.getAll( cacheKey ), hasSize( 1 ) );
+
+        cacheService.invalidateCache( cacheKey );
+
+        assertThat( cacheService.getAll( cacheKey ), hasSize( 0 ) );
+        assertFalse( cacheService.get( cacheKey, program.getUid() ).isPresent() );
+    }
+
+    @Test
+    public void verifyHasKeyIsFalseAfterInvalidation()
+    {
+        Program program = new Program();
+        program.setUid( CodeGenerator.generateUid() );
+
+        assertFalse( cacheService.hasKey( cacheKey ) );
+
+        cacheService.put( cacheKey, program.getUid(), program, 10, 100 );
+
+        assertTrue( cacheService.hasKey( cacheKey ) );
+
+        cacheService.invalidateCache( cacheKey );
+
+        assertFalse( cacheService.hasKey( cacheKey ) );
+
+        cacheService.put( cacheKey, program.getUid(), program, 10, 100 );
+
+        assertTrue( cacheService.hasKey( cacheKey ) );
+        assertThat( cacheService.getAll( cacheKey ), hasSize( 1 ) );
+    }
+
+    @Test
+    public void verifyConcurrentPutsShareOneCache()
+        throws InterruptedException
+    {
+        Thread[] threads = new Thread[8];
+
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i] = new Thread( () -> {
+                for ( int j = 0; j < 50; j++ )
+                {
+                    Program program = new Program();
+                    program.setUid( CodeGenerator.generateUid() );
+
+                    cacheService.put( cacheKey, program.getUid(), program, 10, -1 );
+                }
+            } );
+
+            threads[i].start();
+        }
+
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        assertThat( cacheService.getAll( cacheKey ), hasSize( 400 ) );
+    }
+}
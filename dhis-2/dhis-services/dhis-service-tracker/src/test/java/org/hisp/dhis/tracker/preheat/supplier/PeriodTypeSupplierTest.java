@@ -2,10 +2,15 @@ package org.hisp.dhis.tracker.preheat.supplier;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.List;
 
+import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodStore;
@@ -29,6 +34,8 @@ public class PeriodTypeSupplierTest
 {
     private PeriodTypeSupplier supplier;
 
+    private PreheatCacheService cache;
+
     @Mock
     private PeriodStore periodStore;
 
@@ -46,7 +53,7 @@ public class PeriodTypeSupplierTest
     @Before
     public void setUp()
     {
-        final PreheatCacheService cache = new DefaultPreheatCacheService( conf, env );
+        cache = new DefaultPreheatCacheService( conf, env );
         supplier = new PeriodTypeSupplier( periodStore, cache );
         when( env.getActiveProfiles() ).thenReturn( new String[] {} );
     }
@@ -64,4 +71,33 @@ public class PeriodTypeSupplierTest
 
         assertThat( preheat.getPeriodMap().values(), hasSize( 20 ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void verifySupplierReloadsPeriodsAfterCacheInvalidation()
+    {
+        when( conf.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+
+        final List<Period> periods = rnd.randomObjects( Period.class, 20 );
+        when( periodStore.getAll() ).thenReturn( periods );
+
+        final TrackerImportParams params = TrackerImportParams.builder().build();
+
+        cache.invalidateCache();
+
+        this.supplier.preheatAdd( params, new TrackerPreheat() );
+
+        assertTrue( cache.hasKey( Period.class.getName() ) );
+
+        cache.invalidateCache( Period.class.getName() );
+
+        assertFalse( cache.hasKey( Period.class.getName() ) );
+
+        TrackerPreheat preheat = new TrackerPreheat();
+        this.supplier.preheatAdd( params, preheat );
+
+        assertThat( preheat.getPeriodMap().values(), hasSize( 20 ) );
+        verify( periodStore, times( 2 ) ).getAll();
+
+        cache.invalidateCache();
+    }
+}
@@ -86,6 +86,9 @@ public enum ConfigurationKey
     REDIS_PASSWORD( "redis.password", "", true ),
     REDIS_ENABLED( "redis.enabled", Constants.FALSE, false ),
     REDIS_USE_SSL( "redis.use.ssl", Constants.FALSE, false ),
+    REDIS_CACHE_NEAR_ENABLED( "redis.cache.near.enabled", Constants.OFF, false ),
+    REDIS_CACHE_NEAR_MAX_SIZE( "redis.cache.near.max.size", "10000", false ),
+    REDIS_CACHE_NEAR_TTL( "redis.cache.near.ttl", "300", false ),
     FLYWAY_OUT_OF_ORDER_MIGRATION( "flyway.migrate_out_of_order", Constants.FALSE, false ),
     PROGRAM_TEMPORARY_OWNERSHIP_TIMEOUT( "tracker.temporary.ownership.timeout", "3", false ),
     LEADER_TIME_TO_LIVE( "leader.time.to.live.minutes", "2", false ),
@@ -108,6 +111,10 @@ public enum ConfigurationKey
     MONITORING_HIBERNATE_ENABLED( "monitoring.hibernate.enabled", Constants.OFF, false ),
     MONITORING_UPTIME_ENABLED( "monitoring.uptime.enabled", Constants.OFF, false ),
     MONITORING_CPU_ENABLED( "monitoring.cpu.enabled", Constants.OFF, false ),
+    MONITORING_ANALYTICS_ENABLED( "monitoring.analytics.enabled", Constants.OFF, false ),
+    MONITORING_TRACKER_ENABLED( "monitoring.tracker.enabled", Constants.OFF, false ),
+    MONITORING_VALIDATION_ENABLED( "monitoring.validation.enabled", Constants.OFF, false ),
+    MONITORING_CACHE_ENABLED( "monitoring.cache.enabled", Constants.OFF, false ),
     MONITORING_LOG_REQUESTID_ENABLED( "monitoring.requestidlog.enabled", Constants.OFF, false ),
     MONITORING_LOG_REQUESTID_HASHALGO( "monitoring.requestidlog.hash", "SHA-256", false ),
     MONITORING_LOG_REQUESTID_MAXSIZE( "monitoring.requestidlog.maxsize", "-1", false ),
@@ -139,7 +146,16 @@ public enum ConfigurationKey
     DB_POOL_TYPE( "db.pool.type", "c3p0", false ),
     ACTIVE_READ_REPLICAS( "active.read.replicas", "0", false ),
     AUDIT_ENABLED( "system.audit.enabled", Constants.TRUE, false ),
-    TRACKER_IMPORT_PREHEAT_CACHE_ENABLED( "tracker.import.preheat.cache.enabled", Constants.ON, false );
+    TRACKER_IMPORT_PREHEAT_CACHE_ENABLED( "tracker.import.preheat.cache.enabled", Constants.ON, false ),
+    TRACKER_IMPORT_CONTEXT_PARALLEL_ENABLED( "tracker.import.context.parallel.enabled", Constants.OFF, false ),
+    RULE_ENGINE_PARALLEL_ENABLED( "rule.engine.parallel.enabled", Constants.OFF, false ),
+    RULE_ENGINE_THREAD_POOL_SIZE( "rule.engine.thread.pool.size", "0", false ),
+    VALIDATION_THREAD_POOL_SIZE( "validation.thread.pool.size", "0", false ),
+    PREDICTOR_PARALLEL_ENABLED( "predictor.parallel.enabled", Constants.OFF, false ),
+    PREDICTOR_THREAD_POOL_SIZE( "predictor.thread.pool.size", "0", false ),
+    RESOURCE_TABLE_PARALLEL_ENABLED( "resource.table.parallel.enabled", Constants.OFF, false ),
+    RESOURCE_TABLE_THREAD_POOL_SIZE( "resource.table.thread.pool.size", "0", false ),
+    RESOURCE_TABLE_CHANGE_DETECTION_ENABLED( "resource.table.change.detection.enabled", Constants.OFF, false );
 
     private final String key;
 
@@ -47,16 +47,18 @@ public class DefaultCacheProvider implements CacheProvider
 
     private RedisTemplate<String, ?> redisTemplate;
 
+    private RedisCacheInvalidator redisCacheInvalidator;
+
     @Override
     public <V> ExtendedCacheBuilder<V> newCacheBuilder( Class<V> valueType )
     {
-        return new ExtendedCacheBuilder<V>( redisTemplate, configurationProvider );
+        return new ExtendedCacheBuilder<V>( redisTemplate, configurationProvider, redisCacheInvalidator );
     }
 
     @Override
     public  <K,V> ExtendedCacheBuilder<Map<K,V>> newCacheBuilder( Class<K> keyType, Class<V> valueType )
     {
-        return new ExtendedCacheBuilder<Map<K,V>>( redisTemplate, configurationProvider );
+        return new ExtendedCacheBuilder<Map<K,V>>( redisTemplate, configurationProvider, redisCacheInvalidator );
     }
 
     @Autowired
@@ -71,4 +73,10 @@ public class DefaultCacheProvider implements CacheProvider
         this.redisTemplate = redisTemplate;
     }
 
+    @Autowired( required = false )
+    public void setRedisCacheInvalidator( RedisCacheInvalidator redisCacheInvalidator )
+    {
+        this.redisCacheInvalidator = redisCacheInvalidator;
+    }
+
 }
\ No newline at end of file
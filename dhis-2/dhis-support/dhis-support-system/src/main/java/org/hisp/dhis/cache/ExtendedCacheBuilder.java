@@ -48,13 +48,22 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
 
     private RedisTemplate<String, ?> redisTemplate;
 
+    private RedisCacheInvalidator redisCacheInvalidator;
+
     private boolean forceInMemory;
     
     public ExtendedCacheBuilder( RedisTemplate<String, ?> redisTemplate, DhisConfigurationProvider configurationProvider )
+    {
+        this( redisTemplate, configurationProvider, null );
+    }
+
+    public ExtendedCacheBuilder( RedisTemplate<String, ?> redisTemplate, DhisConfigurationProvider configurationProvider,
+        RedisCacheInvalidator redisCacheInvalidator )
     {
         super();
         this.configurationProvider = configurationProvider;
         this.redisTemplate = redisTemplate;
+        this.redisCacheInvalidator = redisCacheInvalidator;
         this.forceInMemory = false;
     }
 
@@ -83,11 +92,14 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
      * implementation {@link LocalCache} will be returned. For Local cache,
      * every instance created using this method will be logically separate and
      * will not share any state. However, when using Redis Cache, every instance
-     * created using this method will use the same redis store.
+     * created using this method will use the same redis store. If
+     * {@code redis.cache.near.enabled} is on, the Redis Cache is fronted by a
+     * bounded local tier kept coherent through pub/sub, see {@link NearCache}.
      * 
      * @return A cache instance based on the system configuration and input
-     *         parameters. Returns one of {@link RedisCache}, {@link LocalCache}
-     *         or {@link NoOpCache}
+     *         parameters. Returns {@link NoOpCache} or one of
+     *         {@link NearCache}, {@link RedisCache} and {@link LocalCache}
+     *         decorated with {@link InstrumentedCache}
      */
     @Override
     public Cache<V> build()
@@ -100,17 +112,26 @@ public class ExtendedCacheBuilder<V> extends SimpleCacheBuilder<V>
         else if ( forceInMemory )
         {
             log.info( String.format( "Local Cache (forced) instance created for region:'%s'", getRegion() ) );
-            return new LocalCache<V>( this );
+            return instrument( new LocalCache<V>( this ) );
+        }
+        else if ( configurationProvider.getProperty( ConfigurationKey.REDIS_ENABLED ).equalsIgnoreCase( "true" )
+            && redisCacheInvalidator != null && configurationProvider.isEnabled( ConfigurationKey.REDIS_CACHE_NEAR_ENABLED ) )
+        {
+            log.info( String.format( "Near Redis Cache instance created for region:'%s'", getRegion() ) );
+            NearCache<V> nearCache = new NearCache<V>( this, new RedisCache<V>( this ), redisCacheInvalidator,
+                Long.parseLong( configurationProvider.getProperty( ConfigurationKey.REDIS_CACHE_NEAR_MAX_SIZE ) ),
+                Long.parseLong( configurationProvider.getProperty( ConfigurationKey.REDIS_CACHE_NEAR_TTL ) ) );
+            return new InstrumentedCache<V>( this, nearCache, nearCache::getLocalSize, nearCache::getLocalEvictionCount );
         }
         else if ( configurationProvider.getProperty( ConfigurationKey.REDIS_ENABLED ).equalsIgnoreCase( "true" ) )
         {
             log.info( String.format( "Redis Cache instance created for region:'%s'", getRegion() ) );
-            return new RedisCache<V>( this );
+            return new InstrumentedCache<V>( this, new RedisCache<V>( this ), null, null );
         }
         else
         {
             log.info( String.format( "Local Cache instance created for region:'%s'", getRegion() ) );
-            return new LocalCache<V>( this );
+            return instrument( new LocalCache<V>( this ) );
         }
     }
 
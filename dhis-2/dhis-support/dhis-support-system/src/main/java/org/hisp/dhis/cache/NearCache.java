@@ -0,0 +1,248 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A two level implementation of {@link Cache}. Reads are served from a
+ * bounded local tier when possible and fall back to a shared remote tier,
+ * usually a {@link RedisCache}. Writes go to both tiers and are published
+ * through the {@link RedisCacheInvalidator} so that other nodes evict the
+ * affected entries from their local tier.
+ * <p>
+ * Local entries expire after at most {@code localTtlInSeconds}, which bounds
+ * staleness in case an invalidation message is lost.
+ */
+public class NearCache<V> implements Cache<V>
+{
+    private final LocalCache<V> local;
+
+    private final Cache<V> remote;
+
+    private final RedisCacheInvalidator invalidator;
+
+    private final String region;
+
+    private final V defaultValue;
+
+    /**
+     * Incremented on every local invalidation. Values read from the remote tier
+     * are only kept locally if no invalidation happened in the meantime.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructor for instantiating NearCache.
+     *
+     * @param cacheBuilder the cache builder instance.
+     * @param remote the shared remote cache.
+     * @param invalidator the invalidation publisher and subscriber.
+     * @param localMaxSize the maximum number of entries of the local tier.
+     * @param localTtlInSeconds the maximum time to live of local entries.
+     */
+    public NearCache( CacheBuilder<V> cacheBuilder, Cache<V> remote, RedisCacheInvalidator invalidator,
+        long localMaxSize, long localTtlInSeconds )
+    {
+        long maxSize = cacheBuilder.getMaximumSize() > 0 ? Math.min( cacheBuilder.getMaximumSize(), localMaxSize ) : localMaxSize;
+        long ttl = cacheBuilder.isExpiryEnabled() ? Math.min( cacheBuilder.getExpiryInSeconds(), localTtlInSeconds ) : localTtlInSeconds;
+
+        this.local = new LocalCache<>( new SimpleCacheBuilder<V>()
+            .forRegion( cacheBuilder.getRegion() )
+            .withMaximumSize( maxSize )
+            .expireAfterWrite( ttl, SECONDS ) );
+        this.remote = remote;
+        this.invalidator = invalidator;
+        this.region = cacheBuilder.getRegion();
+        this.defaultValue = cacheBuilder.getDefaultValue();
+
+        invalidator.register( region, this );
+    }
+
+    @Override
+    public Optional<V> getIfPresent( String key )
+    {
+        Optional<V> value = local.getIfPresent( key );
+
+        if ( value.isPresent() )
+        {
+            return value;
+        }
+
+        long readGeneration = generation.get();
+
+        value = remote.getIfPresent( key );
+        value.ifPresent( v -> putLocal( key, v, readGeneration ) );
+
+        return value;
+    }
+
+    @Override
+    public Optional<V> get( String key )
+    {
+        return Optional.ofNullable( getIfPresent( key ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction )
+    {
+        if ( null == mappingFunction )
+        {
+            throw new IllegalArgumentException( "MappingFunction cannot be null" );
+        }
+
+        Optional<V> cached = getIfPresent( key );
+
+        if ( cached.isPresent() )
+        {
+            return cached;
+        }
+
+        long readGeneration = generation.get();
+
+        V value = mappingFunction.apply( key );
+
+        if ( null != value )
+        {
+            // Loaded values are not published, other nodes have no fresher
+            // local copy than what their own lookup would load
+
+            remote.put( key, value );
+            putLocal( key, value, readGeneration );
+        }
+
+        return Optional.ofNullable( Optional.ofNullable( value ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public Collection<V> getAll()
+    {
+        return remote.getAll();
+    }
+
+    @Override
+    public void put( String key, V value )
+    {
+        remote.put( key, value );
+        invalidateLocal( key );
+        local.put( key, value );
+        invalidator.publish( region, key );
+    }
+
+    @Override
+    public void put( String key, V value, long ttlInSeconds )
+    {
+        remote.put( key, value, ttlInSeconds );
+        invalidateLocal( key );
+        invalidator.publish( region, key );
+    }
+
+    @Override
+    public void invalidate( String key )
+    {
+        remote.invalidate( key );
+        invalidateLocal( key );
+        invalidator.publish( region, key );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        remote.invalidateAll();
+        invalidateAllLocal();
+        invalidator.publishAll( region );
+    }
+
+    @Override
+    public CacheType getCacheType()
+    {
+        return remote.getCacheType();
+    }
+
+    /**
+     * Returns the number of entries in the local tier.
+     */
+    public long getLocalSize()
+    {
+        return local.size();
+    }
+
+    /**
+     * Returns the number of entries evicted from the local tier due to the
+     * capacity limit.
+     */
+    public long getLocalEvictionCount()
+    {
+        return local.getEvictionCount();
+    }
+
+    /**
+     * Evicts the given key from the local tier only.
+     *
+     * @param key the cache key.
+     */
+    void invalidateLocal( String key )
+    {
+        generation.incrementAndGet();
+        local.invalidate( key );
+    }
+
+    /**
+     * Evicts all entries from the local tier only.
+     */
+    void invalidateAllLocal()
+    {
+        generation.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Stores a value read at the given generation in the local tier, and
+     * removes it again if an invalidation happened concurrently.
+     */
+    private void putLocal( String key, V value, long readGeneration )
+    {
+        local.put( key, value );
+
+        if ( generation.get() != readGeneration )
+        {
+            local.invalidate( key );
+        }
+    }
+}
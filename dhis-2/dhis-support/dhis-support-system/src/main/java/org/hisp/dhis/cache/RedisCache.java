@@ -31,12 +31,21 @@ package org.hisp.dhis.cache;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.springframework.util.Assert.hasText;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.Function;
 
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.google.common.collect.Lists;
 
 /**
  * A redis backed implementation of {@link Cache}. This implementation uses a
@@ -46,6 +55,11 @@ import org.springframework.data.redis.core.RedisTemplate;
  */
 public class RedisCache<V> implements Cache<V>
 {
+    /**
+     * Number of keys requested per SCAN iteration and per bulk get or delete.
+     */
+    private static final int SCAN_BATCH_SIZE = 1000;
+
     private RedisTemplate<String, V> redisTemplate;
 
     private boolean refreshExpriryOnAccess;
@@ -136,8 +150,19 @@ public class RedisCache<V> implements Cache<V>
     @Override
     public Collection<V> getAll()
     {
-        Set<String> keySet = redisTemplate.keys( cacheRegion + "*" );
-        return redisTemplate.opsForValue().multiGet( keySet );
+        List<V> values = new ArrayList<>();
+
+        for ( List<String> keys : Lists.partition( scanKeys(), SCAN_BATCH_SIZE ) )
+        {
+            List<V> batch = redisTemplate.opsForValue().multiGet( keys );
+
+            if ( batch != null )
+            {
+                batch.stream().filter( Objects::nonNull ).forEach( values::add );
+            }
+        }
+
+        return values;
     }
 
     @Override
@@ -184,8 +209,10 @@ public class RedisCache<V> implements Cache<V>
     @Override
     public void invalidateAll()
     {
-        Set<String> keysToDelete = redisTemplate.keys( cacheRegion.concat( ":*" ) );
-        redisTemplate.delete( keysToDelete );
+        for ( List<String> keys : Lists.partition( scanKeys(), SCAN_BATCH_SIZE ) )
+        {
+            redisTemplate.delete( keys );
+        }
     }
 
     @Override
@@ -193,4 +220,33 @@ public class RedisCache<V> implements Cache<V>
     {
         return CacheType.REDIS;
     }
+
+    /**
+     * Returns the keys of this cache region using incremental SCAN, which
+     * unlike KEYS does not block the redis server for the whole key space.
+     */
+    @SuppressWarnings( "unchecked" )
+    private List<String> scanKeys()
+    {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        ScanOptions options = ScanOptions.scanOptions()
+            .match( cacheRegion.concat( ":*" ) )
+            .count( SCAN_BATCH_SIZE )
+            .build();
+
+        return redisTemplate.execute( (RedisCallback<List<String>>) connection -> {
+            List<String> keys = new ArrayList<>();
+
+            try ( Cursor<byte[]> cursor = connection.scan( options ) )
+            {
+                cursor.forEachRemaining( key -> keys.add( keySerializer.deserialize( key ) ) );
+            }
+            catch ( IOException ex )
+            {
+                throw new IllegalStateException( "Failed to close redis cursor", ex );
+            }
+
+            return keys;
+        } );
+    }
 }
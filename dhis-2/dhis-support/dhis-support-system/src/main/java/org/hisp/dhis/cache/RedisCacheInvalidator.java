@@ -0,0 +1,173 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the local tiers of {@link NearCache} instances coherent across nodes.
+ * Every write or invalidation of a near cache is published on a redis pub/sub
+ * channel, and every node evicts the affected entries from its local tier on
+ * receipt. Messages published by this node are ignored, as the local tier
+ * is updated directly.
+ * <p>
+ * Message format: {@code <node id>|<region>|K|<key>} for a single key and
+ * {@code <node id>|<region>|A} for all keys of a region.
+ */
+@Slf4j
+public class RedisCacheInvalidator
+    implements MessageListener
+{
+    public static final String CHANNEL = "dhis2:cache:invalidation";
+
+    private static final String SEPARATOR = "|";
+
+    private static final String KEY = "K";
+
+    private static final String ALL = "A";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Near caches by region. Held weakly, as near caches are not unregistered
+     * and short lived caches must not be kept from being garbage collected.
+     */
+    private final Map<String, List<WeakReference<NearCache<?>>>> caches = new ConcurrentHashMap<>();
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisCacheInvalidator( RedisConnectionFactory connectionFactory )
+    {
+        this.redisTemplate = new StringRedisTemplate( connectionFactory );
+    }
+
+    /**
+     * Registers a near cache to receive invalidations of its region. The
+     * near cache is held weakly and is dropped once garbage collected.
+     *
+     * @param region the cache region.
+     * @param cache the near cache.
+     */
+    public void register( String region, NearCache<?> cache )
+    {
+        List<WeakReference<NearCache<?>>> regionCaches = caches.computeIfAbsent( region, r -> new CopyOnWriteArrayList<>() );
+
+        regionCaches.removeIf( ref -> ref.get() == null );
+        regionCaches.add( new WeakReference<>( cache ) );
+    }
+
+    /**
+     * Publishes the invalidation of the given key to other nodes.
+     *
+     * @param region the cache region.
+     * @param key the cache key.
+     */
+    public void publish( String region, String key )
+    {
+        send( String.join( SEPARATOR, nodeId, region, KEY, key ) );
+    }
+
+    /**
+     * Publishes the invalidation of all keys of the given region to other
+     * nodes.
+     *
+     * @param region the cache region.
+     */
+    public void publishAll( String region )
+    {
+        send( String.join( SEPARATOR, nodeId, region, ALL ) );
+    }
+
+    @Override
+    public void onMessage( Message message, byte[] pattern )
+    {
+        String[] parts = new String( message.getBody(), UTF_8 ).split( "\\|", 4 );
+
+        if ( parts.length < 3 || nodeId.equals( parts[0] ) )
+        {
+            return;
+        }
+
+        List<WeakReference<NearCache<?>>> regionCaches = caches.get( parts[1] );
+
+        if ( regionCaches == null )
+        {
+            return;
+        }
+
+        for ( WeakReference<NearCache<?>> ref : regionCaches )
+        {
+            NearCache<?> cache = ref.get();
+
+            if ( cache == null )
+            {
+                regionCaches.remove( ref );
+            }
+            else if ( ALL.equals( parts[2] ) )
+            {
+                cache.invalidateAllLocal();
+            }
+            else if ( KEY.equals( parts[2] ) && parts.length == 4 )
+            {
+                cache.invalidateLocal( parts[3] );
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void send( String message )
+    {
+        try
+        {
+            redisTemplate.convertAndSend( CHANNEL, message );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.warn( String.format( "Failed to publish cache invalidation: %s", ex.getMessage() ) );
+        }
+    }
+}
@@ -28,6 +28,7 @@ package org.hisp.dhis.configuration;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hisp.dhis.cache.RedisCacheInvalidator;
 import org.hisp.dhis.condition.RedisEnabledCondition;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.ConfigurationPropertyFactoryBean;
@@ -40,6 +41,8 @@ import org.springframework.data.redis.connection.lettuce.LettuceClientConfigurat
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration.LettuceClientConfigurationBuilder;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -104,4 +107,19 @@ public class RedisConfiguration
         return redisTemplate;
     }
 
+    @Bean
+    public RedisCacheInvalidator redisCacheInvalidator()
+    {
+        return new RedisCacheInvalidator( lettuceConnectionFactory() );
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisCacheInvalidationListenerContainer()
+    {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory( lettuceConnectionFactory() );
+        container.addMessageListener( redisCacheInvalidator(), new ChannelTopic( RedisCacheInvalidator.CHANNEL ) );
+        return container;
+    }
+
 }
\ No newline at end of file
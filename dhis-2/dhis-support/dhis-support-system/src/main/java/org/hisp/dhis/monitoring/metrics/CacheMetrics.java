@@ -0,0 +1,135 @@
+package org.hisp.dhis.monitoring.metrics;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static org.hisp.dhis.external.conf.ConfigurationKey.MONITORING_CACHE_ENABLED;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.cache.CacheRegistry;
+import org.hisp.dhis.cache.InstrumentedCache;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Binds the statistics of every cache in the {@link CacheRegistry} to the
+ * meter registry, including caches created after startup.
+ */
+@Component
+public class CacheMetrics
+    implements MonitoredMeterBinder
+{
+    @Override
+    public ConfigurationKey getMonitoringKey()
+    {
+        return MONITORING_CACHE_ENABLED;
+    }
+
+    @Override
+    public void bindTo( MeterRegistry registry )
+    {
+        CacheRegistry.addListener( cache -> new InstrumentedCacheMetrics( cache ).bindTo( registry ) );
+    }
+
+    static class InstrumentedCacheMetrics
+        extends CacheMeterBinder
+    {
+        /**
+         * Weak reference, as the meters must not keep short lived caches from
+         * being garbage collected.
+         */
+        private final WeakReference<InstrumentedCache<?>> cacheRef;
+
+        InstrumentedCacheMetrics( InstrumentedCache<?> cache )
+        {
+            super( cache, cache.getRegion(), Collections.emptyList() );
+            this.cacheRef = new WeakReference<>( cache );
+        }
+
+        @Override
+        protected Long size()
+        {
+            InstrumentedCache<?> cache = cacheRef.get();
+            return cache != null ? cache.getSize() : null;
+        }
+
+        @Override
+        protected long hitCount()
+        {
+            InstrumentedCache<?> cache = cacheRef.get();
+            return cache != null ? cache.getHitCount() : 0L;
+        }
+
+        @Override
+        protected Long missCount()
+        {
+            InstrumentedCache<?> cache = cacheRef.get();
+            return cache != null ? cache.getMissCount() : null;
+        }
+
+        @Override
+        protected Long evictionCount()
+        {
+            InstrumentedCache<?> cache = cacheRef.get();
+            return cache != null ? cache.getEvictionCount() : null;
+        }
+
+        @Override
+        protected long putCount()
+        {
+            InstrumentedCache<?> cache = cacheRef.get();
+            return cache != null ? cache.getPutCount() : 0L;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics( MeterRegistry registry )
+        {
+            InstrumentedCache<?> cache = cacheRef.get();
+
+            if ( cache == null )
+            {
+                return;
+            }
+
+            FunctionTimer.builder( "cache.load", cache, InstrumentedCache::getLoadCount,
+                InstrumentedCache::getTotalLoadTimeNanos, TimeUnit.NANOSECONDS )
+                .tags( Tags.of( "cache", cache.getRegion() ) )
+                .description( "The number of values loaded into the cache and the time spent loading them" )
+                .register( registry );
+        }
+    }
+}
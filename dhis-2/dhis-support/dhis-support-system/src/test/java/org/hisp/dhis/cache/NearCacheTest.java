@@ -0,0 +1,166 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2020, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+public class NearCacheTest
+{
+    @Mock
+    private Cache<String> remote;
+
+    @Mock
+    private RedisConnectionFactory connectionFactory;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private RedisCacheInvalidator invalidator;
+
+    private NearCache<String> cache;
+
+    @Before
+    public void setUp()
+    {
+        invalidator = new RedisCacheInvalidator( connectionFactory );
+
+        cache = new NearCache<>( new SimpleCacheBuilder<String>().forRegion( "region" ).withDefaultValue( "default" ),
+            remote, invalidator, 100, 60 );
+    }
+
+    @Test
+    public void testGetServedFromLocalTier()
+    {
+        when( remote.getIfPresent( "key" ) ).thenReturn( Optional.of( "value" ) );
+
+        assertEquals( "value", cache.get( "key" ).get() );
+        assertEquals( "value", cache.get( "key" ).get() );
+        assertEquals( "value", cache.getIfPresent( "key" ).get() );
+
+        verify( remote, times( 1 ) ).getIfPresent( "key" );
+    }
+
+    @Test
+    public void testGetDefaultValue()
+    {
+        when( remote.getIfPresent( anyString() ) ).thenReturn( Optional.empty() );
+
+        assertEquals( "default", cache.get( "key" ).get() );
+        assertFalse( cache.getIfPresent( "key" ).isPresent() );
+    }
+
+    @Test
+    public void testGetWithMappingFunction()
+    {
+        when( remote.getIfPresent( "key" ) ).thenReturn( Optional.empty() );
+
+        assertEquals( "loaded", cache.get( "key", k -> "loaded" ).get() );
+        assertEquals( "loaded", cache.get( "key", k -> "other" ).get() );
+
+        verify( remote ).put( "key", "loaded" );
+        verify( remote, times( 1 ) ).getIfPresent( "key" );
+    }
+
+    @Test
+    public void testRemoteInvalidationEvictsLocalTier()
+    {
+        when( remote.getIfPresent( "key" ) ).thenReturn( Optional.of( "value" ), Optional.of( "updated" ) );
+
+        assertEquals( "value", cache.get( "key" ).get() );
+
+        invalidator.onMessage( message( "other-node|region|K|key" ), null );
+
+        assertEquals( "updated", cache.get( "key" ).get() );
+    }
+
+    @Test
+    public void testRemoteInvalidateAllEvictsLocalTier()
+    {
+        when( remote.getIfPresent( "key" ) ).thenReturn( Optional.of( "value" ), Optional.of( "updated" ) );
+
+        assertEquals( "value", cache.get( "key" ).get() );
+
+        invalidator.onMessage( message( "other-node|other-region|A" ), null );
+
+        assertEquals( "value", cache.get( "key" ).get() );
+
+        invalidator.onMessage( message( "other-node|region|A" ), null );
+
+        assertEquals( "updated", cache.get( "key" ).get() );
+    }
+
+    @Test
+    public void testPutWritesBothTiers()
+    {
+        cache.put( "key", "value" );
+
+        assertEquals( "value", cache.get( "key" ).get() );
+
+        verify( remote ).put( "key", "value" );
+        verify( remote, times( 0 ) ).getIfPresent( any() );
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        cache.put( "key", "value" );
+        cache.invalidate( "key" );
+
+        when( remote.getIfPresent( eq( "key" ) ) ).thenReturn( Optional.empty() );
+
+        assertFalse( cache.getIfPresent( "key" ).isPresent() );
+        verify( remote ).invalidate( "key" );
+    }
+
+    private DefaultMessage message( String body )
+    {
+        return new DefaultMessage( RedisCacheInvalidator.CHANNEL.getBytes( StandardCharsets.UTF_8 ),
+            body.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
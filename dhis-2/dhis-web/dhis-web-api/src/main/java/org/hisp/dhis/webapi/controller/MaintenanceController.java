@@ -32,6 +32,8 @@ import org.hisp.dhis.analytics.AnalyticsTableGenerator;
 
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.appmanager.AppManager;
+import org.hisp.dhis.cache.CacheRegistry;
+import org.hisp.dhis.cache.CacheStatistics;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryManager;
 import org.hisp.dhis.category.CategoryService;
@@ -57,6 +59,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import javax.servlet.http.HttpServletRequest;
@@ -239,6 +242,13 @@ public class MaintenanceController
         maintenanceService.clearApplicationCaches();
     }
 
+    @RequestMapping( value = "/cacheStatistics", method = RequestMethod.GET, produces = "application/json" )
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
+    public @ResponseBody List<CacheStatistics> getCacheStatistics()
+    {
+        return CacheRegistry.getStatistics();
+    }
+
     @RequestMapping( value = "/dataPruning/organisationUnits/{uid}", method = { RequestMethod.PUT, RequestMethod.POST } )
     @PreAuthorize( "hasRole('ALL')" )
     @ResponseStatus( HttpStatus.NO_CONTENT )